@@ -0,0 +1,31 @@
+#!/bin/bash
+# Executa os benchmarks JMH com profiler de alocação e compara com a baseline, se existir.
+# Uso: ./bench.sh [nome_da_baseline] [argumentos extras do JMH]
+
+BASELINE_NAME=${1:-default}
+shift
+
+if ! command -v mvn &> /dev/null; then
+    echo "Error: Maven is not installed!"
+    exit 1
+fi
+
+mvn -q -Pbench clean package
+
+if [ $? -ne 0 ]; then
+    echo "Error: Compilation failed!"
+    exit 1
+fi
+
+STAMP=$(date +%Y%m%d-%H%M%S)
+mkdir -p bench/results
+RESULT=bench/results/jmh-$STAMP.csv
+
+java -jar target/benchmarks.jar -prof gc -rf csv -rff "$RESULT" "$@" || exit 1
+
+BASELINE=bench/baselines/$BASELINE_NAME.csv
+if [ -f "$BASELINE" ]; then
+    java -cp target/benchmarks.jar grafo_ferroviaria.bench.BaselineComparison "$BASELINE" "$RESULT"
+else
+    echo "Nenhuma baseline em $BASELINE. Para registrar esta execução: cp $RESULT $BASELINE"
+fi
@@ -0,0 +1,92 @@
+package grafo_ferroviaria.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares two JMH CSV result files (-rf csv) and flags scores that moved beyond a threshold.
+public final class BaselineComparison {
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: BaselineComparison <baseline.csv> <resultado.csv> [limite_percentual]");
+            System.exit(1);
+        }
+
+        Map<String, Double> baseline = read(Paths.get(args[0]));
+        Map<String, Double> current = read(Paths.get(args[1]));
+        double threshold = args.length >= 3 ? Double.parseDouble(args[2]) : 10.0;
+
+        int regressions = 0;
+        for (Map.Entry<String, Double> e : current.entrySet()) {
+            Double before = baseline.get(e.getKey());
+            if (before == null || before == 0.0) {
+                System.out.printf("NOVO       %s = %.3f%n", e.getKey(), e.getValue());
+                continue;
+            }
+
+            double change = (e.getValue() - before) / before * 100.0;
+            String flag = Math.abs(change) <= threshold ? "ok" : change > 0 ? "PIOROU" : "MELHOROU";
+            if (change > threshold)
+                regressions++;
+            System.out.printf("%-10s %s: %.3f -> %.3f (%+.1f%%)%n", flag, e.getKey(), before, e.getValue(), change);
+        }
+
+        // Only times and bytes per operation are compared, so a higher score is always worse.
+        System.exit(regressions > 0 ? 2 : 0);
+    }
+
+    private static Map<String, Double> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        Map<String, Double> scores = new LinkedHashMap<>();
+        if (lines.isEmpty())
+            return scores;
+
+        List<String> header = split(lines.get(0));
+        int scoreColumn = header.indexOf("Score");
+        int unitColumn = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> cols = split(line);
+            if (cols.size() != header.size() || !comparable(cols.get(0)))
+                continue;
+
+            StringBuilder key = new StringBuilder(cols.get(0)).append(" [").append(cols.get(unitColumn)).append(']');
+            for (int i = unitColumn + 1; i < cols.size(); i++)
+                key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(cols.get(i));
+            scores.put(key.toString(), Double.parseDouble(cols.get(scoreColumn).replace(',', '.')));
+        }
+        return scores;
+    }
+
+    // Secondary -prof gc metrics other than bytes per operation depend on throughput, not on the code itself.
+    private static boolean comparable(String benchmark) {
+        int secondary = Math.max(benchmark.indexOf(':'), benchmark.indexOf('\u00b7'));
+        return secondary < 0 || benchmark.endsWith("gc.alloc.rate.norm");
+    }
+
+    private static List<String> split(String line) {
+        List<String> cols = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"')
+                quoted = !quoted;
+            else if (c == ',' && !quoted) {
+                cols.add(cell.toString());
+                cell.setLength(0);
+            } else
+                cell.append(c);
+        }
+        cols.add(cell.toString());
+        return cols;
+    }
+}
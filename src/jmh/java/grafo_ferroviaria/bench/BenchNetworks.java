@@ -0,0 +1,48 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+final class BenchNetworks {
+    static final long SEED = 42L;
+
+    enum Format { TEXT, BINARY }
+
+    private BenchNetworks() {
+    }
+
+    static RailwayManager load(NetworkGenerator.Topology topology, int stations) {
+        RailwayManager manager = new RailwayManager(false);
+        manager.loadRailway(file(topology, stations, Format.BINARY).toString());
+        return manager;
+    }
+
+    // Generated files are cached in the temp dir so forks and iterations reuse them.
+    static Path file(NetworkGenerator.Topology topology, int stations, Format format) {
+        String extension = format == Format.BINARY ? ".grfb" : ".txt";
+        Path path = Paths.get(System.getProperty("java.io.tmpdir"),
+                "grafo-bench-" + topology + "-" + stations + "-" + SEED + "-v" + RailwayManager.BINARY_VERSION
+                        + extension);
+        if (Files.exists(path))
+            return path;
+
+        try {
+            Path tmp = Files.createTempFile(path.getParent(), "grafo-bench", ".tmp");
+            if (format == Format.BINARY)
+                NetworkGenerator.generate(topology, stations, SEED).writeBinary(tmp);
+            else
+                NetworkGenerator.generate(topology, stations, SEED).writeText(tmp);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,70 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.tools.GeneratedNetwork;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Route planners read published snapshots while one thread keeps closing and reopening rails.
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentRoutingBenchmark {
+    @Param({ "1000", "10000" })
+    public int stations;
+
+    private RailwayManager manager;
+    private GeneratedNetwork network;
+    private int editCursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = BenchNetworks.load(NetworkGenerator.Topology.MESH, stations);
+        network = NetworkGenerator.generate(NetworkGenerator.Topology.MESH, stations, BenchNetworks.SEED);
+    }
+
+    @Benchmark
+    @Group("leituraEscrita")
+    @GroupThreads(3)
+    public List<TrainStation> planRoute() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            return manager.planRoute(NetworkGenerator.stationName(random.nextInt(stations)),
+                    NetworkGenerator.stationName(random.nextInt(stations)), RailwayManager.RouteCriterion.TIME);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    @Benchmark
+    @Group("leituraEscrita")
+    @GroupThreads(1)
+    public int editRail() {
+        int rail = (editCursor++ >>> 1) % network.railCount();
+        String from = network.name(network.railFrom(rail));
+        String to = network.name(network.railTo(rail));
+        return (editCursor & 1) == 1 ? manager.closeRail(from, to) : manager.reopenRail(from, to);
+    }
+}
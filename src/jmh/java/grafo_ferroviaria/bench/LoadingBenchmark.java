@@ -0,0 +1,50 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LoadingBenchmark {
+    @Param({ "MESH", "HUB_AND_SPOKE", "CORRIDOR", "SCALE_FREE" })
+    public NetworkGenerator.Topology topology;
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int stations;
+
+    @Param({ "TEXT", "BINARY" })
+    public BenchNetworks.Format format;
+
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        path = BenchNetworks.file(topology, stations, format).toString();
+    }
+
+    @Benchmark
+    public RailwayManager loadRailway() {
+        RailwayManager manager = new RailwayManager(false);
+        manager.loadRailway(path);
+        return manager;
+    }
+}
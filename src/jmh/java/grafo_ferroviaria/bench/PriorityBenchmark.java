@@ -0,0 +1,154 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.managers.TrainSimulator;
+import grafo_ferroviaria.models.ServiceClass;
+import grafo_ferroviaria.models.Train;
+import grafo_ferroviaria.results.TripRecorder;
+import grafo_ferroviaria.results.TripResult;
+import grafo_ferroviaria.results.TripResultWriter;
+import grafo_ferroviaria.tools.FleetSchedule;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Runs a whole fleet horizon per invocation; the aux counters report how long each class waited at
+// congested rails with and without priority queues, alongside the wall time.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PriorityBenchmark {
+    private static final double TIME_STEP = 0.5;
+    private static final double HORIZON_MINUTES = 360.0;
+
+    @Param({ "MESH", "HUB_AND_SPOKE" })
+    public NetworkGenerator.Topology topology;
+
+    @Param({ "2000" })
+    public int stations;
+
+    @Param({ "1000" })
+    public int fleet;
+
+    @Param({ "true", "false" })
+    public boolean prioridade;
+
+    private RailwayManager manager;
+    private FleetSchedule schedule;
+    private final Map<String, ServiceClass> classes = new HashMap<>();
+
+    @Setup(Level.Trial)
+    public void setupNetwork() {
+        manager = BenchNetworks.load(topology, stations);
+        schedule = FleetSchedule.generate(NetworkGenerator.generate(topology, stations, BenchNetworks.SEED), fleet,
+                BenchNetworks.SEED);
+        manager.getTrainSimulator().getTrafficController().setPriorityScheduling(prioridade);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupFleet() {
+        for (Train train : new ArrayList<>(manager.getAllTrains()))
+            manager.removeTrain(train.id());
+        manager.getTrainSimulator().resetClock();
+
+        schedule.addTo(manager);
+        classes.clear();
+        for (Train train : manager.getAllTrains())
+            classes.put(train.id(), train.serviceClass());
+    }
+
+    @Benchmark
+    public void runFleet(ClassWaits waits) throws Exception {
+        TrainSimulator simulator = manager.getTrainSimulator();
+        TripRecorder recorder = new TripRecorder(simulator, waits.writer(classes));
+        simulator.addEventListener(recorder);
+        try {
+            while (simulator.getSimulationTime() < HORIZON_MINUTES) {
+                schedule.dispatchDue(manager, simulator.getSimulationTime());
+                manager.updateSimulation(TIME_STEP);
+            }
+        } finally {
+            simulator.removeEventListener(recorder);
+            recorder.close();
+        }
+        waits.finish();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ClassWaits {
+        public double expressWait;
+        public double passengerWait;
+        public double freightWait;
+        public long expressArrivals;
+        public long passengerArrivals;
+        public long freightArrivals;
+
+        private final Map<ServiceClass, double[]> totals = new EnumMap<>(ServiceClass.class);
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            totals.clear();
+            expressWait = passengerWait = freightWait = 0;
+            expressArrivals = passengerArrivals = freightArrivals = 0;
+        }
+
+        TripResultWriter writer(Map<String, ServiceClass> classes) {
+            return new TripResultWriter() {
+                @Override
+                public void write(TripResult result) {
+                    ServiceClass serviceClass = classes.get(result.trainId());
+                    if (serviceClass == null || !result.hasArrived())
+                        return;
+                    double[] total = totals.computeIfAbsent(serviceClass, k -> new double[2]);
+                    total[0] += result.waitingTime();
+                    total[1]++;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        void finish() {
+            expressWait = meanWait(ServiceClass.EXPRESS);
+            passengerWait = meanWait(ServiceClass.PASSENGER);
+            freightWait = meanWait(ServiceClass.FREIGHT);
+            expressArrivals = arrivals(ServiceClass.EXPRESS);
+            passengerArrivals = arrivals(ServiceClass.PASSENGER);
+            freightArrivals = arrivals(ServiceClass.FREIGHT);
+        }
+
+        private double meanWait(ServiceClass serviceClass) {
+            double[] total = totals.get(serviceClass);
+            return total == null || total[1] == 0 ? 0.0 : total[0] / total[1];
+        }
+
+        private long arrivals(ServiceClass serviceClass) {
+            double[] total = totals.get(serviceClass);
+            return total == null ? 0 : (long) total[1];
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final int QUERIES = 64;
+
+    @Param({ "MESH", "HUB_AND_SPOKE", "CORRIDOR", "SCALE_FREE" })
+    public NetworkGenerator.Topology topology;
+
+    // 1000000 is supported but slow; pass -p stations=1000000 explicitly.
+    @Param({ "1000", "10000", "100000" })
+    public int stations;
+
+    private GenericGraph<TrainStation, Rail> graph;
+    private TrainStation[] sources;
+    private TrainStation[] targets;
+    private TrainStation[] excludedFrom;
+    private TrainStation[] excludedTo;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RailwayManager manager = BenchNetworks.load(topology, stations);
+        graph = manager.graph();
+
+        Random random = new Random(7L);
+        sources = new TrainStation[QUERIES];
+        targets = new TrainStation[QUERIES];
+        excludedFrom = new TrainStation[QUERIES];
+        excludedTo = new TrainStation[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            sources[i] = manager.stations().get(NetworkGenerator.stationName(random.nextInt(stations)));
+            targets[i] = manager.stations().get(NetworkGenerator.stationName(random.nextInt(stations)));
+
+            List<TrainStation> path = graph.shortestPathTree(sources[i], Rail::distance, null).pathTo(targets[i]);
+            excludedFrom[i] = path.size() >= 2 ? path.get(0) : sources[i];
+            excludedTo[i] = path.size() >= 2 ? path.get(1) : targets[i];
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) % QUERIES;
+        return cursor;
+    }
+
+    @Benchmark
+    public GenericGraph.PathResult<TrainStation> shortestPath() {
+        int i = next();
+        return graph.shortestPath(sources[i], targets[i], Rail::distance, null);
+    }
+
+    @Benchmark
+    public Map<TrainStation, Double> dijkstraDistances() {
+        return graph.dijkstraDistances(sources[next()], Rail::distance, null);
+    }
+
+    @Benchmark
+    public GenericGraph.PathResult<TrainStation> shortestPathExcludingEdge() {
+        int i = next();
+        return graph.shortestPathExcludingEdge(sources[i], targets[i], Rail::distance, excludedFrom[i], excludedTo[i]);
+    }
+}
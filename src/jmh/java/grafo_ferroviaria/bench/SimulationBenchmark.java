@@ -0,0 +1,66 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.Train;
+import grafo_ferroviaria.tools.FleetSchedule;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+    private static final double TIME_STEP = 0.5;
+
+    @Param({ "MESH", "HUB_AND_SPOKE", "SCALE_FREE" })
+    public NetworkGenerator.Topology topology;
+
+    @Param({ "10000" })
+    public int stations;
+
+    @Param({ "10", "100", "1000" })
+    public int fleet;
+
+    private RailwayManager manager;
+    private FleetSchedule schedule;
+
+    @Setup(Level.Trial)
+    public void setupNetwork() {
+        manager = BenchNetworks.load(topology, stations);
+        schedule = FleetSchedule.generate(NetworkGenerator.generate(topology, stations, BenchNetworks.SEED), fleet,
+                BenchNetworks.SEED);
+    }
+
+    // Trains finish their routes during an iteration, so the fleet is rebuilt before each one.
+    @Setup(Level.Iteration)
+    public void setupFleet() {
+        for (Train train : new ArrayList<>(manager.getAllTrains()))
+            manager.removeTrain(train.id());
+
+        schedule.addTo(manager);
+        schedule.dispatchDue(manager, Double.POSITIVE_INFINITY);
+    }
+
+    @Benchmark
+    public void updateSimulation() {
+        manager.updateSimulation(TIME_STEP);
+    }
+}
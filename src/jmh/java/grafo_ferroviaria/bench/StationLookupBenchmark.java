@@ -0,0 +1,81 @@
+package grafo_ferroviaria.bench;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.Route;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.tools.NetworkGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StationLookupBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({ "1000", "100000" })
+    public int stations;
+
+    private RailwayManager manager;
+    private Route route;
+    private String[] names;
+    private TrainStation[] routeStations;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = BenchNetworks.load(NetworkGenerator.Topology.CORRIDOR, stations);
+
+        TrainStation first = manager.stations().get(NetworkGenerator.stationName(0));
+        TrainStation last = manager.stations().get(NetworkGenerator.stationName(stations - 1));
+        List<TrainStation> path = manager.graph().shortestPathTree(first, Rail::distance, null).pathTo(last);
+        route = Route.of(path, manager.graph(), 120.0);
+
+        Random random = new Random(3L);
+        names = new String[KEYS];
+        routeStations = new TrainStation[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            names[i] = NetworkGenerator.stationName(random.nextInt(stations));
+            routeStations[i] = route.station(random.nextInt(route.size()));
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (KEYS - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public TrainStation stationByName() {
+        return manager.stations().get(names[next()]);
+    }
+
+    @Benchmark
+    public TrainStation registryByName() {
+        return manager.registry().get(names[next()]);
+    }
+
+    @Benchmark
+    public int routeIndexOf() {
+        return route.indexOf(routeStations[next()]);
+    }
+}
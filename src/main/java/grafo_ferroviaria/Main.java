@@ -1,19 +1,41 @@
 package grafo_ferroviaria;
 
 import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.managers.SimulationLoop;
+import grafo_ferroviaria.managers.SimulationSnapshot;
 import grafo_ferroviaria.managers.TrainSimulator;
+import grafo_ferroviaria.eventlog.EventLogReplay;
+import grafo_ferroviaria.eventlog.EventLogWriter;
+import grafo_ferroviaria.results.TripRecorder;
+import grafo_ferroviaria.results.TripResultWriter;
+import grafo_ferroviaria.server.RouteServer;
+import grafo_ferroviaria.timetable.Timetable;
+import grafo_ferroviaria.metrics.MetricsReporter;
 import grafo_ferroviaria.models.TrainStation;
 import grafo_ferroviaria.models.Rail;
 import grafo_ferroviaria.models.Train;
+import grafo_ferroviaria.view.NetworkLayout;
+import grafo_ferroviaria.view.RingBufferLogModel;
+import grafo_ferroviaria.view.TrainStatusTableModel;
+import grafo_ferroviaria.view.Viewport;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class Main {
@@ -22,15 +44,55 @@ public class Main {
     private JFrame frame;
     private JPanel controlPanel;
     private JLabel timeLabel;
-    private JTextArea statusArea;
+    private TrainStatusTableModel statusModel;
+    private RingBufferLogModel logModel;
+    private JList<String> logList;
     private JPanel graphPanel;
-    private Timer simulationTimer;
-    private double simulationTime = 0.0;
+    private SimulationLoop simulationLoop;
+    private Timer renderTimer;
+    private MetricsReporter metricsReporter;
+    private EventLogWriter eventLogWriter;
+    private EventLogReplay replay;
+    private TripRecorder tripRecorder;
+    private RouteServer routeServer;
+    private Timetable timetable;
     private final double TIME_STEP = 0.5;
     private final int TIMER_DELAY = 100;
+    private final int FRAME_DELAY = 16;
+    private final double REPLAY_MINUTES_PER_SECOND = TIME_STEP * 1000 / TIMER_DELAY;
+
+    private SimulationSnapshot currentSnapshot = SimulationSnapshot.empty();
+    private SimulationSnapshot previousSnapshot = currentSnapshot;
+    private Map<String, SimulationSnapshot.TrainFrame> previousFrames = new HashMap<>();
+
+    private static final Font RAIL_LABEL_FONT = new Font("Arial", Font.PLAIN, 10);
+    private static final Font STATION_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font TRAIN_FONT = new Font("Arial", Font.BOLD, 10);
+    private static final BasicStroke RAIL_STROKE = new BasicStroke(3);
+    private static final BasicStroke OCCUPIED_RAIL_STROKE = new BasicStroke(5);
+    private static final BasicStroke CLOSED_RAIL_STROKE = new BasicStroke(3, BasicStroke.CAP_BUTT,
+            BasicStroke.JOIN_MITER, 10f, new float[] { 8f, 6f }, 0f);
+    private static final BasicStroke STATION_STROKE = new BasicStroke(2);
+    private static final BasicStroke TRAIN_STROKE = new BasicStroke(1);
+
+    private static final int LOG_CAPACITY = 500;
+    private static final long METRICS_DUMP_SECONDS = 10;
+    private static final int VIEW_MARGIN = 40;
+    private static final double STATION_HIT_RADIUS = 15.0;
+    private static final double LABEL_MIN_RAIL_PX = 80.0;
+    private static final double MINOR_STATION_MIN_RAIL_PX = 20.0;
+
+    private BufferedImage staticLayer;
+    private long staticLayerVersion = -1;
+    private long staticLayerViewport = -1;
+
+    private NetworkLayout layout;
+    private final Viewport viewport = new Viewport();
+    private boolean viewportAdjusted;
+    private int fittedWidth;
+    private int fittedHeight;
+    private NetworkLayout fittedLayout;
 
-    private Map<String, TrainPosition> trainPositions;
-    private Map<String, Point> stationPositions;
     // UI controls for route calculation
     private javax.swing.JComboBox<String> cmbFrom;
     private javax.swing.JComboBox<String> cmbTo;
@@ -38,34 +100,35 @@ public class Main {
     private javax.swing.JButton btnCalcRoute;
 
 
-    private static class TrainPosition {
-        TrainStation fromStation;
-        TrainStation toStation;
-        double progress;
-        double speed;
-        boolean isMoving;
-
-        TrainPosition(TrainStation from, TrainStation to, double progress, double speed) {
-            this.fromStation = from;
-            this.toStation = to;
-            this.progress = progress;
-            this.speed = speed;
-            this.isMoving = true;
-        }
-    }
-
-    public Main(String railwayFile) {
+    public Main(String railwayFile, Map<String, String> options) {
         railwayManager = new RailwayManager(false);
         railwayManager.loadRailway(railwayFile);
         trainSimulator = railwayManager.getTrainSimulator();
-
-        trainPositions = new HashMap<>();
-        stationPositions = new HashMap<>();
+        simulationLoop = new SimulationLoop(trainSimulator, TIME_STEP, TIMER_DELAY);
+
+        if (options.containsKey("--replay"))
+            replay = new EventLogReplay(Paths.get(options.get("--replay")), railwayManager.stations()::get,
+                    REPLAY_MINUTES_PER_SECOND);
+        if (options.containsKey("--log"))
+            openEventLog(Paths.get(options.get("--log")));
+        if (options.containsKey("--results") && replay == null)
+            openTripResults(Paths.get(options.get("--results")));
+        if (options.containsKey("--http"))
+            startRouteServer(options.get("--http"));
+        if (options.containsKey("--timetable") && replay == null)
+            loadTimetable(Paths.get(options.get("--timetable")));
+
+        railwayManager.metrics().registerMBean();
+        metricsReporter = new MetricsReporter(railwayManager.metrics(), System.out, METRICS_DUMP_SECONDS);
 
         setupGUI();
         populateStationCombos();
-        setupTrains();
+        if (replay == null)
+            simulationLoop.submit(this::setupTrains);
         startSimulation();
+
+        renderTimer = new Timer(FRAME_DELAY, e -> renderFrame());
+        renderTimer.start();
     }
 
     private void setupGUI() {
@@ -137,29 +200,39 @@ public class Main {
                 return;
             }
 
-            try {
-                java.util.List<grafo_ferroviaria.models.TrainStation> path = railwayManager.planRoute(from, to, crit);
-                java.util.List<String> routeNames = new java.util.ArrayList<>();
-                for (grafo_ferroviaria.models.TrainStation s : path) routeNames.add(s.name());
-
-                String trainId = "TREM-" + System.currentTimeMillis();
-                railwayManager.addTrain(trainId, 120.0, 200, from, new java.util.ArrayList<>(routeNames));
-                railwayManager.startTrain(trainId);
-                log("Rota " + from + " → " + to + " (" + crit + ") calculada. Trem iniciado: " + trainId);
-            } catch (Exception ex) {
-                log("Falha ao calcular rota: " + ex.getMessage());
-                ex.printStackTrace();
-            }
+            simulationLoop.submit(() -> {
+                try {
+                    String trainId = "TREM-" + System.currentTimeMillis();
+                    railwayManager.addTrain(trainId, grafo_ferroviaria.models.TrainDynamics.of(120.0), 200, null,
+                            java.util.List.of(from, to), crit);
+                    railwayManager.startTrain(trainId);
+                    log("Rota " + from + " → " + to + " (" + crit + ") calculada. Trem iniciado: " + trainId);
+                } catch (Exception ex) {
+                    log("Falha ao calcular rota: " + ex.getMessage());
+                    ex.printStackTrace();
+                }
+            });
         });
 
 
-        statusArea = new JTextArea(15, 40);
-        statusArea.setEditable(false);
-        statusArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        JScrollPane statusScrollPane = new JScrollPane(statusArea);
+        statusModel = new TrainStatusTableModel();
+        JTable statusTable = new JTable(statusModel);
+        statusTable.setFillsViewportHeight(true);
+        statusTable.setAutoCreateRowSorter(true);
+        JScrollPane statusScrollPane = new JScrollPane(statusTable);
+        statusScrollPane.setPreferredSize(new Dimension(480, 300));
         statusScrollPane.setBorder(BorderFactory.createTitledBorder("Status dos Trens"));
         controlPanel.add(statusScrollPane);
 
+        logModel = new RingBufferLogModel(LOG_CAPACITY);
+        logList = new JList<>(logModel);
+        logList.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        logList.setPrototypeCellValue("Rota EstacaoExemplo → EstacaoExemplo calculada.");
+        JScrollPane logScrollPane = new JScrollPane(logList);
+        logScrollPane.setPreferredSize(new Dimension(480, 150));
+        logScrollPane.setBorder(BorderFactory.createTitledBorder("Log"));
+        controlPanel.add(logScrollPane);
+
         frame.add(controlPanel, BorderLayout.EAST);
 
         graphPanel = new JPanel() {
@@ -171,138 +244,289 @@ public class Main {
         };
         graphPanel.setPreferredSize(new Dimension(800, 600));
         graphPanel.setBorder(BorderFactory.createTitledBorder("Visualização da Ferrovia"));
+        installViewportControls();
         frame.add(graphPanel, BorderLayout.CENTER);
 
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
     }
 
+    private void installViewportControls() {
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point lastDrag;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                lastDrag = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (lastDrag != null) {
+                    viewport.pan(e.getX() - lastDrag.x, e.getY() - lastDrag.y);
+                    viewportAdjusted = true;
+                    lastDrag = e.getPoint();
+                    graphPanel.repaint();
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                viewport.zoomAt(Math.pow(1.15, -e.getPreciseWheelRotation()), e.getX(), e.getY());
+                viewportAdjusted = true;
+                graphPanel.repaint();
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                TrainStation station = stationAt(e.getPoint());
+                graphPanel.setToolTipText(station != null ? station.name() : null);
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    viewportAdjusted = false;
+                    graphPanel.repaint();
+                    return;
+                }
+
+                TrainStation station = stationAt(e.getPoint());
+                if (station == null)
+                    return;
+                if (SwingUtilities.isRightMouseButton(e))
+                    cmbTo.setSelectedItem(station.name());
+                else
+                    cmbFrom.setSelectedItem(station.name());
+            }
+        };
+        graphPanel.addMouseListener(mouse);
+        graphPanel.addMouseMotionListener(mouse);
+        graphPanel.addMouseWheelListener(mouse);
+    }
+
+    private TrainStation stationAt(Point screen) {
+        if (layout == null)
+            return null;
+        return layout.stationAt(viewport.toWorldX(screen.x), viewport.toWorldY(screen.y),
+                STATION_HIT_RADIUS / viewport.scale());
+    }
+
     private void drawGraph(Graphics g) {
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        g2d.setColor(Color.WHITE);
-        g2d.fillRect(0, 0, graphPanel.getWidth(), graphPanel.getHeight());
+        updateLayout();
+        if (isStaticLayerStale()) {
+            renderStaticLayer();
+        }
+        g2d.drawImage(staticLayer, 0, 0, null);
+
+        drawOccupiedRails(g2d);
 
-        calculateStationPositions();
+        drawAnimatedTrains(g2d);
+    }
 
-        drawRailways(g2d);
+    private void updateLayout() {
+        if (layout == null || layout.graphVersion() != railwayManager.graph().version()) {
+            layout = NetworkLayout.build(railwayManager);
+        }
 
-        drawStations(g2d);
+        int width = graphPanel.getWidth();
+        int height = graphPanel.getHeight();
+        if (!viewportAdjusted && (width != fittedWidth || height != fittedHeight || layout != fittedLayout)) {
+            viewport.fit(layout.bounds(), width, height, VIEW_MARGIN);
+            fittedWidth = width;
+            fittedHeight = height;
+            fittedLayout = layout;
+        }
+    }
 
-        drawAnimatedTrains(g2d);
+    private boolean isStaticLayerStale() {
+        return staticLayer == null
+                || staticLayer.getWidth() != graphPanel.getWidth()
+                || staticLayer.getHeight() != graphPanel.getHeight()
+                || staticLayerVersion != railwayManager.graph().version()
+                || staticLayerViewport != viewport.version();
     }
 
-    private void calculateStationPositions() {
-        Map<String, TrainStation> stations = railwayManager.stations();
-        int centerX = graphPanel.getWidth() / 2;
-        int centerY = graphPanel.getHeight() / 2;
-        int radius = Math.min(graphPanel.getWidth(), graphPanel.getHeight()) / 3;
+    private void renderStaticLayer() {
+        int width = Math.max(1, graphPanel.getWidth());
+        int height = Math.max(1, graphPanel.getHeight());
+        GraphicsConfiguration gc = graphPanel.getGraphicsConfiguration();
+        staticLayer = gc != null
+                ? gc.createCompatibleImage(width, height)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        staticLayerVersion = railwayManager.graph().version();
+        staticLayerViewport = viewport.version();
+
+        Graphics2D g2d = staticLayer.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, width, height);
+
+            Rectangle2D visible = viewport.visibleWorld(width, height, VIEW_MARGIN);
 
-        int index = 0;
-        for (TrainStation station : stations.values()) {
-            double angle = 2 * Math.PI * index / stations.size();
-            int x = centerX + (int) (radius * Math.cos(angle));
-            int y = centerY + (int) (radius * Math.sin(angle));
-            stationPositions.put(station.name(), new Point(x, y));
-            index++;
+            drawRailways(g2d, visible);
+
+            drawStations(g2d, visible);
+        } finally {
+            g2d.dispose();
         }
     }
 
-    private void drawRailways(Graphics2D g2d) {
-        Map<String, TrainStation> stations = railwayManager.stations();
-
-        g2d.setStroke(new BasicStroke(3));
-        for (TrainStation from : stations.values()) {
-            for (TrainStation to : stations.values()) {
-                if (!from.equals(to)) {
-                    Rail rail = railwayManager.graph().neighbors(from).get(to);
-                    if (rail != null) {
-                        Point fromPos = stationPositions.get(from.name());
-                        Point toPos = stationPositions.get(to.name());
-
-                        boolean isOccupied = trainSimulator.getTrafficController()
-                                .getTrainsInRailPublic(from, to).size() > 0;
-
-                        if (isOccupied) {
-                            g2d.setColor(Color.RED);
-                            g2d.setStroke(new BasicStroke(5));
-                        } else {
-                            g2d.setColor(Color.GRAY);
-                            g2d.setStroke(new BasicStroke(3));
-                        }
-
-                        g2d.drawLine(fromPos.x, fromPos.y, toPos.x, toPos.y);
-
-                        g2d.setColor(Color.BLACK);
-                        g2d.setFont(new Font("Arial", Font.PLAIN, 10));
-                        int midX = (fromPos.x + toPos.x) / 2;
-                        int midY = (fromPos.y + toPos.y) / 2;
-                        g2d.drawString(String.format("%.1f km", rail.distance()), midX, midY);
-                    }
-                }
-            }
+    private double railLengthOnScreen() {
+        return layout.typicalRailLength() * viewport.scale();
+    }
+
+    private boolean showLabels() {
+        return railLengthOnScreen() >= LABEL_MIN_RAIL_PX;
+    }
+
+    private Point screenOf(TrainStation station) {
+        double x = layout.x(station);
+        double y = layout.y(station);
+        if (Double.isNaN(x) || Double.isNaN(y))
+            return null;
+        return new Point((int) viewport.toScreenX(x), (int) viewport.toScreenY(y));
+    }
+
+    private void drawRailways(Graphics2D g2d, Rectangle2D visible) {
+        boolean labels = showLabels();
+
+        g2d.setFont(RAIL_LABEL_FONT);
+        layout.visibleRails(visible, segment -> {
+            Point fromPos = screenOf(segment.from);
+            Point toPos = screenOf(segment.to);
+            if (fromPos == null || toPos == null)
+                return;
+
+            boolean closed = railwayManager.graph().isClosed(segment.from, segment.to);
+            g2d.setColor(closed ? Color.LIGHT_GRAY : Color.GRAY);
+            g2d.setStroke(closed ? CLOSED_RAIL_STROKE : RAIL_STROKE);
+            g2d.drawLine(fromPos.x, fromPos.y, toPos.x, toPos.y);
+
+            if (labels)
+                drawRailLabel(g2d, fromPos, toPos, segment.rail);
+        });
+    }
+
+    private void drawRailLabel(Graphics2D g2d, Point fromPos, Point toPos, Rail rail) {
+        g2d.setColor(Color.BLACK);
+        int midX = (fromPos.x + toPos.x) / 2;
+        int midY = (fromPos.y + toPos.y) / 2;
+        g2d.drawString(String.format("%.1f km", rail.distance()), midX, midY);
+    }
+
+    private void drawOccupiedRails(Graphics2D g2d) {
+        boolean labels = showLabels();
+        int width = graphPanel.getWidth();
+        int height = graphPanel.getHeight();
+
+        Rectangle bounds = new Rectangle(0, 0, width, height);
+
+        g2d.setFont(RAIL_LABEL_FONT);
+        for (TrainStation[] occupied : currentSnapshot.occupiedRails()) {
+            TrainStation from = occupied[0];
+            TrainStation to = occupied[1];
+            Point fromPos = screenOf(from);
+            Point toPos = screenOf(to);
+            Rail rail = railwayManager.graph().neighbors(from).get(to);
+            if (fromPos == null || toPos == null || rail == null)
+                continue;
+            if (!bounds.intersectsLine(fromPos.x, fromPos.y, toPos.x, toPos.y))
+                continue;
+
+            g2d.setColor(Color.RED);
+            g2d.setStroke(OCCUPIED_RAIL_STROKE);
+            g2d.drawLine(fromPos.x, fromPos.y, toPos.x, toPos.y);
+            if (labels)
+                drawRailLabel(g2d, fromPos, toPos, rail);
+            drawStation(g2d, from, fromPos, labels);
+            drawStation(g2d, to, toPos, labels);
         }
     }
 
-    private void drawStations(Graphics2D g2d) {
-        for (Map.Entry<String, Point> entry : stationPositions.entrySet()) {
-            Point pos = entry.getValue();
-            String name = entry.getKey();
+    private void drawStations(Graphics2D g2d, Rectangle2D visible) {
+        boolean labels = showLabels();
+        boolean minor = railLengthOnScreen() >= MINOR_STATION_MIN_RAIL_PX;
+
+        layout.visibleStations(visible, station -> {
+            if (!minor && layout.isMinor(station))
+                return;
+            Point pos = screenOf(station);
+            if (pos != null)
+                drawStation(g2d, station, pos, labels);
+        });
+    }
 
-            g2d.setColor(Color.BLUE);
-            g2d.fillOval(pos.x - 15, pos.y - 15, 30, 30);
-            g2d.setColor(Color.BLACK);
-            g2d.setStroke(new BasicStroke(2));
-            g2d.drawOval(pos.x - 15, pos.y - 15, 30, 30);
+    private void drawStation(Graphics2D g2d, TrainStation station, Point pos, boolean label) {
+        int r = (int) Math.max(3, Math.min(15, railLengthOnScreen() / 6));
 
+        g2d.setColor(Color.BLUE);
+        g2d.fillOval(pos.x - r, pos.y - r, 2 * r, 2 * r);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(STATION_STROKE);
+        g2d.drawOval(pos.x - r, pos.y - r, 2 * r, 2 * r);
+
+        if (label) {
             g2d.setColor(Color.GREEN);
-            g2d.setFont(new Font("Arial", Font.BOLD, 12));
+            g2d.setFont(STATION_FONT);
             FontMetrics fm = g2d.getFontMetrics();
-            int textWidth = fm.stringWidth(name);
-            g2d.drawString(name, pos.x - textWidth / 2, pos.y + 5);
+            int textWidth = fm.stringWidth(station.name());
+            g2d.drawString(station.name(), pos.x - textWidth / 2, pos.y + 5);
         }
     }
 
     private void drawAnimatedTrains(Graphics2D g2d) {
-        for (Train train : trainSimulator.getAllTrains()) {
-            String trainId = train.id();
-            TrainPosition trainPos = trainPositions.get(trainId);
-
-            if (trainPos != null && trainPos.isMoving) {
-                Point fromPos = stationPositions.get(trainPos.fromStation.name());
-                Point toPos = stationPositions.get(trainPos.toStation.name());
-
-                if (fromPos != null && toPos != null) {
-                    int currentX = fromPos.x + (int) ((toPos.x - fromPos.x) * trainPos.progress);
-                    int currentY = fromPos.y + (int) ((toPos.y - fromPos.y) * trainPos.progress);
-
-                    drawTrainSprite(g2d, currentX, currentY, trainId, train);
-                }
-            } else {
-                TrainStation currentStation = train.currentStation();
-                if (currentStation != null) {
-                    Point pos = stationPositions.get(currentStation.name());
-                    if (pos != null) {
-                        drawTrainSprite(g2d, pos.x, pos.y, trainId, train);
-                    }
+        Rectangle bounds = new Rectangle(-VIEW_MARGIN, -VIEW_MARGIN,
+                graphPanel.getWidth() + 2 * VIEW_MARGIN, graphPanel.getHeight() + 2 * VIEW_MARGIN);
+        double alpha = interpolationAlpha();
+
+        for (SimulationSnapshot.TrainFrame frame : currentSnapshot.trains()) {
+            if (frame.currentStation() == null)
+                continue;
+            Point fromPos = screenOf(frame.currentStation());
+            if (fromPos == null)
+                continue;
+
+            if (frame.isMoving() && frame.nextStation() != null) {
+                Point toPos = screenOf(frame.nextStation());
+                if (toPos == null)
+                    continue;
+
+                double progress = frame.progress();
+                SimulationSnapshot.TrainFrame previous = previousFrames.get(frame.trainId());
+                if (frame.isSameLeg(previous) && previous.isMoving())
+                    progress = previous.progress() + (frame.progress() - previous.progress()) * alpha;
+
+                int currentX = fromPos.x + (int) ((toPos.x - fromPos.x) * progress);
+                int currentY = fromPos.y + (int) ((toPos.y - fromPos.y) * progress);
+
+                if (bounds.contains(currentX, currentY)) {
+                    double angle = progress < 1.0 ? Math.atan2(toPos.y - fromPos.y, toPos.x - fromPos.x) : 0.0;
+                    drawTrainSprite(g2d, currentX, currentY, angle, frame);
                 }
+            } else if (bounds.contains(fromPos)) {
+                drawTrainSprite(g2d, fromPos.x, fromPos.y, 0.0, frame);
             }
         }
     }
 
-    private void drawTrainSprite(Graphics2D g2d, int x, int y, String trainId, Train train) {
-        AffineTransform originalTransform = g2d.getTransform();
+    private double interpolationAlpha() {
+        long span = currentSnapshot.publishedAtNanos() - previousSnapshot.publishedAtNanos();
+        if (span <= 0)
+            return 1.0;
+        double elapsed = System.nanoTime() - currentSnapshot.publishedAtNanos();
+        return Math.max(0.0, Math.min(1.0, elapsed / span));
+    }
 
-        TrainPosition trainPos = trainPositions.get(trainId);
-        if (trainPos != null && trainPos.isMoving && trainPos.progress < 1.0) {
-            Point fromPos = stationPositions.get(trainPos.fromStation.name());
-            Point toPos = stationPositions.get(trainPos.toStation.name());
-            if (fromPos != null && toPos != null) {
-                double angle = Math.atan2(toPos.y - fromPos.y, toPos.x - fromPos.x);
-                g2d.rotate(angle, x, y);
-            }
-        }
+    private void drawTrainSprite(Graphics2D g2d, int x, int y, double angle, SimulationSnapshot.TrainFrame frame) {
+        String trainId = frame.trainId();
+        AffineTransform originalTransform = g2d.getTransform();
+        if (angle != 0.0)
+            g2d.rotate(angle, x, y);
 
         g2d.setColor(Color.DARK_GRAY);
         g2d.fillRect(x - 12, y - 6, 24, 12);
@@ -317,19 +541,19 @@ public class Main {
         g2d.fillOval(x + 4, y + 4, 4, 4);
 
         g2d.setColor(Color.BLACK);
-        g2d.setStroke(new BasicStroke(1));
+        g2d.setStroke(TRAIN_STROKE);
         g2d.drawRect(x - 12, y - 6, 24, 12);
 
         g2d.setColor(Color.BLACK);
-        g2d.setFont(new Font("Arial", Font.BOLD, 10));
+        g2d.setFont(TRAIN_FONT);
         FontMetrics fm = g2d.getFontMetrics();
         int textWidth = fm.stringWidth(trainId);
         g2d.drawString(trainId, x - textWidth / 2, y - 10);
 
-        if (train.isMoving()) {
+        if (frame.isMoving()) {
             g2d.setColor(Color.GREEN);
             g2d.fillOval(x + 8, y - 8, 4, 4);
-        } else if (trainSimulator.isTrainWaiting(trainId)) {
+        } else if (frame.isWaiting()) {
             g2d.setColor(Color.RED);
             g2d.fillOval(x + 8, y - 8, 4, 4);
         }
@@ -337,41 +561,6 @@ public class Main {
         g2d.setTransform(originalTransform);
     }
 
-    private void updateTrainPositions() {
-        for (Train train : trainSimulator.getAllTrains()) {
-            String trainId = train.id();
-            TrainStation currentStation = train.currentStation();
-            TrainStation nextStation = train.getNextStation();
-
-            if (nextStation != null && train.isMoving()) {
-                TrainPosition trainPos = trainPositions.get(trainId);
-                if (trainPos == null || !trainPos.fromStation.equals(currentStation) ||
-                        !trainPos.toStation.equals(nextStation)) {
-                    trainPos = new TrainPosition(currentStation, nextStation, 0.0, 0.02);
-                    trainPositions.put(trainId, trainPos);
-                }
-
-                double timeToNext = train.timeToNextStation();
-                double totalTime = railwayManager.graph()
-                        .neighbors(currentStation)
-                        .get(nextStation)
-                        .time();
-
-                double elapsedTime = totalTime - timeToNext;
-                trainPos.progress = Math.min(1.0, elapsedTime / totalTime);
-                trainPos.isMoving = true;
-
-            } else {
-                TrainPosition trainPos = trainPositions.get(trainId);
-                if (trainPos != null) {
-                    trainPos.isMoving = false;
-                    trainPos.progress = 0.0;
-                }
-            }
-        }
-    }
-
-
     private void populateStationCombos() {
         java.util.List<String> names = new java.util.ArrayList<>(railwayManager.stations().keySet());
         java.util.Collections.sort(names);
@@ -394,6 +583,12 @@ public class Main {
         }
     }
     private void setupTrains() {
+        if (timetable != null) {
+            int scheduled = timetable.schedule(railwayManager);
+            log("✓ " + scheduled + " de " + timetable.size() + " viagens agendadas pelo quadro de horários");
+            return;
+        }
+
         try {
             List<String> route1 = railwayManager.planFastestRouteForTrain("EstacaoA", "EstacaoC")
                     .stream().map(TrainStation::name).collect(Collectors.toList());
@@ -416,131 +611,176 @@ public class Main {
         }
     }
 
-    private void startSimulation() {
-        if (simulationTimer == null || !simulationTimer.isRunning()) {
-            simulationTimer = new Timer(TIMER_DELAY, new ActionListener() {
-                @Override
-                public void actionPerformed(ActionEvent e) {
-                    updateSimulation();
-                }
-            });
-            simulationTimer.start();
-            log("Simulação iniciada!");
+    private void openEventLog(Path file) {
+        try {
+            eventLogWriter = EventLogWriter.open(file);
+        } catch (IOException e) {
+            System.out.println("Falha ao abrir log de eventos: " + e.getMessage());
+            return;
         }
+
+        trainSimulator.addEventListener(eventLogWriter);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                eventLogWriter.close();
+            } catch (IOException e) {
+                System.out.println("Falha ao fechar log de eventos: " + e.getMessage());
+            }
+        }, "event-log-close"));
     }
 
-    private void pauseSimulation() {
-        if (simulationTimer != null && simulationTimer.isRunning()) {
-            simulationTimer.stop();
-            log("Simulação pausada!");
+    private void startRouteServer(String port) {
+        try {
+            routeServer = new RouteServer(railwayManager,
+                    () -> replay != null ? replay.latest() : simulationLoop.latest(), Integer.parseInt(port));
+            routeServer.start();
+            System.out.println("Servidor de rotas em http://localhost:" + routeServer.port() + "/");
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Falha ao iniciar servidor de rotas: " + e.getMessage());
         }
     }
 
-    private void resetSimulation() {
-        if (simulationTimer != null) {
-            simulationTimer.stop();
+    private void loadTimetable(Path file) {
+        try {
+            timetable = Timetable.read(file);
+        } catch (IOException e) {
+            System.out.println("Falha ao ler quadro de horários: " + e.getMessage());
         }
+    }
 
-        simulationTime = 0.0;
-        timeLabel.setText("Tempo: 0 minutos");
-        trainPositions.clear();
-
-        for (Train train : trainSimulator.getAllTrains()) {
-            railwayManager.removeTrain(train.id());
+    private void openTripResults(Path file) {
+        try {
+            tripRecorder = new TripRecorder(trainSimulator, TripResultWriter.open(file));
+        } catch (IOException e) {
+            System.out.println("Falha ao abrir arquivo de resultados: " + e.getMessage());
+            return;
         }
 
-        setupTrains();
-        log("Simulação resetada!");
+        trainSimulator.addEventListener(tripRecorder);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            simulationLoop.shutdown();
+            try {
+                tripRecorder.close();
+            } catch (IOException e) {
+                System.out.println("Falha ao gravar resultados: " + e.getMessage());
+            }
+        }, "trip-results-close"));
     }
 
-    private void toggleSpeed() {
-        if (simulationTimer != null) {
-            if (simulationTimer.getDelay() == TIMER_DELAY) {
-                simulationTimer.setDelay(TIMER_DELAY / 2);
-                log("Velocidade aumentada para 2x!");
-            } else {
-                simulationTimer.setDelay(TIMER_DELAY);
-                log("Velocidade normal!");
+    private void startSimulation() {
+        if (replay != null) {
+            if (!replay.isRunning()) {
+                replay.start();
+                log("Reprodução iniciada!");
             }
+            return;
+        }
+
+        if (!simulationLoop.isRunning()) {
+            simulationLoop.start();
+            log("Simulação iniciada!");
         }
     }
 
-    private void updateSimulation() {
-        simulationTime += TIME_STEP;
-        timeLabel.setText(String.format("Tempo: %.0f minutos", simulationTime));
+    private void pauseSimulation() {
+        if (replay != null) {
+            if (replay.isRunning()) {
+                replay.pause();
+                log("Reprodução pausada!");
+            }
+            return;
+        }
+
+        if (simulationLoop.isRunning()) {
+            simulationLoop.pause();
+            log("Simulação pausada!");
+        }
+    }
 
-        railwayManager.updateSimulation(TIME_STEP);
+    private void resetSimulation() {
+        if (replay != null) {
+            replay.pause();
+            replay.restart();
+            log("Reprodução reiniciada!");
+            return;
+        }
 
-        updateTrainPositions();
+        simulationLoop.pause();
 
-        graphPanel.repaint();
-        updateStatus();
-    }
-
-    private void updateStatus() {
-        Map<String, TrainSimulator.TrainStatus> status = railwayManager.getTrainStatus();
-        StringBuilder sb = new StringBuilder();
-
-        for (TrainSimulator.TrainStatus trainStatus : status.values()) {
-            sb.append(String.format("%s\n", trainStatus.trainId()));
-            sb.append(String.format("   Estação: %s → %s\n",
-                    trainStatus.currentStation() != null ? trainStatus.currentStation().name() : "N/A",
-                    trainStatus.nextStation() != null ? trainStatus.nextStation().name() : "N/A"));
-            sb.append(String.format("   Velocidade: %.1f km/h\n", trainStatus.currentSpeed()));
-            sb.append(String.format("Velocidade: %.1f km/h\n", trainStatus.currentSpeed()));
-            sb.append(String.format("Movendo: %s\n", trainStatus.isMoving() ? "Sim" : "Não"));
-            sb.append(String.format("   Movendo: %s\n", trainStatus.isMoving() ? "Sim" : "Não"));
-
-
-            if (trainStatus.isWaiting()) {
-                sb.append(String.format("   Aguardando: %.1f min\n", trainStatus.waitingTime()));
-            } else if (trainStatus.isMoving() && !trainStatus.hasReachedDestination()) {
-                sb.append(String.format("   Tempo restante: %.1f min\n", trainStatus.timeToNextStation()));
-            } else if (trainStatus.hasReachedDestination()) {
-                sb.append("Chegou ao destino!\n");
-                sb.append(summarizeTotals(trainStatus.trainId()));
+        simulationLoop.submit(() -> {
+            for (Train train : new java.util.ArrayList<>(trainSimulator.getAllTrains())) {
+                railwayManager.removeTrain(train.id());
             }
-            sb.append("\n");
+            trainSimulator.clearDepartures();
+            trainSimulator.resetClock();
+
+            setupTrains();
+            log("Simulação resetada!");
+        });
+    }
+
+    private void toggleSpeed() {
+        if (replay != null) {
+            boolean normal = replay.minutesPerSecond() == REPLAY_MINUTES_PER_SECOND;
+            replay.setMinutesPerSecond(normal ? REPLAY_MINUTES_PER_SECOND * 2 : REPLAY_MINUTES_PER_SECOND);
+            log(normal ? "Velocidade aumentada para 2x!" : "Velocidade normal!");
+            return;
         }
 
-        statusArea.setText(sb.toString());
+        if (simulationLoop.tickIntervalMillis() == TIMER_DELAY) {
+            simulationLoop.setTickIntervalMillis(TIMER_DELAY / 2);
+            log("Velocidade aumentada para 2x!");
+        } else {
+            simulationLoop.setTickIntervalMillis(TIMER_DELAY);
+            log("Velocidade normal!");
+        }
     }
 
-    private String summarizeTotals(String trainId) {
-        java.util.List<TrainStation> route = railwayManager.getTrainRoute(trainId);
-        double totalPrice = 0.0;
-        double totalDist = 0.0;  // km
-        double totalTime = 0.0;  // min
+    private void renderFrame() {
+        SimulationSnapshot latest = replay != null ? replay.latest() : simulationLoop.latest();
+        if (latest.sequence() != currentSnapshot.sequence()) {
+            previousSnapshot = currentSnapshot;
+            currentSnapshot = latest;
 
-        for (int i = 0; i + 1 < route.size(); i++) {
-            Rail r = railwayManager.graph()
-                    .neighbors(route.get(i))
-                    .get(route.get(i + 1));
-            if (r != null) {
-                totalPrice += r.price();
-                totalDist  += r.distance();
-                totalTime  += r.time();
-            }
+            previousFrames = new HashMap<>();
+            for (SimulationSnapshot.TrainFrame frame : previousSnapshot.trains())
+                previousFrames.put(frame.trainId(), frame);
+
+            timeLabel.setText(String.format("Tempo: %.0f minutos", currentSnapshot.simulationTime()));
+            statusModel.apply(currentSnapshot);
         }
 
-        return String.format("Preço total: R$ %.2f%nDistância total: %.1f km%nTempo total: %.0f min%n",
-                totalPrice, totalDist, totalTime);
+        graphPanel.repaint();
     }
 
-
     private void log(String message) {
-        statusArea.append(message + "\n");
-        statusArea.setCaretPosition(statusArea.getDocument().getLength());
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> log(message));
+            return;
+        }
+        logModel.append(message);
+        logList.ensureIndexIsVisible(logModel.getSize() - 1);
     }
 
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Uso: java Main <arquivo_ferrovia>");
+        if (args.length == 0 || args.length % 2 == 0) {
+            System.out.println("Uso: java Main <arquivo_ferrovia> [--log <arquivo> | --replay <arquivo>]"
+                    + " [--results <arquivo.csv|arquivo>] [--http <porta>] [--timetable <horarios.txt>]");
             System.exit(1);
         }
 
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i += 2) {
+            if (!Set.of("--log", "--replay", "--results", "--http", "--timetable").contains(args[i])) {
+                System.out.println("Opção desconhecida: " + args[i]);
+                System.exit(1);
+            }
+            options.put(args[i], args[i + 1]);
+        }
+
         SwingUtilities.invokeLater(() -> {
-            new Main(args[0]);
+            new Main(args[0], options);
         });
     }
+
 }
\ No newline at end of file
@@ -0,0 +1,260 @@
+package grafo_ferroviaria.analytics;
+
+import grafo_ferroviaria.models.IndexedRailGraph;
+import grafo_ferroviaria.models.Rail;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+// Brandes betweenness on weighted rails: one Dijkstra per source counting shortest paths, then the
+// dependencies are summed back in reverse settle order. Sources run in parallel, each worker with its
+// own buffers. On huge graphs a random sample of sources is used and the totals are scaled by n/k.
+// In undirected graphs every pair is seen from both ends, so the scores are halved.
+public class BetweennessCentrality {
+    private final IndexedRailGraph graph;
+    private final double[] weights;
+
+    public BetweennessCentrality(IndexedRailGraph graph, ToDoubleFunction<? super Rail> cost) {
+        this.graph = graph;
+        this.weights = graph.weights(cost);
+    }
+
+    public Scores compute() {
+        return compute(IntStream.range(0, graph.size()).toArray());
+    }
+
+    public Scores sample(int sources, long seed) {
+        if (sources >= graph.size())
+            return compute();
+        return compute(sampleSources(graph.size(), sources, seed));
+    }
+
+    public Scores compute(int[] sources) {
+        Worker total = Arrays.stream(sources).parallel()
+                .collect(() -> new Worker(graph, weights), Worker::accumulate, Worker::merge);
+
+        double scale = sources.length > 0 ? (double) graph.size() / sources.length : 0.0;
+        if (!graph.isDirected())
+            scale /= 2;
+        for (int v = 0; v < total.stationScore.length; v++)
+            total.stationScore[v] *= scale;
+        for (int e = 0; e < total.railScore.length; e++)
+            total.railScore[e] *= scale;
+        return new Scores(graph, total.stationScore, total.railScore, sources.length);
+    }
+
+    // Partial Fisher-Yates over 0..n-1, deterministic in the seed.
+    static int[] sampleSources(int n, int count, long seed) {
+        int[] all = IntStream.range(0, n).toArray();
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(n - i);
+            int t = all[i];
+            all[i] = all[j];
+            all[j] = t;
+        }
+        int[] picked = Arrays.copyOf(all, count);
+        Arrays.sort(picked);
+        return picked;
+    }
+
+    private static final class Worker {
+        final IndexedRailGraph graph;
+        final double[] weights;
+        final double[] stationScore;
+        final double[] railScore;
+        final double[] dist;
+        final double[] sigma;
+        final double[] delta;
+        final int[] position;
+        final int[] order;
+        final int[] heap;
+        final int[] heapPos;
+        int settled;
+        int heapSize;
+
+        Worker(IndexedRailGraph graph, double[] weights) {
+            int n = graph.size();
+            this.graph = graph;
+            this.weights = weights;
+            this.stationScore = new double[n];
+            this.railScore = new double[graph.edges()];
+            this.dist = new double[n];
+            this.sigma = new double[n];
+            this.delta = new double[n];
+            this.position = new int[n];
+            this.order = new int[n];
+            this.heap = new int[n];
+            this.heapPos = new int[n];
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            Arrays.fill(position, -1);
+            Arrays.fill(heapPos, -1);
+        }
+
+        void accumulate(int source) {
+            for (int i = 0; i < settled; i++) {
+                int v = order[i];
+                dist[v] = Double.POSITIVE_INFINITY;
+                sigma[v] = 0.0;
+                delta[v] = 0.0;
+                position[v] = -1;
+            }
+            settled = 0;
+
+            dist[source] = 0.0;
+            sigma[source] = 1.0;
+            push(source);
+            while (heapSize > 0) {
+                int u = pop();
+                position[u] = settled;
+                order[settled++] = u;
+                double du = dist[u];
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    int v = graph.target(a);
+                    if (position[v] >= 0)
+                        continue;
+                    double alt = du + weights[a];
+                    if (alt < dist[v]) {
+                        dist[v] = alt;
+                        sigma[v] = sigma[u];
+                        if (heapPos[v] < 0)
+                            push(v);
+                        else
+                            siftUp(heapPos[v]);
+                    } else if (alt == dist[v]) {
+                        sigma[v] += sigma[u];
+                    }
+                }
+            }
+
+            // A shortest-path arc runs from an earlier to a later settled vertex with an exact distance
+            // match; walking the settle order backwards finishes each vertex before its predecessors.
+            for (int i = settled - 1; i >= 0; i--) {
+                int u = order[i];
+                double du = dist[u];
+                double su = sigma[u];
+                double acc = 0.0;
+                for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                    int v = graph.target(a);
+                    if (position[v] <= i || du + weights[a] != dist[v])
+                        continue;
+                    double c = su / sigma[v] * (1.0 + delta[v]);
+                    railScore[graph.edge(a)] += c;
+                    acc += c;
+                }
+                delta[u] = acc;
+                if (u != source)
+                    stationScore[u] += acc;
+            }
+        }
+
+        Worker merge(Worker other) {
+            for (int v = 0; v < stationScore.length; v++)
+                stationScore[v] += other.stationScore[v];
+            for (int e = 0; e < railScore.length; e++)
+                railScore[e] += other.railScore[e];
+            return this;
+        }
+
+        private void push(int v) {
+            heap[heapSize] = v;
+            heapPos[v] = heapSize;
+            siftUp(heapSize++);
+        }
+
+        private int pop() {
+            int top = heap[0];
+            heapPos[top] = -1;
+            if (--heapSize > 0) {
+                heap[0] = heap[heapSize];
+                heapPos[heap[0]] = 0;
+                siftDown(0);
+            }
+            return top;
+        }
+
+        private void siftUp(int i) {
+            int v = heap[i];
+            double d = dist[v];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                int p = heap[parent];
+                if (dist[p] <= d)
+                    break;
+                heap[i] = p;
+                heapPos[p] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            heapPos[v] = i;
+        }
+
+        private void siftDown(int i) {
+            int v = heap[i];
+            double d = dist[v];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize)
+                    break;
+                if (child + 1 < heapSize && dist[heap[child + 1]] < dist[heap[child]])
+                    child++;
+                int c = heap[child];
+                if (dist[c] >= d)
+                    break;
+                heap[i] = c;
+                heapPos[c] = i;
+                i = child;
+            }
+            heap[i] = v;
+            heapPos[v] = i;
+        }
+    }
+
+    public static final class Scores {
+        private final IndexedRailGraph graph;
+        private final double[] stationScore;
+        private final double[] railScore;
+        private final int sources;
+
+        Scores(IndexedRailGraph graph, double[] stationScore, double[] railScore, int sources) {
+            this.graph = graph;
+            this.stationScore = stationScore;
+            this.railScore = railScore;
+            this.sources = sources;
+        }
+
+        public int sources() {
+            return sources;
+        }
+
+        public double station(int v) {
+            return stationScore[v];
+        }
+
+        public double rail(int edge) {
+            return railScore[edge];
+        }
+
+        // Station indices ordered by decreasing score.
+        public int[] topStations(int limit) {
+            return top(stationScore, limit);
+        }
+
+        // Edge ids ordered by decreasing score.
+        public int[] topRails(int limit) {
+            return top(railScore, limit);
+        }
+
+        private static int[] top(double[] score, int limit) {
+            return IntStream.range(0, score.length).boxed()
+                    .sorted((a, b) -> score[a] != score[b] ? Double.compare(score[b], score[a]) : Integer.compare(a, b))
+                    .limit(limit).mapToInt(Integer::intValue).toArray();
+        }
+
+        public IndexedRailGraph graph() {
+            return graph;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package grafo_ferroviaria.analytics;
+
+import grafo_ferroviaria.models.IndexedDijkstra;
+import grafo_ferroviaria.models.IndexedRailGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+// Ranks rail closures by how much they add to the total travel time between all station pairs. Closing
+// a rail only changes distances from sources whose shortest-path tree uses it, and from those only to the
+// subtree below it, so each source runs one full search and then repairs that subtree for every
+// candidate rail in its tree. Pairs a closure disconnects are counted apart, since their added time is
+// unbounded. Sources run in parallel and may be sampled; candidates may be limited to the rails with the
+// highest betweenness.
+public class ClosureImpact {
+    private final IndexedRailGraph graph;
+    private final ToDoubleFunction<? super Rail> cost;
+    private final double[] weights;
+
+    public ClosureImpact(IndexedRailGraph graph, ToDoubleFunction<? super Rail> cost) {
+        this.graph = graph;
+        this.cost = cost;
+        this.weights = graph.weights(cost);
+    }
+
+    // candidates <= 0 evaluates every rail; sources <= 0 or >= n uses every station as a source.
+    public List<RailClosure> rank(int candidates, int sources, long seed) {
+        int n = graph.size();
+        int[] origins = sources <= 0 || sources >= n ? IntStream.range(0, n).toArray()
+                : BetweennessCentrality.sampleSources(n, sources, seed);
+
+        int[] edges;
+        double[] betweenness = null;
+        if (candidates <= 0 || candidates >= graph.edges()) {
+            edges = IntStream.range(0, graph.edges()).toArray();
+        } else {
+            BetweennessCentrality.Scores scores = new BetweennessCentrality(graph, cost).compute(origins);
+            edges = scores.topRails(candidates);
+            betweenness = new double[graph.edges()];
+            for (int e : edges)
+                betweenness[e] = scores.rail(e);
+        }
+
+        int[] slot = new int[graph.edges()];
+        Arrays.fill(slot, -1);
+        for (int i = 0; i < edges.length; i++)
+            slot[edges[i]] = i;
+
+        Worker total = Arrays.stream(origins).parallel()
+                .collect(() -> new Worker(slot, edges.length), Worker::accumulate, Worker::merge);
+
+        double scale = origins.length > 0 ? (double) n / origins.length : 0.0;
+        List<RailClosure> ranking = new ArrayList<>(edges.length);
+        for (int i = 0; i < edges.length; i++) {
+            int a = graph.edgeArc(edges[i]);
+            ranking.add(new RailClosure(graph.station(graph.source(a)), graph.station(graph.target(a)),
+                    graph.rail(a), total.added[i] * scale, Math.round(total.disconnected[i] * scale),
+                    betweenness != null ? betweenness[edges[i]] : Double.NaN));
+        }
+        ranking.sort(Comparator.comparingLong(RailClosure::disconnectedPairs)
+                .thenComparingDouble(RailClosure::addedTravelTime).reversed());
+        return ranking;
+    }
+
+    private final class Worker {
+        final int[] slot;
+        final IndexedDijkstra base;
+        final IndexedDijkstra detour;
+        final double[] added;
+        final long[] disconnected;
+        final int[] treeChild;
+        final int[] treeRank;
+        final double[] bound;
+        final int[] cutOff;
+        final int[] seeds;
+        final double[] seedDistances;
+
+        Worker(int[] slot, int candidates) {
+            int n = graph.size();
+            this.slot = slot;
+            this.base = new IndexedDijkstra(graph);
+            this.detour = new IndexedDijkstra(graph);
+            this.added = new double[candidates];
+            this.disconnected = new long[candidates];
+            this.treeChild = new int[n];
+            this.treeRank = new int[n];
+            this.bound = new double[n];
+            this.cutOff = new int[n];
+            this.seeds = new int[graph.arcs()];
+            this.seedDistances = new double[graph.arcs()];
+            Arrays.fill(bound, Double.POSITIVE_INFINITY);
+        }
+
+        void accumulate(int source) {
+            base.run(source, weights);
+            int reached = base.settled();
+            int count = 0;
+            for (int i = 0; i < reached; i++) {
+                int v = base.settledVertex(i);
+                bound[v] = base.distance(v);
+                if (i > 0 && slot[graph.edge(base.predecessorArc(v))] >= 0) {
+                    treeChild[count] = v;
+                    treeRank[count++] = i;
+                }
+            }
+
+            for (int k = 0; k < count; k++)
+                close(treeChild[k], treeRank[k], reached);
+
+            for (int i = 0; i < reached; i++)
+                bound[base.settledVertex(i)] = Double.POSITIVE_INFINITY;
+        }
+
+        // Only the subtree hanging from the closed rail can move. Its vertices lose their bound, are seeded
+        // from intact neighbours and are searched again on their own.
+        private void close(int child, int rank, int reached) {
+            int e = graph.edge(base.predecessorArc(child));
+            int affected = 0;
+            bound[child] = Double.POSITIVE_INFINITY;
+            cutOff[affected++] = child;
+            for (int i = rank + 1; i < reached; i++) {
+                int v = base.settledVertex(i);
+                if (bound[graph.source(base.predecessorArc(v))] == Double.POSITIVE_INFINITY) {
+                    bound[v] = Double.POSITIVE_INFINITY;
+                    cutOff[affected++] = v;
+                }
+            }
+
+            int seedCount = 0;
+            if (!graph.isDirected()) {
+                // Both arcs of an undirected rail weigh the same, so intact neighbours are found from the
+                // cut-off side.
+                for (int i = 0; i < affected; i++) {
+                    int v = cutOff[i];
+                    for (int a = graph.firstArc(v), end = graph.endArc(v); a < end; a++) {
+                        int u = graph.target(a);
+                        if (graph.edge(a) != e && bound[u] != Double.POSITIVE_INFINITY
+                                && weights[a] != Double.POSITIVE_INFINITY) {
+                            seeds[seedCount] = v;
+                            seedDistances[seedCount++] = bound[u] + weights[a];
+                        }
+                    }
+                }
+            } else {
+                for (int i = 0; i < reached; i++) {
+                    int u = base.settledVertex(i);
+                    if (bound[u] == Double.POSITIVE_INFINITY)
+                        continue;
+                    for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                        int v = graph.target(a);
+                        if (graph.edge(a) != e && bound[v] == Double.POSITIVE_INFINITY
+                                && base.distance(v) != Double.POSITIVE_INFINITY
+                                && weights[a] != Double.POSITIVE_INFINITY) {
+                            seeds[seedCount] = v;
+                            seedDistances[seedCount++] = bound[u] + weights[a];
+                        }
+                    }
+                }
+            }
+
+            detour.run(seeds, seedDistances, seedCount, weights, e, bound);
+            double extra = 0.0;
+            long lost = 0;
+            for (int i = 0; i < affected; i++) {
+                int v = cutOff[i];
+                double d = detour.distance(v);
+                if (d == Double.POSITIVE_INFINITY)
+                    lost++;
+                else
+                    extra += d - base.distance(v);
+                bound[v] = base.distance(v);
+            }
+            added[slot[e]] += extra;
+            disconnected[slot[e]] += lost;
+        }
+
+        Worker merge(Worker other) {
+            for (int i = 0; i < added.length; i++) {
+                added[i] += other.added[i];
+                disconnected[i] += other.disconnected[i];
+            }
+            return this;
+        }
+    }
+
+    public static final class RailClosure {
+        private final TrainStation from;
+        private final TrainStation to;
+        private final Rail rail;
+        private final double addedTravelTime;
+        private final long disconnectedPairs;
+        private final double betweenness;
+
+        RailClosure(TrainStation from, TrainStation to, Rail rail, double addedTravelTime, long disconnectedPairs,
+                double betweenness) {
+            this.from = from;
+            this.to = to;
+            this.rail = rail;
+            this.addedTravelTime = addedTravelTime;
+            this.disconnectedPairs = disconnectedPairs;
+            this.betweenness = betweenness;
+        }
+
+        public TrainStation from() {
+            return from;
+        }
+
+        public TrainStation to() {
+            return to;
+        }
+
+        public Rail rail() {
+            return rail;
+        }
+
+        // Summed over ordered station pairs that stay connected, in the cost unit (minutes for Rail::time).
+        public double addedTravelTime() {
+            return addedTravelTime;
+        }
+
+        public long disconnectedPairs() {
+            return disconnectedPairs;
+        }
+
+        // NaN when every rail was a candidate and betweenness was not needed.
+        public double betweenness() {
+            return betweenness;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s - %s: +%.0f min no total, %d pares desconectados",
+                    from.name(), to.name(), addedTravelTime, disconnectedPairs);
+        }
+    }
+}
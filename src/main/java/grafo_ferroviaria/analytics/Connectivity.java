@@ -0,0 +1,197 @@
+package grafo_ferroviaria.analytics;
+
+import grafo_ferroviaria.models.IndexedRailGraph;
+
+import java.util.Arrays;
+
+// Connected components, biconnected components, articulation stations and bridges of the rail network,
+// ignoring direction. Each rail is one undirected edge, so in a directed graph two opposite rails
+// between the same stations back each other up. The depth-first search keeps its own stack, so
+// national-scale networks cannot overflow the thread stack.
+public final class Connectivity {
+    private final IndexedRailGraph graph;
+    private final int[] component;
+    private final int components;
+    private final int[] block;
+    private final int blocks;
+    private final boolean[] articulation;
+    private final boolean[] bridge;
+
+    private Connectivity(IndexedRailGraph graph, int[] component, int components, int[] block, int blocks,
+            boolean[] articulation, boolean[] bridge) {
+        this.graph = graph;
+        this.component = component;
+        this.components = components;
+        this.block = block;
+        this.blocks = blocks;
+        this.articulation = articulation;
+        this.bridge = bridge;
+    }
+
+    public static Connectivity of(IndexedRailGraph graph) {
+        int n = graph.size();
+        int m = graph.edges();
+
+        // Undirected adjacency: both ends of every edge, as (neighbour, edge) pairs.
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            int a = graph.edgeArc(e);
+            offsets[graph.source(a) + 1]++;
+            offsets[graph.target(a) + 1]++;
+        }
+        for (int v = 0; v < n; v++)
+            offsets[v + 1] += offsets[v];
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] neighbour = new int[2 * m];
+        int[] via = new int[2 * m];
+        for (int e = 0; e < m; e++) {
+            int a = graph.edgeArc(e);
+            int u = graph.source(a);
+            int v = graph.target(a);
+            neighbour[fill[u]] = v;
+            via[fill[u]++] = e;
+            neighbour[fill[v]] = u;
+            via[fill[v]++] = e;
+        }
+
+        int[] component = new int[n];
+        int[] discovery = new int[n];
+        int[] low = new int[n];
+        int[] parentEdge = new int[n];
+        int[] cursor = new int[n];
+        int[] stack = new int[n];
+        int[] edgeStack = new int[m];
+        int[] block = new int[m];
+        boolean[] seenEdge = new boolean[m];
+        boolean[] articulation = new boolean[n];
+        boolean[] bridge = new boolean[m];
+        Arrays.fill(component, -1);
+        Arrays.fill(block, -1);
+
+        int components = 0;
+        int blocks = 0;
+        int time = 0;
+        for (int root = 0; root < n; root++) {
+            if (component[root] >= 0)
+                continue;
+
+            int top = 0;
+            int edgeTop = 0;
+            int rootChildren = 0;
+            stack[top++] = root;
+            component[root] = components;
+            discovery[root] = low[root] = ++time;
+            parentEdge[root] = -1;
+            cursor[root] = offsets[root];
+
+            while (top > 0) {
+                int u = stack[top - 1];
+                if (cursor[u] < offsets[u + 1]) {
+                    int i = cursor[u]++;
+                    int v = neighbour[i];
+                    int e = via[i];
+                    if (e == parentEdge[u])
+                        continue;
+
+                    if (component[v] < 0) {
+                        seenEdge[e] = true;
+                        edgeStack[edgeTop++] = e;
+                        component[v] = components;
+                        discovery[v] = low[v] = ++time;
+                        parentEdge[v] = e;
+                        cursor[v] = offsets[v];
+                        stack[top++] = v;
+                        if (u == root)
+                            rootChildren++;
+                    } else if (!seenEdge[e]) {
+                        seenEdge[e] = true;
+                        edgeStack[edgeTop++] = e;
+                        low[u] = Math.min(low[u], discovery[v]);
+                    }
+                    continue;
+                }
+
+                top--;
+                int e = parentEdge[u];
+                if (e < 0)
+                    continue;
+                int p = stack[top - 1];
+                low[p] = Math.min(low[p], low[u]);
+                if (low[u] >= discovery[p]) {
+                    // p separates u's subtree: everything stacked since the tree edge p-u is one block.
+                    if (p != root)
+                        articulation[p] = true;
+                    if (low[u] > discovery[p])
+                        bridge[e] = true;
+                    int popped;
+                    do {
+                        popped = edgeStack[--edgeTop];
+                        block[popped] = blocks;
+                    } while (popped != e);
+                    blocks++;
+                }
+            }
+            if (rootChildren > 1)
+                articulation[root] = true;
+            components++;
+        }
+
+        return new Connectivity(graph, component, components, block, blocks, articulation, bridge);
+    }
+
+    public IndexedRailGraph graph() {
+        return graph;
+    }
+
+    public int components() {
+        return components;
+    }
+
+    public int component(int station) {
+        return component[station];
+    }
+
+    public int[] componentSizes() {
+        int[] sizes = new int[components];
+        for (int c : component)
+            sizes[c]++;
+        return sizes;
+    }
+
+    public int biconnectedComponents() {
+        return blocks;
+    }
+
+    // Biconnected component of an edge; a bridge forms a component of its own.
+    public int biconnectedComponent(int edge) {
+        return block[edge];
+    }
+
+    public boolean isArticulation(int station) {
+        return articulation[station];
+    }
+
+    public boolean isBridge(int edge) {
+        return bridge[edge];
+    }
+
+    public int[] articulationStations() {
+        return indices(articulation);
+    }
+
+    public int[] bridges() {
+        return indices(bridge);
+    }
+
+    private static int[] indices(boolean[] flags) {
+        int count = 0;
+        for (boolean f : flags)
+            if (f)
+                count++;
+        int[] result = new int[count];
+        for (int i = 0, k = 0; i < flags.length; i++)
+            if (flags[i])
+                result[k++] = i;
+        return result;
+    }
+}
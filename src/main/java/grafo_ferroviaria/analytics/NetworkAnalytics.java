@@ -0,0 +1,60 @@
+package grafo_ferroviaria.analytics;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.IndexedRailGraph;
+import grafo_ferroviaria.models.Rail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+public class NetworkAnalytics {
+    private static final int TOP = 10;
+
+    // Uso: NetworkAnalytics <arquivo_ferrovia> [fontes amostradas] [trilhos candidatos] [semente]
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 4) {
+            System.out.println("Uso: java NetworkAnalytics <arquivo_ferrovia> [fontes] [candidatos] [semente]");
+            System.exit(1);
+        }
+
+        RailwayManager manager = new RailwayManager(false);
+        manager.loadRailway(args[0]);
+        int sources = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int candidates = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        IndexedRailGraph graph = IndexedRailGraph.of(manager.graph());
+        System.out.println("Rede: " + graph.size() + " estações, " + graph.edges() + " trilhos");
+
+        long start = System.nanoTime();
+        Connectivity connectivity = Connectivity.of(graph);
+        System.out.printf(Locale.ROOT,
+                "Conectividade: %d componentes (maior com %d estações), %d blocos biconexos, "
+                        + "%d estações de articulação, %d pontes em %d ms%n",
+                connectivity.components(), Arrays.stream(connectivity.componentSizes()).max().orElse(0),
+                connectivity.biconnectedComponents(), connectivity.articulationStations().length,
+                connectivity.bridges().length, (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        BetweennessCentrality.Scores scores = new BetweennessCentrality(graph, Rail::time).sample(
+                sources > 0 ? sources : graph.size(), seed);
+        System.out.printf(Locale.ROOT, "Centralidade (%d fontes) em %d ms%n", scores.sources(),
+                (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Estações com mais caminhos mínimos:");
+        for (int v : scores.topStations(TOP))
+            System.out.printf(Locale.ROOT, "  %s: %.0f%n", graph.station(v).name(), scores.station(v));
+        System.out.println("Trilhos com mais caminhos mínimos:");
+        for (int e : scores.topRails(TOP)) {
+            int a = graph.edgeArc(e);
+            System.out.printf(Locale.ROOT, "  %s - %s: %.0f%s%n", graph.station(graph.source(a)).name(),
+                    graph.station(graph.target(a)).name(), scores.rail(e), connectivity.isBridge(e) ? " (ponte)" : "");
+        }
+
+        start = System.nanoTime();
+        List<ClosureImpact.RailClosure> closures = new ClosureImpact(graph, Rail::time).rank(candidates, sources, seed);
+        System.out.printf(Locale.ROOT, "Fechamentos avaliados: %d em %d ms%n", closures.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        closures.stream().limit(TOP).forEach(c -> System.out.println("  " + c));
+    }
+}
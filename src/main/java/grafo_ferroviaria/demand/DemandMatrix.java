@@ -0,0 +1,208 @@
+package grafo_ferroviaria.demand;
+
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+// Origin-destination demand as aggregated flows: one entry per station pair with its passenger count,
+// never one object per passenger. Pairs are merged and sorted by origin so assignment runs one search
+// per origin.
+// File format: first line is the number of pairs, then one pair per line: origem,destino,passageiros
+public final class DemandMatrix {
+    private final TrainStation[] origins;
+    private final TrainStation[] destinations;
+    private final double[] passengers;
+    private final double total;
+
+    private DemandMatrix(TrainStation[] origins, TrainStation[] destinations, double[] passengers) {
+        this.origins = origins;
+        this.destinations = destinations;
+        this.passengers = passengers;
+        double sum = 0.0;
+        for (double p : passengers)
+            sum += p;
+        this.total = sum;
+    }
+
+    public int pairs() {
+        return passengers.length;
+    }
+
+    public TrainStation origin(int pair) {
+        return origins[pair];
+    }
+
+    public TrainStation destination(int pair) {
+        return destinations[pair];
+    }
+
+    public double passengers(int pair) {
+        return passengers[pair];
+    }
+
+    public double totalPassengers() {
+        return total;
+    }
+
+    public DemandMatrix scale(double factor) {
+        if (!(factor >= 0))
+            throw new IllegalArgumentException("Fator de escala inválido: " + factor);
+        double[] scaled = passengers.clone();
+        for (int i = 0; i < scaled.length; i++)
+            scaled[i] *= factor;
+        return new DemandMatrix(origins, destinations, scaled);
+    }
+
+    public static DemandMatrix read(Path path, Function<String, TrainStation> stations) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int count = Integer.parseInt(reader.readLine().trim());
+            Builder builder = new Builder(count);
+            for (int i = 0; i < count; i++) {
+                String line = reader.readLine();
+                if (line == null)
+                    throw new IOException("Matriz de demanda truncada: esperados " + count + " pares");
+
+                String[] p = line.split(",");
+                if (p.length != 3)
+                    throw new IOException("Linha de demanda inválida: " + line);
+
+                TrainStation origin = stations.apply(p[0].trim());
+                TrainStation destination = stations.apply(p[1].trim());
+                if (origin == null || destination == null)
+                    throw new IOException("Estação não encontrada na linha de demanda: " + line);
+                try {
+                    builder.add(origin, destination, Double.parseDouble(p[2].trim()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Linha de demanda inválida: " + line + " (" + e.getMessage() + ")");
+                }
+            }
+            return builder.build();
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(Integer.toString(passengers.length));
+            out.newLine();
+            for (int i = 0; i < passengers.length; i++) {
+                double p = passengers[i];
+                out.write(origins[i].name() + "," + destinations[i].name() + ","
+                        + (p == Math.rint(p) ? Long.toString((long) p) : String.format(Locale.ROOT, "%.3f", p)));
+                out.newLine();
+            }
+        }
+    }
+
+    // Gravity-style synthetic demand, deterministic in the seed: each station gets a random weight and
+    // each pair's share grows with the product of the weights of its ends.
+    public static DemandMatrix synthetic(List<TrainStation> stations, int pairs, long totalPassengers, long seed) {
+        if (stations.size() < 2)
+            throw new IllegalArgumentException("A demanda precisa de pelo menos 2 estações");
+
+        Random random = new Random(seed);
+        double[] weight = new double[stations.size()];
+        for (int i = 0; i < weight.length; i++)
+            weight[i] = 1.0 / (1 + random.nextInt(20));
+
+        TrainStation[] from = new TrainStation[pairs];
+        TrainStation[] to = new TrainStation[pairs];
+        double[] share = new double[pairs];
+        double sum = 0.0;
+        for (int i = 0; i < pairs; i++) {
+            int o = random.nextInt(stations.size());
+            int d = random.nextInt(stations.size() - 1);
+            if (d >= o)
+                d++;
+            from[i] = stations.get(o);
+            to[i] = stations.get(d);
+            share[i] = weight[o] * weight[d] * (0.5 + random.nextDouble());
+            sum += share[i];
+        }
+
+        Builder builder = new Builder(pairs);
+        for (int i = 0; i < pairs; i++)
+            builder.add(from[i], to[i], Math.max(1, Math.round(totalPassengers * share[i] / sum)));
+        return builder.build();
+    }
+
+    public static final class Builder {
+        private final Map<Long, Integer> slots;
+        private TrainStation[] origins;
+        private TrainStation[] destinations;
+        private double[] passengers;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedPairs) {
+            int capacity = Math.max(16, expectedPairs);
+            this.slots = new HashMap<>(capacity * 2);
+            this.origins = new TrainStation[capacity];
+            this.destinations = new TrainStation[capacity];
+            this.passengers = new double[capacity];
+        }
+
+        // Repeated pairs add up; pairs from a station to itself never ride a train and are dropped.
+        public Builder add(TrainStation origin, TrainStation destination, double count) {
+            if (!(count >= 0) || Double.isInfinite(count))
+                throw new IllegalArgumentException("Número de passageiros inválido: " + count);
+            if (origin.equals(destination) || count == 0)
+                return this;
+
+            long key = ((long) origin.id() << 32) | (destination.id() & 0xFFFFFFFFL);
+            Integer slot = slots.get(key);
+            if (slot != null && origins[slot].equals(origin) && destinations[slot].equals(destination)) {
+                passengers[slot] += count;
+                return this;
+            }
+
+            if (size == passengers.length) {
+                origins = Arrays.copyOf(origins, size * 2);
+                destinations = Arrays.copyOf(destinations, size * 2);
+                passengers = Arrays.copyOf(passengers, size * 2);
+            }
+            if (slot == null)
+                slots.put(key, size);
+            origins[size] = origin;
+            destinations[size] = destination;
+            passengers[size++] = count;
+            return this;
+        }
+
+        public DemandMatrix build() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> {
+                int c = Integer.compare(origins[a].id(), origins[b].id());
+                if (c == 0)
+                    c = origins[a].name().compareTo(origins[b].name());
+                return c != 0 ? c : Integer.compare(destinations[a].id(), destinations[b].id());
+            });
+
+            TrainStation[] from = new TrainStation[size];
+            TrainStation[] to = new TrainStation[size];
+            double[] count = new double[size];
+            for (int i = 0; i < size; i++) {
+                from[i] = origins[order[i]];
+                to[i] = destinations[order[i]];
+                count[i] = passengers[order[i]];
+            }
+            return new DemandMatrix(from, to, count);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package grafo_ferroviaria.demand;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.IndexedDijkstra;
+import grafo_ferroviaria.models.IndexedRailGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.Train;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.timetable.Timetable;
+import grafo_ferroviaria.timetable.TimetableEntry;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+// Routes origin-destination demand over the rails served by a set of trains. Passengers ride only rails
+// some service runs over, and the seats on a rail are the summed capacity of the services that use it
+// in that direction. Demand is assigned as aggregated flows: one shortest-path tree per origin, with the
+// passengers of every destination pushed back up the tree in a single pass.
+//
+// All-or-nothing puts every pair on its fastest path. The capacity-constrained assignment uses the
+// method of successive averages: rail times grow with the BPR curve t0 * (1 + 0.15 * (v/c)^4), each
+// iteration sends all demand over the current fastest paths and averages it into the running flows,
+// until the relative gap between the flows and the fastest-path flows is small enough.
+public class PassengerAssignment {
+    public static final double BPR_ALPHA = 0.15;
+    public static final double BPR_BETA = 4.0;
+
+    private final IndexedRailGraph graph;
+    private final List<Service> services;
+    private final int[][] serviceArcs;
+    private final double[] freeTime;
+    private final double[] capacity;
+
+    // With no services every open rail may be used and none has a seat limit.
+    public PassengerAssignment(GenericGraph<TrainStation, Rail> graph, List<Service> services) {
+        this.graph = IndexedRailGraph.of(graph);
+        this.services = List.copyOf(services);
+        this.serviceArcs = new int[this.services.size()][];
+        this.freeTime = this.graph.weights(Rail::time);
+        this.capacity = new double[this.graph.arcs()];
+
+        for (int s = 0; s < serviceArcs.length; s++) {
+            Service service = this.services.get(s);
+            List<TrainStation> route = service.route();
+            int[] arcs = new int[route.size() - 1];
+            for (int i = 0; i < arcs.length; i++) {
+                int u = this.graph.indexOf(route.get(i));
+                int v = this.graph.indexOf(route.get(i + 1));
+                arcs[i] = u >= 0 && v >= 0 ? this.graph.arc(u, v) : -1;
+                if (arcs[i] < 0)
+                    throw new IllegalArgumentException("Serviço " + service.id() + " usa trilho inexistente ou fechado: "
+                            + route.get(i).name() + " -> " + route.get(i + 1).name());
+                capacity[arcs[i]] += service.capacity();
+            }
+            serviceArcs[s] = arcs;
+        }
+
+        for (int a = 0; a < capacity.length; a++) {
+            if (this.services.isEmpty())
+                capacity[a] = Double.POSITIVE_INFINITY;
+            else if (capacity[a] == 0)
+                freeTime[a] = Double.POSITIVE_INFINITY;
+        }
+    }
+
+    public Result allOrNothing(DemandMatrix demand) {
+        Demand d = new Demand(demand);
+        Load load = assign(d, freeTime);
+        double unassigned = load.unassigned + d.outside;
+        return new Result(load.flow, 1, 0.0, d.total - unassigned, unassigned);
+    }
+
+    public Result capacityConstrained(DemandMatrix demand, int maxIterations, double gapTolerance) {
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("Número de iterações inválido: " + maxIterations);
+
+        Demand d = new Demand(demand);
+        Load load = assign(d, freeTime);
+        double[] flow = load.flow;
+        double[] time = new double[freeTime.length];
+        double gap = Double.POSITIVE_INFINITY;
+        int iteration = 1;
+
+        while (iteration < maxIterations) {
+            congestedTimes(flow, time);
+            Load fastest = assign(d, time);
+
+            double current = 0.0;
+            for (int a = 0; a < flow.length; a++) {
+                if (flow[a] > 0)
+                    current += flow[a] * time[a];
+            }
+            gap = current > 0 ? (current - fastest.cost) / current : 0.0;
+            if (gap <= gapTolerance)
+                break;
+
+            iteration++;
+            double step = 1.0 / iteration;
+            for (int a = 0; a < flow.length; a++)
+                flow[a] += step * (fastest.flow[a] - flow[a]);
+        }
+        double unassigned = load.unassigned + d.outside;
+        return new Result(flow, iteration, gap, d.total - unassigned, unassigned);
+    }
+
+    private void congestedTimes(double[] flow, double[] time) {
+        for (int a = 0; a < flow.length; a++)
+            time[a] = congestedTime(a, flow[a]);
+    }
+
+    private double congestedTime(int arc, double flow) {
+        double t0 = freeTime[arc];
+        if (t0 == Double.POSITIVE_INFINITY || capacity[arc] == Double.POSITIVE_INFINITY || flow <= 0)
+            return t0;
+        return t0 * (1 + BPR_ALPHA * Math.pow(flow / capacity[arc], BPR_BETA));
+    }
+
+    private Load assign(Demand demand, double[] weights) {
+        return IntStream.range(0, demand.origins()).parallel()
+                .collect(() -> new Load(graph), (load, g) -> load.assign(demand, g, weights), Load::merge);
+    }
+
+    // Demand in graph indices, grouped by origin; pairs touching stations outside the graph are unassigned.
+    private final class Demand {
+        final int[] groupStart;
+        final int[] origin;
+        final int[] destination;
+        final double[] passengers;
+        final double total;
+        final double outside;
+
+        Demand(DemandMatrix matrix) {
+            int pairs = matrix.pairs();
+            int[] starts = new int[pairs + 1];
+            int[] origins = new int[pairs];
+            int[] destinations = new int[pairs];
+            double[] counts = new double[pairs];
+            int groups = 0;
+            int kept = 0;
+            double missing = 0.0;
+            for (int i = 0; i < pairs; i++) {
+                int o = graph.indexOf(matrix.origin(i));
+                int dst = graph.indexOf(matrix.destination(i));
+                if (o < 0 || dst < 0) {
+                    missing += matrix.passengers(i);
+                    continue;
+                }
+                if (groups == 0 || origins[groups - 1] != o) {
+                    starts[groups] = kept;
+                    origins[groups++] = o;
+                }
+                destinations[kept] = dst;
+                counts[kept++] = matrix.passengers(i);
+            }
+            starts[groups] = kept;
+
+            this.groupStart = Arrays.copyOf(starts, groups + 1);
+            this.origin = Arrays.copyOf(origins, groups);
+            this.destination = destinations;
+            this.passengers = counts;
+            this.total = matrix.totalPassengers();
+            this.outside = missing;
+        }
+
+        int origins() {
+            return origin.length;
+        }
+    }
+
+    private static final class Load {
+        final IndexedRailGraph graph;
+        final IndexedDijkstra dijkstra;
+        final double[] flow;
+        final double[] pending;
+        double cost;
+        double unassigned;
+
+        Load(IndexedRailGraph graph) {
+            this.graph = graph;
+            this.dijkstra = new IndexedDijkstra(graph);
+            this.flow = new double[graph.arcs()];
+            this.pending = new double[graph.size()];
+        }
+
+        void assign(Demand demand, int group, double[] weights) {
+            int source = demand.origin[group];
+            dijkstra.run(source, weights);
+            for (int i = demand.groupStart[group]; i < demand.groupStart[group + 1]; i++) {
+                int d = demand.destination[i];
+                double p = demand.passengers[i];
+                double dist = dijkstra.distance(d);
+                if (dist == Double.POSITIVE_INFINITY) {
+                    unassigned += p;
+                } else {
+                    pending[d] += p;
+                    cost += p * dist;
+                }
+            }
+
+            // Farthest vertices first: each hands everything bound for it or beyond to its predecessor.
+            for (int i = dijkstra.settled() - 1; i > 0; i--) {
+                int v = dijkstra.settledVertex(i);
+                double p = pending[v];
+                if (p == 0)
+                    continue;
+                int a = dijkstra.predecessorArc(v);
+                flow[a] += p;
+                pending[graph.source(a)] += p;
+                pending[v] = 0.0;
+            }
+            pending[source] = 0.0;
+        }
+
+        void merge(Load other) {
+            for (int a = 0; a < flow.length; a++)
+                flow[a] += other.flow[a];
+            cost += other.cost;
+            unassigned += other.unassigned;
+        }
+    }
+
+    public static final class Service {
+        private final String id;
+        private final int capacity;
+        private final List<TrainStation> route;
+
+        public Service(String id, int capacity, List<TrainStation> route) {
+            if (capacity < 0)
+                throw new IllegalArgumentException("Capacidade inválida para o serviço " + id + ": " + capacity);
+            if (route == null || route.size() < 2)
+                throw new IllegalArgumentException("Serviço " + id + " precisa de pelo menos 2 estações");
+            this.id = id;
+            this.capacity = capacity;
+            this.route = List.copyOf(route);
+        }
+
+        public static List<Service> of(Collection<Train> trains) {
+            List<Service> services = new ArrayList<>(trains.size());
+            for (Train train : trains) {
+                if (train.route().size() >= 2)
+                    services.add(new Service(train.id(), train.capacity(), train.route().asList()));
+            }
+            return services;
+        }
+
+        // Trips whose stops cannot be joined are reported and skipped, as when scheduling the timetable.
+        public static List<Service> of(RailwayManager manager, Timetable timetable) {
+            List<Service> services = new ArrayList<>(timetable.size());
+            for (TimetableEntry entry : timetable.entries()) {
+                try {
+                    services.add(new Service(entry.id(), entry.capacity(), Timetable.resolveRoute(manager, entry)));
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Viagem " + entry.id() + " ignorada: " + e.getMessage());
+                }
+            }
+            return services;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        public List<TrainStation> route() {
+            return route;
+        }
+    }
+
+    public final class Result {
+        private final double[] flow;
+        private final int iterations;
+        private final double gap;
+        private final double assigned;
+        private final double unassigned;
+
+        private Result(double[] flow, int iterations, double gap, double assigned, double unassigned) {
+            this.flow = flow;
+            this.iterations = iterations;
+            this.gap = gap;
+            this.assigned = assigned;
+            this.unassigned = unassigned;
+        }
+
+        public int iterations() {
+            return iterations;
+        }
+
+        public double relativeGap() {
+            return gap;
+        }
+
+        public double assignedPassengers() {
+            return assigned;
+        }
+
+        // Passengers with no served path between their stations.
+        public double unassignedPassengers() {
+            return unassigned;
+        }
+
+        public double passengers(TrainStation from, TrainStation to) {
+            int u = graph.indexOf(from);
+            int v = graph.indexOf(to);
+            int a = u >= 0 && v >= 0 ? graph.arc(u, v) : -1;
+            return a >= 0 ? flow[a] : 0.0;
+        }
+
+        // In-vehicle passenger-minutes at the congested rail times of the final flows.
+        public double passengerMinutes() {
+            double sum = 0.0;
+            for (int a = 0; a < flow.length; a++) {
+                if (flow[a] > 0)
+                    sum += flow[a] * congestedTime(a, flow[a]);
+            }
+            return sum;
+        }
+
+        public double passengerKilometers() {
+            double sum = 0.0;
+            for (int a = 0; a < flow.length; a++)
+                sum += flow[a] * graph.rail(a).distance();
+            return sum;
+        }
+
+        // Every rail direction that carries passengers, most crowded first.
+        public List<RailLoad> railLoads() {
+            List<RailLoad> loads = new ArrayList<>();
+            for (int a = 0; a < flow.length; a++) {
+                if (flow[a] > 0)
+                    loads.add(new RailLoad(graph.station(graph.source(a)), graph.station(graph.target(a)),
+                            graph.rail(a), flow[a], capacity[a]));
+            }
+            loads.sort(Comparator.comparingDouble(RailLoad::loadFactor)
+                    .thenComparingDouble(RailLoad::passengers).reversed());
+            return loads;
+        }
+
+        // Passengers on a rail are shared among its services in proportion to their capacity.
+        public List<TrainLoad> trainLoads() {
+            List<TrainLoad> loads = new ArrayList<>(services.size());
+            for (int s = 0; s < services.size(); s++) {
+                Service service = services.get(s);
+                int[] arcs = serviceArcs[s];
+                double peak = 0.0;
+                int peakLeg = 0;
+                double passengerKm = 0.0;
+                for (int i = 0; i < arcs.length; i++) {
+                    double onBoard = capacity[arcs[i]] > 0 ? flow[arcs[i]] * service.capacity() / capacity[arcs[i]] : 0.0;
+                    passengerKm += onBoard * graph.rail(arcs[i]).distance();
+                    if (onBoard > peak) {
+                        peak = onBoard;
+                        peakLeg = i;
+                    }
+                }
+                loads.add(new TrainLoad(service.id(), service.capacity(), peak, service.route().get(peakLeg),
+                        service.route().get(peakLeg + 1), passengerKm));
+            }
+            loads.sort(Comparator.comparingDouble(TrainLoad::peakLoadFactor).reversed());
+            return loads;
+        }
+
+        @Override
+        public String toString() {
+            long crowded = 0;
+            double worst = 0.0;
+            for (int a = 0; a < flow.length; a++) {
+                if (flow[a] > 0 && capacity[a] < Double.POSITIVE_INFINITY) {
+                    double factor = flow[a] / capacity[a];
+                    worst = Math.max(worst, factor);
+                    if (factor > 1.0)
+                        crowded++;
+                }
+            }
+            return String.format(Locale.ROOT,
+                    "%.0f passageiros alocados, %.0f sem rota, %d iterações, gap %.4f, %.0f passageiro-km, "
+                            + "%d trechos lotados, ocupação máxima %.0f%%",
+                    assigned, unassigned, iterations, gap, passengerKilometers(), crowded, worst * 100);
+        }
+    }
+
+    public static final class RailLoad {
+        private final TrainStation from;
+        private final TrainStation to;
+        private final Rail rail;
+        private final double passengers;
+        private final double capacity;
+
+        RailLoad(TrainStation from, TrainStation to, Rail rail, double passengers, double capacity) {
+            this.from = from;
+            this.to = to;
+            this.rail = rail;
+            this.passengers = passengers;
+            this.capacity = capacity;
+        }
+
+        public TrainStation from() {
+            return from;
+        }
+
+        public TrainStation to() {
+            return to;
+        }
+
+        public Rail rail() {
+            return rail;
+        }
+
+        public double passengers() {
+            return passengers;
+        }
+
+        // Seats offered by the services on this direction; infinite when no services were given.
+        public double capacity() {
+            return capacity;
+        }
+
+        public double loadFactor() {
+            return capacity > 0 ? passengers / capacity : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s -> %s: %.0f passageiros, %.0f lugares (%.0f%%)",
+                    from.name(), to.name(), passengers, capacity, loadFactor() * 100);
+        }
+    }
+
+    public static final class TrainLoad {
+        private final String trainId;
+        private final int capacity;
+        private final double peakLoad;
+        private final TrainStation peakFrom;
+        private final TrainStation peakTo;
+        private final double passengerKilometers;
+
+        TrainLoad(String trainId, int capacity, double peakLoad, TrainStation peakFrom, TrainStation peakTo,
+                double passengerKilometers) {
+            this.trainId = trainId;
+            this.capacity = capacity;
+            this.peakLoad = peakLoad;
+            this.peakFrom = peakFrom;
+            this.peakTo = peakTo;
+            this.passengerKilometers = passengerKilometers;
+        }
+
+        public String trainId() {
+            return trainId;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        public double peakLoad() {
+            return peakLoad;
+        }
+
+        public double peakLoadFactor() {
+            return capacity > 0 ? peakLoad / capacity : 0.0;
+        }
+
+        public TrainStation peakFrom() {
+            return peakFrom;
+        }
+
+        public TrainStation peakTo() {
+            return peakTo;
+        }
+
+        public double passengerKilometers() {
+            return passengerKilometers;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s: pico de %.0f/%d passageiros (%.0f%%) em %s -> %s, %.0f passageiro-km",
+                    trainId, peakLoad, capacity, peakLoadFactor() * 100, peakFrom.name(), peakTo.name(),
+                    passengerKilometers);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 4) {
+            System.out.println("Uso: java PassengerAssignment <arquivo_ferrovia> <horarios.txt> <demanda.txt> [iterações]");
+            System.exit(1);
+        }
+
+        RailwayManager manager = new RailwayManager(false);
+        manager.loadRailway(args[0]);
+        List<Service> services = Service.of(manager, Timetable.read(Paths.get(args[1])));
+        DemandMatrix demand = DemandMatrix.read(Paths.get(args[2]), manager.stations()::get);
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        PassengerAssignment assignment = new PassengerAssignment(manager.graph(), services);
+        long start = System.nanoTime();
+        Result free = assignment.allOrNothing(demand);
+        long freeMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Tudo ou nada: " + free + " em " + freeMs + " ms");
+
+        start = System.nanoTime();
+        Result constrained = assignment.capacityConstrained(demand, iterations, 1e-4);
+        long constrainedMs = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Com capacidade: " + constrained + " em " + constrainedMs + " ms");
+
+        System.out.println("Trechos mais carregados:");
+        constrained.railLoads().stream().limit(10).forEach(l -> System.out.println("  " + l));
+        System.out.println("Trens mais lotados:");
+        constrained.trainLoads().stream().limit(10).forEach(l -> System.out.println("  " + l));
+    }
+}
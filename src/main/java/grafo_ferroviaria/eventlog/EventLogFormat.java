@@ -0,0 +1,20 @@
+package grafo_ferroviaria.eventlog;
+
+// Layout: header (magic, version) followed by tagged records.
+//   DEFINE_TRAIN / DEFINE_STATION: tag, int id, short length, UTF-8 name
+//   event:                         tag (EVENT_BASE + type ordinal), double time, int train, int from, int to, double value
+final class EventLogFormat {
+    static final int MAGIC = 0x47524556; // "GREV"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    static final byte DEFINE_TRAIN = 1;
+    static final byte DEFINE_STATION = 2;
+    static final byte EVENT_BASE = 16;
+
+    static final int EVENT_BYTES = 1 + Double.BYTES + 3 * Integer.BYTES + Double.BYTES;
+    static final int NO_STATION = -1;
+
+    private EventLogFormat() {
+    }
+}
@@ -0,0 +1,117 @@
+package grafo_ferroviaria.eventlog;
+
+import grafo_ferroviaria.managers.SimulationEventType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class EventLogReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final SimulationEventType[] TYPES = SimulationEventType.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final List<String> trains = new ArrayList<>();
+    private final Map<Integer, String> stations = new HashMap<>();
+    private boolean endOfFile;
+
+    private EventLogReader(FileChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.buffer.limit(0);
+    }
+
+    public static EventLogReader open(Path path) throws IOException {
+        EventLogReader reader = new EventLogReader(FileChannel.open(path, StandardOpenOption.READ));
+        try {
+            if (!reader.fill(EventLogFormat.HEADER_BYTES) || reader.buffer.getInt() != EventLogFormat.MAGIC)
+                throw new IOException("Arquivo não é um log de eventos: " + path);
+            int version = reader.buffer.getInt();
+            if (version != EventLogFormat.VERSION)
+                throw new IOException("Versão de log de eventos não suportada: " + version);
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+        return reader;
+    }
+
+    public LoggedEvent next() throws IOException {
+        while (fill(1)) {
+            byte tag = buffer.get();
+            if (tag == EventLogFormat.DEFINE_TRAIN || tag == EventLogFormat.DEFINE_STATION) {
+                readDefinition(tag);
+                continue;
+            }
+
+            int ordinal = tag - EventLogFormat.EVENT_BASE;
+            if (ordinal < 0 || ordinal >= TYPES.length)
+                throw new IOException("Registro inválido no log de eventos: " + tag);
+            require(EventLogFormat.EVENT_BYTES - 1);
+
+            double time = buffer.getDouble();
+            String train = trains.get(buffer.getInt());
+            String from = stations.get(buffer.getInt());
+            String to = stations.get(buffer.getInt());
+            double value = buffer.getDouble();
+            return new LoggedEvent(TYPES[ordinal], time, train, from, to, value);
+        }
+        return null;
+    }
+
+    public void forEach(Consumer<? super LoggedEvent> action) throws IOException {
+        for (LoggedEvent event = next(); event != null; event = next())
+            action.accept(event);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readDefinition(byte tag) throws IOException {
+        require(Integer.BYTES + Short.BYTES);
+        int id = buffer.getInt();
+        int length = buffer.getShort() & 0xFFFF;
+        require(length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        String name = new String(bytes, StandardCharsets.UTF_8);
+
+        if (tag == EventLogFormat.DEFINE_TRAIN) {
+            if (id != trains.size())
+                throw new IOException("Definição de trem fora de ordem: " + id);
+            trains.add(name);
+        } else {
+            stations.put(id, name);
+        }
+    }
+
+    private void require(int bytes) throws IOException {
+        if (!fill(bytes))
+            throw new EOFException("Log de eventos truncado");
+    }
+
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes)
+            return true;
+
+        buffer.compact();
+        while (buffer.position() < bytes && !endOfFile) {
+            if (channel.read(buffer) < 0)
+                endOfFile = true;
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+}
@@ -0,0 +1,231 @@
+package grafo_ferroviaria.eventlog;
+
+import grafo_ferroviaria.managers.SimulationSnapshot;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// Plays a recorded log back as SimulationSnapshots, so the UI can show a past run without re-simulating it.
+public class EventLogReplay {
+    private static final long FRAME_MILLIS = 50;
+
+    private final Path path;
+    private final Function<String, TrainStation> stations;
+    private final AtomicReference<SimulationSnapshot> latest;
+    private final Thread thread;
+
+    private volatile double minutesPerSecond;
+    private volatile boolean running;
+    private volatile boolean restartRequested;
+    private volatile boolean shutdown;
+
+    private final Map<String, ReplayTrain> trains = new TreeMap<>();
+    private EventLogReader reader;
+    private LoggedEvent pending;
+    private double clock;
+    private long sequence;
+
+    public EventLogReplay(Path path, Function<String, TrainStation> stations, double minutesPerSecond) {
+        this.path = path;
+        this.stations = stations;
+        this.minutesPerSecond = minutesPerSecond;
+        this.latest = new AtomicReference<>(SimulationSnapshot.empty());
+        this.thread = new Thread(this::run, "event-log-replay");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void start() {
+        running = true;
+    }
+
+    public void pause() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void restart() {
+        restartRequested = true;
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        thread.interrupt();
+    }
+
+    public double minutesPerSecond() {
+        return minutesPerSecond;
+    }
+
+    public void setMinutesPerSecond(double minutesPerSecond) {
+        this.minutesPerSecond = Math.max(0.0, minutesPerSecond);
+    }
+
+    public SimulationSnapshot latest() {
+        return latest.get();
+    }
+
+    private void run() {
+        try {
+            reset();
+            long last = System.nanoTime();
+            while (!shutdown) {
+                Thread.sleep(FRAME_MILLIS);
+                long now = System.nanoTime();
+                if (restartRequested) {
+                    restartRequested = false;
+                    reset();
+                } else if (running) {
+                    clock += (now - last) / 1e9 * minutesPerSecond;
+                    advance();
+                }
+                last = now;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.out.println("Erro ao reproduzir log de eventos: " + e.getMessage());
+        } finally {
+            closeReader();
+        }
+    }
+
+    private void reset() throws IOException {
+        closeReader();
+        reader = EventLogReader.open(path);
+        pending = reader.next();
+        trains.clear();
+        clock = 0.0;
+        latest.set(new SimulationSnapshot(++sequence, clock, System.nanoTime(), List.of(), List.of(), Set.of(),
+                true));
+    }
+
+    private void advance() throws IOException {
+        Set<String> changed = new HashSet<>();
+        boolean membershipChanged = false;
+
+        while (pending != null && pending.simulationTime() <= clock) {
+            ReplayTrain train = trains.get(pending.trainId());
+            if (train == null) {
+                train = new ReplayTrain(pending.trainId());
+                trains.put(pending.trainId(), train);
+                membershipChanged = true;
+            }
+            train.apply(pending);
+            changed.add(pending.trainId());
+            pending = reader.next();
+        }
+
+        List<SimulationSnapshot.TrainFrame> frames = new ArrayList<>(trains.size());
+        List<TrainStation[]> occupied = new ArrayList<>();
+        for (ReplayTrain train : trains.values()) {
+            if (train.onRail || train.waiting)
+                changed.add(train.id);
+            if (train.frame == null || changed.contains(train.id))
+                train.frame = train.frame();
+            frames.add(train.frame);
+            if (train.onRail && train.current != null && train.next != null)
+                occupied.add(new TrainStation[] { train.current, train.next });
+        }
+
+        if (!changed.isEmpty() || membershipChanged)
+            latest.set(new SimulationSnapshot(++sequence, clock, System.nanoTime(), frames, occupied, changed,
+                    membershipChanged));
+    }
+
+    private void closeReader() {
+        if (reader == null)
+            return;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            System.out.println("Erro ao fechar log de eventos: " + e.getMessage());
+        }
+        reader = null;
+    }
+
+    private final class ReplayTrain {
+        final String id;
+        TrainStation current;
+        TrainStation next;
+        boolean onRail;
+        double entryTime;
+        double expected;
+        boolean waiting;
+        double waitingUntil;
+        boolean arrived;
+        SimulationSnapshot.TrainFrame frame;
+
+        ReplayTrain(String id) {
+            this.id = id;
+        }
+
+        void apply(LoggedEvent event) {
+            TrainStation from = event.from() != null ? stations.apply(event.from()) : null;
+            TrainStation to = event.to() != null ? stations.apply(event.to()) : null;
+
+            switch (event.type()) {
+                case DEPARTURE -> {
+                    current = from;
+                    next = to;
+                }
+                case RAIL_ENTRY -> {
+                    current = from;
+                    next = to;
+                    onRail = true;
+                    entryTime = event.simulationTime();
+                    expected = event.value();
+                }
+                case RAIL_EXIT -> {
+                    current = to;
+                    next = null;
+                    onRail = false;
+                }
+                case WAIT_START -> {
+                    current = from;
+                    next = to;
+                    waiting = true;
+                    waitingUntil = event.simulationTime() + event.value();
+                }
+                case WAIT_END -> waiting = false;
+                case ARRIVAL -> {
+                    current = from;
+                    next = null;
+                    onRail = false;
+                    arrived = true;
+                }
+                case REROUTE -> {
+                }
+            }
+        }
+
+        SimulationSnapshot.TrainFrame frame() {
+            double elapsed = clock - entryTime;
+            double progress = onRail && expected > 0 ? Math.max(0.0, Math.min(1.0, elapsed / expected)) : 0.0;
+            return new SimulationSnapshot.TrainFrame(
+                    id,
+                    current,
+                    next,
+                    progress,
+                    0.0,
+                    onRail,
+                    onRail ? Math.max(0.0, expected - elapsed) : 0.0,
+                    arrived,
+                    waiting,
+                    waiting ? Math.max(0.0, waitingUntil - clock) : 0.0,
+                    null);
+        }
+    }
+}
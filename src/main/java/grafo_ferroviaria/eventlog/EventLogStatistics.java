@@ -0,0 +1,109 @@
+package grafo_ferroviaria.eventlog;
+
+import grafo_ferroviaria.managers.SimulationEventType;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class EventLogStatistics implements Consumer<LoggedEvent> {
+    private final Map<SimulationEventType, Long> counts = new EnumMap<>(SimulationEventType.class);
+    private final Map<String, TrainTotals> trains = new HashMap<>();
+    private final Map<String, RailTotals> rails = new HashMap<>();
+    private double lastTime;
+
+    @Override
+    public void accept(LoggedEvent event) {
+        counts.merge(event.type(), 1L, Long::sum);
+        lastTime = Math.max(lastTime, event.simulationTime());
+
+        TrainTotals train = trains.computeIfAbsent(event.trainId(), k -> new TrainTotals());
+        switch (event.type()) {
+            case DEPARTURE -> {
+                if (Double.isNaN(train.departure))
+                    train.departure = event.simulationTime();
+            }
+            case ARRIVAL -> train.arrival = event.simulationTime();
+            case WAIT_START -> train.waiting += event.value();
+            case REROUTE -> train.reroutes++;
+            case RAIL_EXIT -> {
+                RailTotals rail = rails.computeIfAbsent(event.from() + "→" + event.to(), k -> new RailTotals());
+                rail.traversals++;
+                rail.occupiedTime += event.value();
+            }
+            default -> {
+            }
+        }
+    }
+
+    public long count(SimulationEventType type) {
+        return counts.getOrDefault(type, 0L);
+    }
+
+    public int trainCount() {
+        return trains.size();
+    }
+
+    public double averageTravelTime() {
+        double sum = 0;
+        int arrived = 0;
+        for (TrainTotals t : trains.values()) {
+            if (!Double.isNaN(t.departure) && !Double.isNaN(t.arrival)) {
+                sum += t.arrival - t.departure;
+                arrived++;
+            }
+        }
+        return arrived == 0 ? 0.0 : sum / arrived;
+    }
+
+    public double totalWaitingTime() {
+        double sum = 0;
+        for (TrainTotals t : trains.values())
+            sum += t.waiting;
+        return sum;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Eventos até %.1f min, %d trens%n", lastTime, trains.size()));
+        for (Map.Entry<SimulationEventType, Long> e : counts.entrySet())
+            sb.append(String.format("   %-11s %d%n", e.getKey(), e.getValue()));
+        sb.append(String.format("Tempo médio de viagem: %.1f min%n", averageTravelTime()));
+        sb.append(String.format("Tempo total de espera: %.1f min%n", totalWaitingTime()));
+
+        rails.entrySet().stream()
+                .sorted((a, b) -> Double.compare(b.getValue().occupiedTime, a.getValue().occupiedTime))
+                .limit(10)
+                .forEach(e -> sb.append(String.format("   %s: %d passagens, %.1f min ocupado%n",
+                        e.getKey(), e.getValue().traversals, e.getValue().occupiedTime)));
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.println("Uso: java EventLogStatistics <log_de_eventos>");
+            System.exit(1);
+        }
+
+        EventLogStatistics statistics = new EventLogStatistics();
+        try (EventLogReader reader = EventLogReader.open(Paths.get(args[0]))) {
+            reader.forEach(statistics);
+        }
+        System.out.print(statistics.report());
+    }
+
+    private static final class TrainTotals {
+        double departure = Double.NaN;
+        double arrival = Double.NaN;
+        double waiting;
+        int reroutes;
+    }
+
+    private static final class RailTotals {
+        long traversals;
+        double occupiedTime;
+    }
+}
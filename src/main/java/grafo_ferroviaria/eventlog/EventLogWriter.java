@@ -0,0 +1,189 @@
+package grafo_ferroviaria.eventlog;
+
+import grafo_ferroviaria.managers.SimulationEventListener;
+import grafo_ferroviaria.managers.SimulationEventType;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Records are encoded on the caller's thread into pooled buffers; a background thread drains full buffers to disk.
+// The caller never waits for the disk: when every pooled buffer is queued, a new one is allocated, and the
+// pool keeps only BUFFER_COUNT of them once the writer catches up.
+public class EventLogWriter implements SimulationEventListener, AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFER_COUNT = 4;
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final FileChannel channel;
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<ByteBuffer> full;
+    private final Thread writerThread;
+
+    private final Map<String, Integer> trainIds = new HashMap<>();
+    private final BitSet definedStations = new BitSet();
+    private ByteBuffer current;
+    private boolean closed;
+    private long extraBuffers;
+    private volatile IOException failure;
+
+    private EventLogWriter(FileChannel channel) {
+        this.channel = channel;
+        this.free = new ArrayBlockingQueue<>(BUFFER_COUNT);
+        this.full = new LinkedBlockingQueue<>();
+        for (int i = 1; i < BUFFER_COUNT; i++)
+            free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        this.current = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.current.putInt(EventLogFormat.MAGIC).putInt(EventLogFormat.VERSION);
+
+        this.writerThread = new Thread(this::drain, "event-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public static EventLogWriter open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new EventLogWriter(channel);
+    }
+
+    @Override
+    public synchronized void onEvent(SimulationEventType type, double simulationTime, String trainId,
+            TrainStation from, TrainStation to, double value) {
+        if (closed)
+            return;
+
+        int train = trainId(trainId);
+        int fromId = stationId(from);
+        int toId = stationId(to);
+
+        ensure(EventLogFormat.EVENT_BYTES);
+        current.put((byte) (EventLogFormat.EVENT_BASE + type.ordinal()))
+                .putDouble(simulationTime)
+                .putInt(train)
+                .putInt(fromId)
+                .putInt(toId)
+                .putDouble(value);
+    }
+
+    public synchronized void flush() throws IOException {
+        checkFailure();
+        if (!closed && current.position() > 0)
+            handOff();
+    }
+
+    // Buffers allocated because the writer thread was behind and the pool was empty.
+    public synchronized long extraBuffers() {
+        return extraBuffers;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            if (current.position() > 0)
+                handOff();
+            putFull(END);
+        }
+
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (failure == null)
+                channel.force(false);
+        } finally {
+            channel.close();
+        }
+        checkFailure();
+    }
+
+    private int trainId(String trainId) {
+        Integer id = trainIds.get(trainId);
+        if (id != null)
+            return id;
+
+        int assigned = trainIds.size();
+        trainIds.put(trainId, assigned);
+        define(EventLogFormat.DEFINE_TRAIN, assigned, trainId);
+        return assigned;
+    }
+
+    private int stationId(TrainStation station) {
+        if (station == null)
+            return EventLogFormat.NO_STATION;
+        if (!definedStations.get(station.id())) {
+            definedStations.set(station.id());
+            define(EventLogFormat.DEFINE_STATION, station.id(), station.name());
+        }
+        return station.id();
+    }
+
+    private void define(byte tag, int id, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        ensure(1 + Integer.BYTES + Short.BYTES + bytes.length);
+        current.put(tag).putInt(id).putShort((short) bytes.length).put(bytes);
+    }
+
+    private void ensure(int bytes) {
+        if (current.remaining() < bytes)
+            handOff();
+    }
+
+    private void handOff() {
+        current.flip();
+        putFull(current);
+        current = free.poll();
+        if (current == null) {
+            // Heap buffers, so the ones the full pool turns away are simply collected.
+            current = ByteBuffer.allocate(BUFFER_SIZE);
+            extraBuffers++;
+        }
+        current.clear();
+    }
+
+    private void putFull(ByteBuffer buffer) {
+        full.add(buffer);
+    }
+
+    private void drain() {
+        while (true) {
+            ByteBuffer buffer;
+            try {
+                buffer = full.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (buffer == END)
+                return;
+
+            try {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            } catch (IOException e) {
+                failure = e;
+            }
+            free.offer(buffer);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        IOException e = failure;
+        if (e != null)
+            throw new IOException("Falha ao gravar log de eventos: " + e.getMessage(), e);
+    }
+}
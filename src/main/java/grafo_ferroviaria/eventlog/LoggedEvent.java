@@ -0,0 +1,51 @@
+package grafo_ferroviaria.eventlog;
+
+import grafo_ferroviaria.managers.SimulationEventType;
+
+public final class LoggedEvent {
+    private final SimulationEventType type;
+    private final double simulationTime;
+    private final String trainId;
+    private final String from;
+    private final String to;
+    private final double value;
+
+    public LoggedEvent(SimulationEventType type, double simulationTime, String trainId, String from, String to,
+            double value) {
+        this.type = type;
+        this.simulationTime = simulationTime;
+        this.trainId = trainId;
+        this.from = from;
+        this.to = to;
+        this.value = value;
+    }
+
+    public SimulationEventType type() {
+        return type;
+    }
+
+    public double simulationTime() {
+        return simulationTime;
+    }
+
+    public String trainId() {
+        return trainId;
+    }
+
+    public String from() {
+        return from;
+    }
+
+    public String to() {
+        return to;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f %s %s %s→%s %.2f", simulationTime, type, trainId, from, to, value);
+    }
+}
@@ -0,0 +1,389 @@
+package grafo_ferroviaria.managers;
+
+import grafo_ferroviaria.models.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+public class MultiStopRouteOptimizer {
+    private static final int EXACT_LIMIT = 12;
+    private static final int HEURISTIC_RESTARTS = 8;
+    private static final double EPSILON = 1e-9;
+
+    private final RailwayManager railwayManager;
+    private final Map<RailwayManager.RouteCriterion, Map<TrainStation, GenericGraph.ShortestPathTree<TrainStation>>> treeCache;
+    private long cachedVersion;
+
+    public MultiStopRouteOptimizer(RailwayManager railwayManager) {
+        this.railwayManager = railwayManager;
+        this.treeCache = new ConcurrentHashMap<>();
+        this.cachedVersion = -1;
+    }
+
+    public MultiStopRoute optimize(List<String> stopNames, String startName, String endName,
+            RailwayManager.RouteCriterion criterion) {
+        List<TrainStation> stops = new ArrayList<>();
+        TrainStation start = startName != null ? resolve(startName) : null;
+        TrainStation end = endName != null ? resolve(endName) : null;
+
+        if (start != null && start.equals(end)) {
+            throw new IllegalArgumentException("Origem e destino fixos devem ser diferentes");
+        }
+
+        if (start != null)
+            stops.add(start);
+        for (String name : stopNames) {
+            TrainStation station = resolve(name);
+            if (!stops.contains(station) && !station.equals(end))
+                stops.add(station);
+        }
+        if (end != null)
+            stops.add(end);
+
+        if (stops.size() < 2) {
+            throw new IllegalArgumentException("Rota deve ter pelo menos 2 estações");
+        }
+
+        int startIdx = start != null ? 0 : -1;
+        int endIdx = end != null ? stops.size() - 1 : -1;
+
+        double[][] matrix = distanceMatrix(stops, criterion);
+        int[] order = stops.size() <= EXACT_LIMIT
+                ? solveExact(matrix, startIdx, endIdx)
+                : solveHeuristic(matrix, startIdx, endIdx);
+
+        List<TrainStation> orderedStops = new ArrayList<>();
+        for (int idx : order)
+            orderedStops.add(stops.get(idx));
+
+        return connect(orderedStops, criterion);
+    }
+
+    public MultiStopRoute connect(List<TrainStation> orderedStops, RailwayManager.RouteCriterion criterion) {
+        if (orderedStops.size() < 2) {
+            throw new IllegalArgumentException("Rota deve ter pelo menos 2 estações");
+        }
+
+        List<TrainStation> path = new ArrayList<>();
+        path.add(orderedStops.get(0));
+        double cost = 0.0;
+
+        for (int i = 0; i < orderedStops.size() - 1; i++) {
+            TrainStation from = orderedStops.get(i);
+            TrainStation to = orderedStops.get(i + 1);
+
+            GenericGraph.ShortestPathTree<TrainStation> tree = tree(criterion, from);
+            List<TrainStation> leg = tree.pathTo(to);
+            if (leg.isEmpty()) {
+                throw new IllegalArgumentException(
+                        "Não existe caminho entre as estações " + from.name() + " e " + to.name());
+            }
+
+            path.addAll(leg.subList(1, leg.size()));
+            cost += tree.distanceTo(to);
+        }
+
+        return new MultiStopRoute(path, orderedStops, cost);
+    }
+
+    private TrainStation resolve(String name) {
+        TrainStation station = railwayManager.stations().get(name);
+        if (station == null) {
+            throw new IllegalArgumentException("Estação não encontrada: " + name);
+        }
+        return station;
+    }
+
+    private double[][] distanceMatrix(List<TrainStation> stops, RailwayManager.RouteCriterion criterion) {
+        int n = stops.size();
+        double[][] matrix = new double[n][n];
+
+        IntStream.range(0, n).parallel().forEach(i -> {
+            GenericGraph.ShortestPathTree<TrainStation> tree = tree(criterion, stops.get(i));
+            for (int j = 0; j < n; j++)
+                matrix[i][j] = tree.distanceTo(stops.get(j));
+        });
+
+        return matrix;
+    }
+
+    private GenericGraph.ShortestPathTree<TrainStation> tree(RailwayManager.RouteCriterion criterion,
+            TrainStation source) {
+        GenericGraph<TrainStation, Rail> graph = railwayManager.graph();
+        synchronized (this) {
+            if (graph.version() != cachedVersion) {
+                treeCache.clear();
+                cachedVersion = graph.version();
+            }
+        }
+
+        return treeCache.computeIfAbsent(criterion, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(source, s -> graph.shortestPathTree(
+                        s, TrainRoutePlanner.costFunction(criterion), null));
+    }
+
+    private int[] solveExact(double[][] d, int start, int end) {
+        int n = d.length;
+        int full = (1 << n) - 1;
+        double[][] dp = new double[1 << n][n];
+        int[][] parent = new int[1 << n][n];
+        for (double[] row : dp)
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+
+        for (int i = 0; i < n; i++) {
+            if ((start >= 0 && i != start) || i == end)
+                continue;
+            dp[1 << i][i] = 0.0;
+            parent[1 << i][i] = -1;
+        }
+
+        for (int mask = 1; mask <= full; mask++) {
+            for (int last = 0; last < n; last++) {
+                if ((mask & (1 << last)) == 0 || Double.isInfinite(dp[mask][last]))
+                    continue;
+
+                for (int next = 0; next < n; next++) {
+                    if ((mask & (1 << next)) != 0)
+                        continue;
+
+                    int nextMask = mask | (1 << next);
+                    if (next == end && nextMask != full)
+                        continue;
+
+                    double alt = dp[mask][last] + d[last][next];
+                    if (alt < dp[nextMask][next]) {
+                        dp[nextMask][next] = alt;
+                        parent[nextMask][next] = last;
+                    }
+                }
+            }
+        }
+
+        int best = end;
+        if (best < 0) {
+            best = 0;
+            for (int i = 1; i < n; i++) {
+                if (dp[full][i] < dp[full][best])
+                    best = i;
+            }
+        }
+
+        if (Double.isInfinite(dp[full][best])) {
+            throw new IllegalArgumentException("Não existe caminho que conecte todas as paradas");
+        }
+
+        int[] order = new int[n];
+        int mask = full;
+        for (int pos = n - 1, at = best; pos >= 0; pos--) {
+            order[pos] = at;
+            int prev = parent[mask][at];
+            mask &= ~(1 << at);
+            at = prev;
+        }
+        return order;
+    }
+
+    private int[] solveHeuristic(double[][] d, int start, int end) {
+        int[] best = IntStream.range(0, HEURISTIC_RESTARTS).parallel()
+                .mapToObj(seed -> improve(initialOrder(d, start, end, seed), d, start, end))
+                .min(Comparator.comparingDouble(order -> pathCost(order, d)))
+                .orElseThrow();
+
+        if (Double.isInfinite(pathCost(best, d))) {
+            throw new IllegalArgumentException("Não existe caminho que conecte todas as paradas");
+        }
+        return best;
+    }
+
+    private int[] initialOrder(double[][] d, int start, int end, int seed) {
+        int n = d.length;
+        Random random = new Random(seed);
+        boolean[] used = new boolean[n];
+        int[] order = new int[n];
+
+        int first = start >= 0 ? start : seed % n;
+        if (first == end)
+            first = (first + 1) % n;
+
+        order[0] = first;
+        used[first] = true;
+        if (end >= 0)
+            used[end] = true;
+
+        int size = end >= 0 ? n - 1 : n;
+        for (int pos = 1; pos < size; pos++) {
+            int last = order[pos - 1];
+            int nearest = -1;
+            int second = -1;
+            for (int j = 0; j < n; j++) {
+                if (used[j])
+                    continue;
+                if (nearest < 0 || d[last][j] < d[last][nearest]) {
+                    second = nearest;
+                    nearest = j;
+                } else if (second < 0 || d[last][j] < d[last][second]) {
+                    second = j;
+                }
+            }
+
+            int pick = seed > 0 && second >= 0 && random.nextBoolean() ? second : nearest;
+            order[pos] = pick;
+            used[pick] = true;
+        }
+
+        if (end >= 0)
+            order[n - 1] = end;
+        return order;
+    }
+
+    private int[] improve(int[] order, double[][] d, int start, int end) {
+        boolean improved = true;
+        while (improved) {
+            improved = twoOpt(order, d, start, end) | orOpt(order, d, start, end);
+        }
+        return order;
+    }
+
+    private boolean twoOpt(int[] o, double[][] d, int start, int end) {
+        int n = o.length;
+        int lo = start >= 0 ? 1 : 0;
+        int hi = end >= 0 ? n - 2 : n - 1;
+        boolean improved = false;
+
+        for (int i = lo; i < hi; i++) {
+            double forward = 0.0;
+            double backward = 0.0;
+            for (int k = i + 1; k <= hi; k++) {
+                forward += d[o[k - 1]][o[k]];
+                backward += d[o[k]][o[k - 1]];
+
+                double before = forward;
+                double after = backward;
+                if (i > 0) {
+                    before += d[o[i - 1]][o[i]];
+                    after += d[o[i - 1]][o[k]];
+                }
+                if (k < n - 1) {
+                    before += d[o[k]][o[k + 1]];
+                    after += d[o[i]][o[k + 1]];
+                }
+
+                if (after < before - EPSILON) {
+                    reverse(o, i, k);
+                    improved = true;
+                    forward = 0.0;
+                    backward = 0.0;
+                    for (int j = i + 1; j <= k; j++) {
+                        forward += d[o[j - 1]][o[j]];
+                        backward += d[o[j]][o[j - 1]];
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    private boolean orOpt(int[] o, double[][] d, int start, int end) {
+        int n = o.length;
+        int lo = start >= 0 ? 1 : 0;
+        int hi = end >= 0 ? n - 2 : n - 1;
+        boolean improved = false;
+
+        for (int len = 1; len <= 3; len++) {
+            for (int i = lo; i + len - 1 <= hi; i++) {
+                int first = o[i];
+                int last = o[i + len - 1];
+                int p = i - 1;
+                int q = i + len;
+
+                double removeGain = 0.0;
+                if (p >= 0)
+                    removeGain += d[o[p]][first];
+                if (q < n)
+                    removeGain += d[last][o[q]];
+                if (p >= 0 && q < n)
+                    removeGain -= d[o[p]][o[q]];
+
+                int restLen = n - len;
+                int[] rest = new int[restLen];
+                System.arraycopy(o, 0, rest, 0, i);
+                System.arraycopy(o, q, rest, i, n - q);
+
+                int maxSlot = end >= 0 ? restLen - 1 : restLen;
+                int bestSlot = -1;
+                double bestGain = EPSILON;
+                for (int t = lo; t <= maxSlot; t++) {
+                    if (t == i)
+                        continue;
+
+                    double addCost = 0.0;
+                    if (t > 0)
+                        addCost += d[rest[t - 1]][first];
+                    if (t < restLen)
+                        addCost += d[last][rest[t]];
+                    if (t > 0 && t < restLen)
+                        addCost -= d[rest[t - 1]][rest[t]];
+
+                    double gain = removeGain - addCost;
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestSlot = t;
+                    }
+                }
+
+                if (bestSlot >= 0) {
+                    int[] segment = Arrays.copyOfRange(o, i, q);
+                    System.arraycopy(rest, 0, o, 0, bestSlot);
+                    System.arraycopy(segment, 0, o, bestSlot, len);
+                    System.arraycopy(rest, bestSlot, o, bestSlot + len, restLen - bestSlot);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    private static void reverse(int[] o, int i, int k) {
+        while (i < k) {
+            int tmp = o[i];
+            o[i++] = o[k];
+            o[k--] = tmp;
+        }
+    }
+
+    private static double pathCost(int[] order, double[][] d) {
+        double cost = 0.0;
+        for (int i = 0; i < order.length - 1; i++)
+            cost += d[order[i]][order[i + 1]];
+        return cost;
+    }
+
+    public static class MultiStopRoute {
+        private final List<TrainStation> path;
+        private final List<TrainStation> stopOrder;
+        private final double cost;
+
+        public MultiStopRoute(List<TrainStation> path, List<TrainStation> stopOrder, double cost) {
+            this.path = path;
+            this.stopOrder = stopOrder;
+            this.cost = cost;
+        }
+
+        public List<TrainStation> path() {
+            return path;
+        }
+
+        public List<TrainStation> stopOrder() {
+            return stopOrder;
+        }
+
+        public double cost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return "cost=" + cost + ", stops=" + stopOrder + ", path=" + path;
+        }
+    }
+}
@@ -1,38 +1,65 @@
 package grafo_ferroviaria.managers;
 
 import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.ServiceClass;
+import grafo_ferroviaria.models.TrainDynamics;
+import grafo_ferroviaria.models.StationRegistry;
 import grafo_ferroviaria.models.TrainStation;
 import grafo_ferroviaria.models.TrainStationType;
 import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.LegSchedule;
 import grafo_ferroviaria.models.Train;
+import grafo_ferroviaria.metrics.SimulationMetrics;
 
-import java.io.File;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
 
+// Edits go to a private mutable graph under this manager's lock and are published as an immutable snapshot,
+// so routing threads read a consistent graph without locking while edits happen.
 public class RailwayManager {
-    private final GenericGraph<TrainStation, Rail> graph;
-    private final HashMap<String, TrainStation> stations;
+    private final GenericGraph<TrainStation, Rail> workingGraph;
+    private volatile GenericGraph<TrainStation, Rail> graph;
+    private final Map<String, TrainStation> stations;
+    private final Map<String, TrainStation> stationsView;
+    private final StationRegistry registry;
     private final TrainSimulator trainSimulator;
+    private final MultiStopRouteOptimizer multiStopOptimizer;
+    private final RouteRepairer routeRepairer;
+    private final SimulationMetrics metrics;
 
     public RailwayManager(boolean isDirected) {
-        this.graph = new GenericGraph<>(isDirected);
-        this.stations = new HashMap<>();
+        this.metrics = new SimulationMetrics();
+        this.workingGraph = new GenericGraph<>(isDirected);
+        this.workingGraph.setSearchListener(metrics::recordSearch);
+        this.graph = workingGraph.snapshot();
+        this.stations = new ConcurrentHashMap<>();
+        this.stationsView = Collections.unmodifiableMap(stations);
+        this.registry = new StationRegistry();
         this.trainSimulator = new TrainSimulator(this);
+        this.multiStopOptimizer = new MultiStopRouteOptimizer(this);
+        this.routeRepairer = new RouteRepairer(this);
     }
 
     public java.util.List<TrainStation> getTrainRoute(String trainId) {
-        for (Train t : getAllTrains()) {
-            if (t.id().equals(trainId)) {
-                return new java.util.ArrayList<>(t.route());
-            }
-        }
-        return java.util.Collections.emptyList();
+        Train train = trainSimulator.getTrain(trainId);
+        return train != null ? train.route().asList() : java.util.Collections.emptyList();
+    }
+
+    public LegSchedule getTrainSchedule(String trainId) {
+        Train train = trainSimulator.getTrain(trainId);
+        return train != null ? train.route().schedule() : null;
     }
 
     public enum RouteCriterion { TIME, DISTANCE, PRICE }
@@ -46,19 +73,52 @@ public class RailwayManager {
         };
     }
 
-    public void loadRailway(String path) {
-        try (Scanner scan = new Scanner(new File(path), StandardCharsets.UTF_8)) {
-            int numVertex = Integer.parseInt(scan.nextLine().trim());
+    public List<TrainStation> planRoute(String fromStation, String toStation, RouteCriterion criterion,
+            ServiceClass serviceClass) {
+        return new TrainRoutePlanner(this).planRoute(fromStation, toStation, criterion, serviceClass);
+    }
+
+    public MultiStopRouteOptimizer.MultiStopRoute planMultiStopRoute(List<String> stops, String fixedStart,
+            String fixedEnd, RouteCriterion criterion) {
+        TrainRoutePlanner planner = new TrainRoutePlanner(this);
+        return planner.planOptimizedMultiStopRoute(stops, fixedStart, fixedEnd, criterion);
+    }
+
+    public static final int BINARY_MAGIC = 0x47524642; // "GRFB"
+    public static final int BINARY_VERSION = 3;
+
+    public synchronized void loadRailway(String path) {
+        readRailway(path);
+        publish();
+    }
+
+    private void readRailway(String path) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.available() >= Integer.BYTES && in.readInt() == BINARY_MAGIC) {
+                loadRailwayBinary(in);
+                return;
+            }
+        } catch (Exception e) {
+            System.out.println("Error to load railway file: " + e.getMessage());
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            int numVertex = Integer.parseInt(reader.readLine().trim());
             for (int i = 0; i < numVertex; i++) {
-                String name = scan.nextLine().trim();
-                this.stations.put(name, new TrainStation(name, 0, 0, TrainStationType.MIXED));
-                this.graph.addVertex(this.stations.get(name));
+                String[] p = reader.readLine().split(",");
+                String name = p[0].trim();
+                double latitude = p.length >= 3 ? Double.parseDouble(p[1].trim()) : 0;
+                double longitude = p.length >= 3 ? Double.parseDouble(p[2].trim()) : 0;
+                TrainStationType type = p.length >= 4 ? TrainStationType.valueOf(p[3].trim()) : TrainStationType.MIXED;
+
+                internStation(name, latitude, longitude, type);
             }
 
-            int numEdges = Integer.parseInt(scan.nextLine().trim());
+            int numEdges = Integer.parseInt(reader.readLine().trim());
             for (int i = 0; i < numEdges; i++) {
-                String[] p = scan.nextLine().split(",");
-                if (p.length != 5) {
+                String[] p = reader.readLine().split(",");
+                if (p.length < 5 || p.length > 9) {
                     System.out.println("Aresta ignorada (formato inválido): " + String.join(",", p));
                     continue;
                 }
@@ -68,8 +128,16 @@ public class RailwayManager {
                 double distance = Double.parseDouble(p[2].trim());
                 double price = Double.parseDouble(p[3].trim());
                 int time = Integer.parseInt(p[4].trim());
+                int tracks = p.length >= 6 ? Integer.parseInt(p[5].trim()) : 1;
+                int capacity = p.length >= 7 ? Integer.parseInt(p[6].trim()) : 1;
+                double headway = p.length >= 8 ? Double.parseDouble(p[7].trim()) : 0.0;
+                double speedLimit = p.length >= 9 ? Double.parseDouble(p[8].trim()) : Rail.CONVENTIONAL_SPEED_LIMIT;
 
-                this.graph.addEdge(from, to, new Rail(price, time, distance, false));
+                // The text format has no high-speed flag; a line cleared above conventional speed is one.
+                boolean highSpeed = speedLimit > Rail.CONVENTIONAL_SPEED_LIMIT;
+
+                workingGraph.addEdge(from, to,
+                        new Rail(price, time, distance, highSpeed, tracks, capacity, headway, speedLimit));
             }
 
         } catch (Exception e) {
@@ -78,16 +146,155 @@ public class RailwayManager {
         }
     }
 
+    private void loadRailwayBinary(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version < 1 || version > BINARY_VERSION)
+            throw new IOException("Versão de arquivo binário não suportada: " + version);
+
+        int numVertex = in.readInt();
+        TrainStation[] byIndex = new TrainStation[numVertex];
+        TrainStationType[] types = TrainStationType.values();
+        for (int i = 0; i < numVertex; i++) {
+            String name = in.readUTF();
+            double latitude = in.readDouble();
+            double longitude = in.readDouble();
+            byIndex[i] = internStation(name, latitude, longitude, types[in.readByte()]);
+        }
+
+        int numEdges = in.readInt();
+        for (int i = 0; i < numEdges; i++) {
+            TrainStation from = byIndex[in.readInt()];
+            TrainStation to = byIndex[in.readInt()];
+            double distance = in.readDouble();
+            double price = in.readDouble();
+            int time = in.readInt();
+            boolean highSpeed = in.readBoolean();
+            // Version 1 files predate track layouts and load as single-track rails.
+            int tracks = version >= 2 ? in.readUnsignedByte() : 1;
+            int capacity = version >= 2 ? in.readUnsignedShort() : 1;
+            double headway = version >= 2 ? in.readDouble() : 0.0;
+            // Before version 3 the speed limit followed from the high-speed flag.
+            double speedLimit = version >= 3 ? in.readDouble()
+                    : highSpeed ? Rail.HIGH_SPEED_LIMIT : Rail.CONVENTIONAL_SPEED_LIMIT;
+
+            workingGraph.addEdge(from, to,
+                    new Rail(price, time, distance, highSpeed, tracks, capacity, headway, speedLimit));
+        }
+    }
+
+    public synchronized TrainStation addStation(String name, double latitude, double longitude,
+            TrainStationType type) {
+        TrainStation station = internStation(name, latitude, longitude, type);
+        publish();
+        return station;
+    }
+
+    private TrainStation internStation(String name, double latitude, double longitude, TrainStationType type) {
+        TrainStation station = registry.intern(name, latitude, longitude, type);
+        workingGraph.addVertex(station);
+        this.stations.put(name, station);
+        return station;
+    }
+
+    private void publish() {
+        graph = workingGraph.snapshot();
+    }
+
+    public synchronized int addRail(String fromStation, String toStation, Rail rail) {
+        TrainStation from = requireStation(fromStation);
+        TrainStation to = requireStation(toStation);
+
+        routeRepairer.beforeChange();
+        boolean closed = workingGraph.isClosed(from, to);
+        Rail previous = workingGraph.neighbors(from).get(to);
+        workingGraph.addEdge(from, to, rail);
+        publish();
+        return closed ? 0 : routeRepairer.railChanged(from, to, previous, rail);
+    }
+
+    public synchronized int updateRail(String fromStation, String toStation, Rail rail) {
+        TrainStation from = requireStation(fromStation);
+        TrainStation to = requireStation(toStation);
+
+        routeRepairer.beforeChange();
+        boolean closed = workingGraph.isClosed(from, to);
+        Rail previous = workingGraph.updateEdge(from, to, rail);
+        publish();
+        return closed ? 0 : routeRepairer.railChanged(from, to, previous, rail);
+    }
+
+    public synchronized int removeRail(String fromStation, String toStation) {
+        TrainStation from = requireStation(fromStation);
+        TrainStation to = requireStation(toStation);
+
+        routeRepairer.beforeChange();
+        boolean closed = workingGraph.isClosed(from, to);
+        Rail removed = workingGraph.removeEdge(from, to);
+        if (removed == null) {
+            throw new IllegalArgumentException("Não existe conexão entre " + fromStation + " e " + toStation);
+        }
+        publish();
+        return closed ? 0 : routeRepairer.railChanged(from, to, removed, null);
+    }
+
+    public synchronized int closeRail(String fromStation, String toStation) {
+        TrainStation from = requireStation(fromStation);
+        TrainStation to = requireStation(toStation);
+
+        routeRepairer.beforeChange();
+        boolean closed = workingGraph.isClosed(from, to);
+        workingGraph.closeEdge(from, to);
+        publish();
+        return closed ? 0 : routeRepairer.railChanged(from, to, workingGraph.neighbors(from).get(to), null);
+    }
+
+    public synchronized int reopenRail(String fromStation, String toStation) {
+        TrainStation from = requireStation(fromStation);
+        TrainStation to = requireStation(toStation);
+
+        routeRepairer.beforeChange();
+        boolean closed = workingGraph.isClosed(from, to);
+        workingGraph.reopenEdge(from, to);
+        publish();
+        return closed ? routeRepairer.railChanged(from, to, null, workingGraph.neighbors(from).get(to)) : 0;
+    }
+
+    private TrainStation requireStation(String name) {
+        TrainStation station = stations.get(name);
+        if (station == null) {
+            throw new IllegalArgumentException("Estação não encontrada: " + name);
+        }
+        return station;
+    }
+
     public GenericGraph<TrainStation, Rail> graph() {
         return this.graph;
     }
 
-    public HashMap<String, TrainStation> stations() {
-        return this.stations;
+    public Map<String, TrainStation> stations() {
+        return this.stationsView;
+    }
+
+    public TrainStation stationById(int id) {
+        return this.registry.byId(id);
+    }
+
+    public StationRegistry registry() {
+        return this.registry;
     }
 
     public void addTrain(String trainId, double maxSpeed, int capacity,
             String startingStationName, List<String> routeStationNames) {
+        addTrain(trainId, maxSpeed, capacity, null, startingStationName, routeStationNames);
+    }
+
+    public void addTrain(String trainId, double maxSpeed, int capacity, ServiceClass serviceClass,
+            String startingStationName, List<String> routeStationNames) {
+        addTrain(trainId, TrainDynamics.of(maxSpeed), capacity, serviceClass, startingStationName, routeStationNames);
+    }
+
+    public void addTrain(String trainId, TrainDynamics dynamics, int capacity, ServiceClass serviceClass,
+            String startingStationName, List<String> routeStationNames) {
         TrainStation startingStation = stations.get(startingStationName);
         if (startingStation == null) {
             throw new IllegalArgumentException("Estação inicial não encontrada: " + startingStationName);
@@ -102,10 +309,56 @@ public class RailwayManager {
             route.add(station);
         }
 
-        trainSimulator.addTrain(trainId, maxSpeed, capacity, startingStation, route);
+        if (serviceClass == null) {
+            trainSimulator.addTrain(trainId, dynamics, capacity, ServiceClass.PASSENGER, startingStation, route);
+            return;
+        }
+
+        TrainRoutePlanner.requireCompatible(route, serviceClass);
+        trainSimulator.addTrain(trainId, dynamics, capacity, serviceClass, startingStation, route);
+    }
+
+    // Plans the route through the stops, in order, by the criterion. Later rail edits replan only the legs
+    // between stops, by the same criterion.
+    public void addTrain(String trainId, TrainDynamics dynamics, int capacity, ServiceClass serviceClass,
+            List<String> stopNames, RouteCriterion criterion) {
+        if (stopNames == null || stopNames.size() < 2) {
+            throw new IllegalArgumentException("Rota deve ter pelo menos 2 paradas");
+        }
+
+        ServiceClass trainClass = serviceClass != null ? serviceClass : ServiceClass.PASSENGER;
+        List<TrainStation> route = new ArrayList<>();
+        int[] stops = new int[stopNames.size()];
+        for (int i = 0; i < stopNames.size(); i++) {
+            TrainStation stop = requireStation(stopNames.get(i));
+            if (i == 0) {
+                route.add(stop);
+                continue;
+            }
+
+            TrainStation previous = route.get(route.size() - 1);
+            List<TrainStation> leg = graph.shortestPath(previous, stop, TrainRoutePlanner.costFunction(criterion),
+                    null, serviceClass != null ? serviceClass::canPassThrough : null).path;
+            if (leg.size() < 2) {
+                throw new IllegalArgumentException("Não existe caminho entre " + previous.name() + " e "
+                        + stop.name());
+            }
+            route.addAll(leg.subList(1, leg.size()));
+            stops[i] = route.size() - 1;
+        }
+
+        if (serviceClass != null)
+            TrainRoutePlanner.requireCompatible(route, serviceClass);
+        trainSimulator.addTrain(trainId, dynamics, capacity, trainClass, route.get(0), route, stops);
+        routeRepairer.planned(trainId, criterion);
+    }
+
+    public RouteCriterion routeCriterion(String trainId) {
+        return routeRepairer.criterion(trainId);
     }
 
     public void removeTrain(String trainId) {
+        routeRepairer.forget(trainId);
         trainSimulator.removeTrain(trainId);
     }
 
@@ -133,10 +386,18 @@ public class RailwayManager {
         return trainSimulator.getAllTrains();
     }
 
+    public SimulationMetrics metrics() {
+        return metrics;
+    }
+
     public TrainSimulator getTrainSimulator() {
         return trainSimulator;
     }
 
+    public MultiStopRouteOptimizer getMultiStopOptimizer() {
+        return multiStopOptimizer;
+    }
+
     public List<TrainStation> planFastestRouteForTrain(String fromStation, String toStation) {
         TrainRoutePlanner planner = new TrainRoutePlanner(this);
         return planner.planFastestRouteByTime(fromStation, toStation);
@@ -150,11 +411,14 @@ public class RailwayManager {
 
     public TrainRoutePlanner.RouteStatistics calculateRouteStatisticsForExistingTrain(List<TrainStation> route,
             String trainId) {
-        Train train = trainSimulator.getAllTrains().stream()
-                .filter(t -> t.id().equals(trainId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Trem não encontrado: " + trainId));
+        Train train = trainSimulator.getTrain(trainId);
+        if (train == null) {
+            throw new IllegalArgumentException("Trem não encontrado: " + trainId);
+        }
 
-        return calculateRouteStatisticsForTrain(route, train.maxSpeed());
+        if (train.route().asList().equals(route) && train.route().schedule().isComplete()) {
+            return new TrainRoutePlanner(this).calculateRouteStatistics(train.route().schedule());
+        }
+        return new TrainRoutePlanner(this).calculateRouteStatisticsForTrain(route, train.dynamics());
     }
 }
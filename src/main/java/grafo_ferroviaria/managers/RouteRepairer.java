@@ -0,0 +1,218 @@
+package grafo_ferroviaria.managers;
+
+import grafo_ferroviaria.metrics.Phase;
+import grafo_ferroviaria.metrics.SimulationMetrics;
+import grafo_ferroviaria.models.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+// Repairs train routes after a rail edit. Routes are replanned leg by leg, between the stops they must
+// still visit, and by the criterion each train was planned with; stops are never dropped.
+public class RouteRepairer {
+    private static final double EPSILON = 1e-9;
+
+    private enum Change { NONE, WORSENED, IMPROVED }
+
+    private final RailwayManager railwayManager;
+    private final Map<RailwayManager.RouteCriterion,
+            Map<TrainStation, IncrementalShortestPathTree<TrainStation, Rail>>> trees;
+    private final Map<String, RailwayManager.RouteCriterion> criteria;
+    private long knownVersion;
+
+    public RouteRepairer(RailwayManager railwayManager) {
+        this.railwayManager = railwayManager;
+        this.trees = new EnumMap<>(RailwayManager.RouteCriterion.class);
+        this.criteria = new ConcurrentHashMap<>();
+        this.knownVersion = -1;
+    }
+
+    public void planned(String trainId, RailwayManager.RouteCriterion criterion) {
+        criteria.put(trainId, criterion);
+    }
+
+    public void forget(String trainId) {
+        criteria.remove(trainId);
+    }
+
+    // Trains added from a bare station list or a timetable follow the fastest path, as the timetable does.
+    public RailwayManager.RouteCriterion criterion(String trainId) {
+        return criteria.getOrDefault(trainId, RailwayManager.RouteCriterion.TIME);
+    }
+
+    public synchronized void beforeChange() {
+        if (railwayManager.graph().version() != knownVersion) {
+            trees.clear();
+        }
+    }
+
+    // previous is null when the rail did not exist or was closed; current is null when it was removed or closed.
+    public synchronized int railChanged(TrainStation from, TrainStation to, Rail previous, Rail current) {
+        GenericGraph<TrainStation, Rail> graph = railwayManager.graph();
+        Map<RailwayManager.RouteCriterion, Change> changes = new EnumMap<>(RailwayManager.RouteCriterion.class);
+        boolean any = false;
+        for (RailwayManager.RouteCriterion criterion : RailwayManager.RouteCriterion.values()) {
+            Change change = change(TrainRoutePlanner.costFunction(criterion), previous, current);
+            changes.put(criterion, change);
+            any |= change != Change.NONE;
+        }
+        // Capacity, headway or speed limit edits leave every routing cost as it was.
+        if (!any) {
+            knownVersion = graph.version();
+            return 0;
+        }
+
+        SimulationMetrics metrics = railwayManager.metrics();
+        long start = metrics.startTimer();
+
+        for (Map.Entry<RailwayManager.RouteCriterion,
+                Map<TrainStation, IncrementalShortestPathTree<TrainStation, Rail>>> entry : trees.entrySet()) {
+            Change change = changes.get(entry.getKey());
+            for (IncrementalShortestPathTree<TrainStation, Rail> tree : entry.getValue().values()) {
+                repair(tree, from, to, change);
+                if (!graph.isDirected())
+                    repair(tree, to, from, change);
+            }
+        }
+        knownVersion = graph.version();
+
+        int rerouted = 0;
+        for (Train train : railwayManager.getAllTrains()) {
+            if (repairTrain(train, from, to, changes.get(criterion(train.id()))))
+                rerouted++;
+        }
+        metrics.stopTimer(Phase.REROUTING, start);
+        metrics.countReroutes(rerouted);
+        return rerouted;
+    }
+
+    private static Change change(ToDoubleFunction<Rail> cost, Rail previous, Rail current) {
+        if (previous == null && current == null)
+            return Change.NONE;
+        if (previous == null)
+            return Change.IMPROVED;
+        if (current == null)
+            return Change.WORSENED;
+
+        double before = cost.applyAsDouble(previous);
+        double after = cost.applyAsDouble(current);
+        if (after > before)
+            return Change.WORSENED;
+        return after < before ? Change.IMPROVED : Change.NONE;
+    }
+
+    private void repair(IncrementalShortestPathTree<TrainStation, Rail> tree, TrainStation from, TrainStation to,
+            Change change) {
+        if (change == Change.WORSENED)
+            tree.edgeWorsened(from, to);
+        else if (change == Change.IMPROVED)
+            tree.edgeImproved(from, to);
+    }
+
+    private boolean repairTrain(Train train, TrainStation from, TrainStation to, Change change) {
+        if (change == Change.NONE || train.hasReachedDestination())
+            return false;
+
+        Route route = train.route();
+        boolean onRail = railwayManager.getTrainSimulator().getTrafficController().isOnRail(train.id());
+        int start = train.currentRouteIndex();
+        int anchorIndex = onRail ? start + 1 : start;
+        if (anchorIndex >= route.size() - 1)
+            return false;
+
+        RailwayManager.RouteCriterion criterion = criterion(train.id());
+        List<TrainStation> stations = new ArrayList<>(route.asList().subList(start, anchorIndex));
+        List<Integer> stops = new ArrayList<>();
+        for (int i = start; i < anchorIndex; i++) {
+            if (route.isStop(i))
+                stops.add(i - start);
+        }
+
+        boolean changed = false;
+        for (int legFrom = anchorIndex; legFrom < route.size() - 1; ) {
+            int legTo = route.nextStop(legFrom);
+            List<TrainStation> leg = route.asList().subList(legFrom, legTo + 1);
+            List<TrainStation> repaired = repairLeg(train, criterion, leg, from, to, change);
+            if (repaired != null) {
+                leg = repaired;
+                changed = true;
+            }
+            if (route.isStop(legFrom))
+                stops.add(stations.size());
+            stations.addAll(leg.subList(0, leg.size() - 1));
+            legFrom = legTo;
+        }
+        if (!changed)
+            return false;
+
+        stations.add(route.last());
+        stops.add(stations.size() - 1);
+        railwayManager.getTrainSimulator().rerouteTrain(train.id(), Route.of(stations,
+                stops.stream().mapToInt(Integer::intValue).toArray(), railwayManager.graph(), train.dynamics()));
+        return true;
+    }
+
+    // A leg is replanned when it runs over a rail that got worse, or when the improved rail lies on a path
+    // that is cheaper for this train's criterion than the leg it already has.
+    private List<TrainStation> repairLeg(Train train, RailwayManager.RouteCriterion criterion,
+            List<TrainStation> leg, TrainStation from, TrainStation to, Change change) {
+        if (change == Change.WORSENED && !usesRail(leg, from, to))
+            return null;
+
+        IncrementalShortestPathTree<TrainStation, Rail> tree = treeFor(criterion, leg.get(leg.size() - 1));
+        List<TrainStation> path = tree.pathFrom(leg.get(0));
+        if (path.size() < 2 || path.equals(leg) || !canPassThrough(train.serviceClass(), path))
+            return null;
+
+        if (change == Change.IMPROVED) {
+            if (!usesRail(path, from, to))
+                return null;
+            if (!(tree.distanceFrom(leg.get(0)) < legCost(leg, criterion) - EPSILON))
+                return null;
+        }
+        return path;
+    }
+
+    private double legCost(List<TrainStation> leg, RailwayManager.RouteCriterion criterion) {
+        GenericGraph<TrainStation, Rail> graph = railwayManager.graph();
+        ToDoubleFunction<Rail> cost = TrainRoutePlanner.costFunction(criterion);
+        double total = 0.0;
+        for (int i = 0; i < leg.size() - 1; i++) {
+            Rail rail = graph.neighbors(leg.get(i)).get(leg.get(i + 1));
+            if (rail == null || graph.isClosed(leg.get(i), leg.get(i + 1)))
+                return Double.POSITIVE_INFINITY;
+            total += cost.applyAsDouble(rail);
+        }
+        return total;
+    }
+
+    // Trees are shared by every class heading to the same stop, so a repaired path that crosses a station
+    // the train may not use is left to the traffic controller's class-aware rerouting.
+    private boolean canPassThrough(ServiceClass serviceClass, List<TrainStation> path) {
+        for (int i = 1; i < path.size() - 1; i++) {
+            if (!serviceClass.canPassThrough(path.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    private boolean usesRail(List<TrainStation> path, TrainStation from, TrainStation to) {
+        boolean undirected = !railwayManager.graph().isDirected();
+        for (int i = 0; i < path.size() - 1; i++) {
+            TrainStation a = path.get(i);
+            TrainStation b = path.get(i + 1);
+            if (a.equals(from) && b.equals(to))
+                return true;
+            if (undirected && a.equals(to) && b.equals(from))
+                return true;
+        }
+        return false;
+    }
+
+    private IncrementalShortestPathTree<TrainStation, Rail> treeFor(RailwayManager.RouteCriterion criterion,
+            TrainStation stop) {
+        return trees.computeIfAbsent(criterion, c -> new HashMap<>()).computeIfAbsent(stop,
+                s -> new IncrementalShortestPathTree<>(railwayManager::graph, s,
+                        TrainRoutePlanner.costFunction(criterion)));
+    }
+}
@@ -0,0 +1,9 @@
+package grafo_ferroviaria.managers;
+
+import grafo_ferroviaria.models.TrainStation;
+
+public interface SimulationEventListener {
+    // value: expected time on the rail (RAIL_ENTRY), wait duration (WAIT_START) or new route time (REROUTE).
+    void onEvent(SimulationEventType type, double simulationTime, String trainId, TrainStation from,
+            TrainStation to, double value);
+}
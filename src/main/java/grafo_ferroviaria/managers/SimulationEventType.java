@@ -0,0 +1,11 @@
+package grafo_ferroviaria.managers;
+
+public enum SimulationEventType {
+    DEPARTURE,
+    RAIL_ENTRY,
+    RAIL_EXIT,
+    WAIT_START,
+    WAIT_END,
+    REROUTE,
+    ARRIVAL
+}
@@ -0,0 +1,131 @@
+package grafo_ferroviaria.managers;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+public class SimulationLoop {
+    private final TrainSimulator trainSimulator;
+    private final double timeStep;
+    private final BlockingQueue<Runnable> commands;
+    private final AtomicReference<SimulationSnapshot> latest;
+    private final Thread thread;
+    private final List<Consumer<SimulationSnapshot>> snapshotListeners = new CopyOnWriteArrayList<>();
+
+    private volatile Runnable beforeTick;
+
+    private volatile long tickIntervalNanos;
+    private volatile boolean running;
+    private volatile boolean shutdown;
+    private long sequence;
+
+    public SimulationLoop(TrainSimulator trainSimulator, double timeStep, long tickIntervalMillis) {
+        this.trainSimulator = trainSimulator;
+        this.timeStep = timeStep;
+        this.commands = new LinkedBlockingQueue<>();
+        this.latest = new AtomicReference<>(SimulationSnapshot.empty());
+        this.tickIntervalNanos = TimeUnit.MILLISECONDS.toNanos(tickIntervalMillis);
+        this.thread = new Thread(this::run, "simulation");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void start() {
+        running = true;
+        commands.add(() -> { });
+    }
+
+    public void pause() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        thread.interrupt();
+    }
+
+    public long tickIntervalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickIntervalNanos);
+    }
+
+    public void setTickIntervalMillis(long millis) {
+        this.tickIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, millis));
+    }
+
+    public void submit(Runnable command) {
+        commands.add(command);
+    }
+
+    public SimulationSnapshot latest() {
+        return latest.get();
+    }
+
+    // Runs on the simulation thread before every step, e.g. to dispatch scheduled departures.
+    public void setBeforeTick(Runnable beforeTick) {
+        this.beforeTick = beforeTick;
+    }
+
+    // Listeners run on the simulation thread and must hand the snapshot off without blocking.
+    public void addSnapshotListener(Consumer<SimulationSnapshot> listener) {
+        snapshotListeners.add(listener);
+    }
+
+    public void removeSnapshotListener(Consumer<SimulationSnapshot> listener) {
+        snapshotListeners.remove(listener);
+    }
+
+    private void run() {
+        long nextTick = System.nanoTime();
+
+        while (!shutdown) {
+            try {
+                long wait = running ? nextTick - System.nanoTime() : tickIntervalNanos;
+                Runnable command = wait > 0 ? commands.poll(wait, TimeUnit.NANOSECONDS) : commands.poll();
+                boolean changed = false;
+                while (command != null) {
+                    runCommand(command);
+                    changed = true;
+                    command = commands.poll();
+                }
+
+                long now = System.nanoTime();
+                if (running && now - nextTick >= 0) {
+                    Runnable hook = beforeTick;
+                    if (hook != null)
+                        runCommand(hook);
+                    trainSimulator.updateSimulation(timeStep);
+                    nextTick = Math.max(nextTick + tickIntervalNanos, now - tickIntervalNanos);
+                    changed = true;
+                } else if (!running) {
+                    nextTick = now;
+                }
+
+                if (changed) {
+                    SimulationSnapshot snapshot = trainSimulator.snapshot(++sequence);
+                    latest.set(snapshot);
+                    for (Consumer<SimulationSnapshot> listener : snapshotListeners)
+                        listener.accept(snapshot);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void runCommand(Runnable command) {
+        try {
+            command.run();
+        } catch (RuntimeException e) {
+            System.out.println("Erro ao executar comando da simulação: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package grafo_ferroviaria.managers;
+
+import grafo_ferroviaria.models.LegSchedule;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+public final class SimulationSnapshot {
+    private final long sequence;
+    private final double simulationTime;
+    private final long publishedAtNanos;
+    private final List<TrainFrame> trains;
+    private final List<TrainStation[]> occupiedRails;
+    private final Set<String> changedTrains;
+    private final boolean membershipChanged;
+
+    public SimulationSnapshot(long sequence, double simulationTime, long publishedAtNanos,
+            List<TrainFrame> trains, List<TrainStation[]> occupiedRails, Set<String> changedTrains,
+            boolean membershipChanged) {
+        this.sequence = sequence;
+        this.simulationTime = simulationTime;
+        this.publishedAtNanos = publishedAtNanos;
+        this.trains = List.copyOf(trains);
+        this.occupiedRails = List.copyOf(occupiedRails);
+        this.changedTrains = Set.copyOf(changedTrains);
+        this.membershipChanged = membershipChanged;
+    }
+
+    public static SimulationSnapshot empty() {
+        return new SimulationSnapshot(0, 0.0, System.nanoTime(), List.of(), List.of(), Set.of(), false);
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    public double simulationTime() {
+        return simulationTime;
+    }
+
+    public long publishedAtNanos() {
+        return publishedAtNanos;
+    }
+
+    public List<TrainFrame> trains() {
+        return trains;
+    }
+
+    public List<TrainStation[]> occupiedRails() {
+        return occupiedRails;
+    }
+
+    public Set<String> changedTrains() {
+        return changedTrains;
+    }
+
+    public boolean membershipChanged() {
+        return membershipChanged;
+    }
+
+    public static final class TrainFrame {
+        private final String trainId;
+        private final TrainStation currentStation;
+        private final TrainStation nextStation;
+        private final double progress;
+        private final double currentSpeed;
+        private final boolean isMoving;
+        private final double timeToNextStation;
+        private final boolean hasReachedDestination;
+        private final boolean isWaiting;
+        private final double waitingTime;
+        private final LegSchedule schedule;
+
+        public TrainFrame(String trainId, TrainStation currentStation, TrainStation nextStation, double progress,
+                double currentSpeed, boolean isMoving, double timeToNextStation, boolean hasReachedDestination,
+                boolean isWaiting, double waitingTime, LegSchedule schedule) {
+            this.trainId = trainId;
+            this.currentStation = currentStation;
+            this.nextStation = nextStation;
+            this.progress = progress;
+            this.currentSpeed = currentSpeed;
+            this.isMoving = isMoving;
+            this.timeToNextStation = timeToNextStation;
+            this.hasReachedDestination = hasReachedDestination;
+            this.isWaiting = isWaiting;
+            this.waitingTime = waitingTime;
+            this.schedule = schedule;
+        }
+
+        public String trainId() {
+            return trainId;
+        }
+
+        public TrainStation currentStation() {
+            return currentStation;
+        }
+
+        public TrainStation nextStation() {
+            return nextStation;
+        }
+
+        public double progress() {
+            return progress;
+        }
+
+        public double currentSpeed() {
+            return currentSpeed;
+        }
+
+        public boolean isMoving() {
+            return isMoving;
+        }
+
+        public double timeToNextStation() {
+            return timeToNextStation;
+        }
+
+        public boolean hasReachedDestination() {
+            return hasReachedDestination;
+        }
+
+        public boolean isWaiting() {
+            return isWaiting;
+        }
+
+        public double waitingTime() {
+            return waitingTime;
+        }
+
+        public LegSchedule schedule() {
+            return schedule;
+        }
+
+        public boolean hasSameState(TrainFrame other) {
+            return other != null
+                    && trainId.equals(other.trainId)
+                    && Objects.equals(currentStation, other.currentStation)
+                    && Objects.equals(nextStation, other.nextStation)
+                    && progress == other.progress
+                    && currentSpeed == other.currentSpeed
+                    && isMoving == other.isMoving
+                    && timeToNextStation == other.timeToNextStation
+                    && hasReachedDestination == other.hasReachedDestination
+                    && isWaiting == other.isWaiting
+                    && waitingTime == other.waitingTime
+                    && schedule == other.schedule;
+        }
+
+        public boolean isSameLeg(TrainFrame other) {
+            return other != null
+                    && currentStation != null
+                    && currentStation.equals(other.currentStation)
+                    && nextStation != null
+                    && nextStation.equals(other.nextStation);
+        }
+    }
+}
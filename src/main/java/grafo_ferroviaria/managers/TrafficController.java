@@ -1,10 +1,17 @@
 package grafo_ferroviaria.managers;
 
+import grafo_ferroviaria.metrics.CollisionDecisionEvent;
+import grafo_ferroviaria.metrics.Phase;
+import grafo_ferroviaria.metrics.SimulationMetrics;
 import grafo_ferroviaria.models.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 public class TrafficController {
+    private static final double CLOSED_RAIL_RETRY = 1.0;
+    private static final double QUEUED_RETRY = 0.5;
+
     private final RailwayManager railwayManager;
     private final TrainRoutePlanner routePlanner;
     private TrainSimulator trainSimulator;
@@ -13,13 +20,42 @@ public class TrafficController {
     private final Map<String, TrainPosition> trainPositions;
 
     private final Map<String, Double> waitingTrains;
+    private final Map<String, Set<String>> waitsFor;
+    private final Map<String, Set<String>> waitedOnBy;
+    private final Map<RailSegment, Double> lastEntries;
+    private final Map<RailSegment, PriorityQueue<QueuedTrain>> railQueues;
+    private final Map<String, QueuedTrain> queuedTrains;
+    private long queueSequence;
+    private boolean priorityScheduling;
+    private final SimulationMetrics metrics;
 
     public TrafficController(RailwayManager railwayManager, TrainRoutePlanner routePlanner) {
         this.railwayManager = railwayManager;
+        this.metrics = railwayManager.metrics();
         this.routePlanner = routePlanner;
         this.railOccupancy = new ConcurrentHashMap<>();
         this.trainPositions = new ConcurrentHashMap<>();
         this.waitingTrains = new ConcurrentHashMap<>();
+        this.waitsFor = new ConcurrentHashMap<>();
+        this.waitedOnBy = new ConcurrentHashMap<>();
+        this.lastEntries = new ConcurrentHashMap<>();
+        this.railQueues = new ConcurrentHashMap<>();
+        this.queuedTrains = new ConcurrentHashMap<>();
+        this.priorityScheduling = true;
+    }
+
+    public void setPriorityScheduling(boolean priorityScheduling) {
+        this.priorityScheduling = priorityScheduling;
+        if (!priorityScheduling) {
+            railQueues.clear();
+            queuedTrains.clear();
+            waitsFor.clear();
+            waitedOnBy.clear();
+        }
+    }
+
+    public boolean isPriorityScheduling() {
+        return priorityScheduling;
     }
 
     public void setTrainSimulator(TrainSimulator trainSimulator) {
@@ -32,14 +68,16 @@ public class TrafficController {
     }
 
     public void unregisterTrain(String trainId) {
-        trainPositions.remove(trainId);
+        TrainPosition position = trainPositions.remove(trainId);
         waitingTrains.remove(trainId);
-
-        for (Map<TrainStation, List<TrainInfo>> toMap : railOccupancy.values()) {
-            for (List<TrainInfo> trainList : toMap.values()) {
-                trainList.removeIf(info -> info.trainId.equals(trainId));
-            }
-        }
+        clearWaitEdges(trainId);
+        dequeue(trainId);
+
+        // A train only ever occupies the rail it is running on, so retiring trains does not scan the network.
+        if (position != null && position.currentRail != null)
+            exitRail(trainId, position.currentRail.from, position.currentRail.to);
+        else
+            releaseWaiters(trainId);
     }
 
     public void updateTrainPosition(String trainId, Train train, double deltaTime) {
@@ -53,27 +91,35 @@ public class TrafficController {
         if (nextStation == null)
             return;
 
-        updateRailOccupancyTimes(deltaTime);
-
         if (currentPos.currentRail == null && !isTrainWaiting(trainId)) {
-            if (canEnterRail(trainId, currentStation, nextStation)) {
+            if (railwayManager.graph().isClosed(currentStation, nextStation)) {
+                startWaiting(trainId, currentStation, nextStation, CLOSED_RAIL_RETRY);
+            } else if (canEnterRail(trainId, currentStation, nextStation, train)) {
+                dequeue(trainId);
                 enterRail(trainId, currentStation, nextStation, train.timeToNextStation());
+                emit(SimulationEventType.RAIL_ENTRY, trainId, currentStation, nextStation, train.timeToNextStation());
                 currentPos.currentRail = new RailSegment(currentStation, nextStation);
                 currentPos.timeInRail = 0.0;
+                currentPos.railTime = train.timeToNextStation();
 
                 if (!train.isMoving()) {
                     train.startMoving();
                 }
             } else {
+                long phaseStart = metrics.startTimer();
                 handleCollision(trainId, currentStation, nextStation, train);
+                metrics.stopTimer(Phase.COLLISION_HANDLING, phaseStart);
             }
         }
 
         if (currentPos.currentRail != null) {
             currentPos.timeInRail += deltaTime;
 
-            if (currentPos.timeInRail >= train.timeToNextStation()) {
+            // Compared with the leg time at entry: the train's own countdown shrinks while it runs.
+            if (currentPos.timeInRail >= currentPos.railTime) {
                 exitRail(trainId, currentPos.currentRail.from, currentPos.currentRail.to);
+                emit(SimulationEventType.RAIL_EXIT, trainId, currentPos.currentRail.from, currentPos.currentRail.to,
+                        currentPos.timeInRail);
                 currentPos.currentRail = null;
                 currentPos.timeInRail = 0.0;
             }
@@ -83,25 +129,114 @@ public class TrafficController {
         currentPos.nextStation = nextStation;
     }
 
-    private boolean canEnterRail(String trainId, TrainStation from, TrainStation to) {
-        List<TrainInfo> trainsInRail = getTrainsInRail(from, to);
+    private boolean canEnterRail(String trainId, TrainStation from, TrainStation to, Train train) {
+        Rail rail = railwayManager.graph().neighbors(from).get(to);
+        if (rail == null) {
+            return false;
+        }
 
-        if (trainsInRail.isEmpty()) {
-            return true;
+        int sameDirection = 0;
+        for (TrainInfo info : getTrainsInRail(from, to)) {
+            if (!info.trainId.equals(trainId))
+                sameDirection++;
+        }
+        if (sameDirection >= rail.capacity()) {
+            return false;
         }
 
-        for (TrainInfo info : trainsInRail) {
-            if (info.trainId.equals(trainId)) {
-                continue;
-            }
+        if (sharesTrackWithOpposingDirection(rail) && !getTrainsInRail(to, from).isEmpty()) {
+            return false;
+        }
 
+        if (remainingHeadway(from, to, rail) > 0) {
             return false;
         }
 
-        return true;
+        if (!priorityScheduling) {
+            return true;
+        }
+
+        // A free rail still goes to whoever queued for it first among the highest priority class.
+        QueuedTrain head = queueHead(new RailSegment(from, to));
+        if (head == null || head.trainId.equals(trainId) || train.priority() > head.priority)
+            return true;
+
+        // The head may still be sleeping on an estimate made while the rail was busy; wake it so the
+        // rail is handed over on the next tick instead of staying idle.
+        waitingTrains.computeIfPresent(head.trainId, (id, remaining) -> 0.0);
+        return false;
+    }
+
+    private QueuedTrain queueHead(RailSegment segment) {
+        PriorityQueue<QueuedTrain> queue = railQueues.get(segment);
+        if (queue == null)
+            return null;
+
+        while (!queue.isEmpty() && !isStillQueued(queue.peek(), segment)) {
+            String stale = queue.poll().trainId;
+            queuedTrains.remove(stale);
+            releaseWaiters(stale);
+        }
+        return queue.peek();
+    }
+
+    private boolean isStillQueued(QueuedTrain queued, RailSegment segment) {
+        TrainPosition position = trainPositions.get(queued.trainId);
+        Train train = trainSimulator != null ? trainSimulator.getTrain(queued.trainId) : null;
+        return position != null && position.currentRail == null && train != null
+                && segment.from.equals(train.currentStation()) && segment.to.equals(train.getNextStation());
+    }
+
+    private void enqueue(String trainId, TrainStation from, TrainStation to, Train train) {
+        RailSegment segment = new RailSegment(from, to);
+        QueuedTrain queued = queuedTrains.get(trainId);
+        if (queued != null) {
+            if (queued.segment.equals(segment))
+                return;
+            dequeue(trainId);
+        }
+
+        queued = new QueuedTrain(trainId, segment, train.priority(), queueSequence++);
+        queuedTrains.put(trainId, queued);
+        railQueues.computeIfAbsent(segment, k -> new PriorityQueue<>()).add(queued);
+    }
+
+    private void dequeue(String trainId) {
+        QueuedTrain queued = queuedTrains.remove(trainId);
+        if (queued == null)
+            return;
+
+        releaseWaiters(trainId);
+        PriorityQueue<QueuedTrain> queue = railQueues.get(queued.segment);
+        if (queue != null) {
+            queue.remove(queued);
+            if (queue.isEmpty())
+                railQueues.remove(queued.segment);
+        }
+    }
+
+    public int queuedTrainCount() {
+        return queuedTrains.size();
+    }
+
+    private boolean sharesTrackWithOpposingDirection(Rail rail) {
+        return rail.isSingleTrack() && !railwayManager.graph().isDirected();
+    }
+
+    private double remainingHeadway(TrainStation from, TrainStation to, Rail rail) {
+        Double lastEntry = lastEntries.get(new RailSegment(from, to));
+        if (lastEntry == null || rail.headway() <= 0) {
+            return 0.0;
+        }
+        return Math.max(0.0, lastEntry + rail.headway() - simulationTime());
+    }
+
+    private double simulationTime() {
+        return trainSimulator != null ? trainSimulator.getSimulationTime() : 0.0;
     }
 
     private void enterRail(String trainId, TrainStation from, TrainStation to, double timeInRail) {
+        lastEntries.put(new RailSegment(from, to), simulationTime());
         railOccupancy.computeIfAbsent(from, k -> new ConcurrentHashMap<>())
                 .computeIfAbsent(to, k -> new ArrayList<>())
                 .add(new TrainInfo(trainId, timeInRail));
@@ -115,6 +250,7 @@ public class TrafficController {
                 trainList.removeIf(info -> info.trainId.equals(trainId));
             }
         }
+        releaseWaiters(trainId);
     }
 
     private List<TrainInfo> getTrainsInRail(TrainStation from, TrainStation to) {
@@ -128,106 +264,308 @@ public class TrafficController {
         return new ArrayList<>();
     }
 
+    public void forEachOccupiedRail(BiConsumer<TrainStation, TrainStation> action) {
+        for (Map.Entry<TrainStation, Map<TrainStation, List<TrainInfo>>> fromEntry : railOccupancy.entrySet()) {
+            for (Map.Entry<TrainStation, List<TrainInfo>> toEntry : fromEntry.getValue().entrySet()) {
+                if (!toEntry.getValue().isEmpty())
+                    action.accept(fromEntry.getKey(), toEntry.getKey());
+            }
+        }
+    }
+
     public List<TrainInfo> getTrainsInRailPublic(TrainStation from, TrainStation to) {
         return getTrainsInRail(from, to);
     }
 
     private void handleCollision(String trainId, TrainStation from, TrainStation to, Train train) {
-        double waitTime = calculateWaitTime(from, to);
+        CollisionDecisionEvent event = new CollisionDecisionEvent();
+        event.begin();
 
-        double alternativeTime = calculateAlternativeRouteTime(from, to, train);
+        double waitTime = calculateWaitTime(from, to);
+        if (waitTime <= 0.0) {
+            // The rail is free but reserved for a higher priority train queued at it.
+            waitTime = QUEUED_RETRY;
+        }
 
-        if (alternativeTime < waitTime) {
-            List<TrainStation> alternativeRoute = findAlternativeRoute(from, to, train);
-            if (alternativeRoute != null) {                
-                updateTrainRoute(trainId, alternativeRoute);
-            } else {
-                waitingTrains.put(trainId, waitTime);
-            }
+        long reroutingStart = metrics.startTimer();
+        Route alternativeRoute = findAlternativeRoute(from, to, train);
+        metrics.stopTimer(Phase.REROUTING, reroutingStart);
+        double alternativeTime = alternativeRoute != null
+                ? alternativeRoute.schedule().totalTime()
+                : Double.POSITIVE_INFINITY;
+
+        boolean reroute = alternativeTime < waitTime;
+        if (reroute) {
+            dequeue(trainId);
+            updateTrainRoute(trainId, alternativeRoute);
+            metrics.countReroute();
         } else {
-            waitingTrains.put(trainId, waitTime);
+            if (priorityScheduling)
+                enqueue(trainId, from, to, train);
+            startWaiting(trainId, from, to, waitTime);
+            waitFor(trainId, blockers(trainId, from, to, train));
+        }
+
+        if (event.shouldCommit()) {
+            event.trainId = trainId;
+            event.from = from.name();
+            event.to = to.name();
+            event.waitTime = waitTime;
+            event.alternativeTime = alternativeTime;
+            event.rerouted = reroute;
+            event.commit();
         }
     }
 
+    // The wait lasts until every constraint that blocked the entry can have cleared: a slot in this
+    // direction, the opposing traffic on a single track and the headway behind the last entry.
     private double calculateWaitTime(TrainStation from, TrainStation to) {
+        Rail rail = railwayManager.graph().neighbors(from).get(to);
         List<TrainInfo> trainsInRail = getTrainsInRail(from, to);
-        if (trainsInRail.isEmpty()) {
-            return 0.0;
+        int capacity = rail != null ? rail.capacity() : 1;
+
+        double waitTime = 0.0;
+        if (trainsInRail.size() >= capacity) {
+            double[] remaining = trainsInRail.stream()
+                    .mapToDouble(info -> Math.max(0.0, info.remainingTime))
+                    .sorted()
+                    .toArray();
+            waitTime = remaining[trainsInRail.size() - capacity];
         }
 
-        return trainsInRail.stream()
-                .filter(info -> info.remainingTime > 0)
-                .mapToDouble(info -> info.remainingTime)
-                .max()
-                .orElse(0.0);
+        if (rail == null) {
+            return waitTime;
+        }
+
+        if (sharesTrackWithOpposingDirection(rail)) {
+            for (TrainInfo info : getTrainsInRail(to, from))
+                waitTime = Math.max(waitTime, info.remainingTime);
+        }
+
+        return Math.max(waitTime, remainingHeadway(from, to, rail));
     }
 
-    private double calculateAlternativeRouteTime(TrainStation from, TrainStation to, Train train) {
-        try {
-            List<TrainStation> alternativeRoute = findAlternativeRoute(from, to, train);
-            if (alternativeRoute != null) {
-                TrainRoutePlanner.RouteStatistics stats = routePlanner.calculateRouteStatisticsForTrain(
-                        alternativeRoute, train.maxSpeed());
-                return stats.totalTime();
+    // Trains holding what this one needs: the occupants that fill the rail, opposing traffic on a
+    // single track and a queued train whose reservation outranks it.
+    private List<String> blockers(String trainId, TrainStation from, TrainStation to, Train train) {
+        Rail rail = railwayManager.graph().neighbors(from).get(to);
+        if (rail == null)
+            return List.of();
+
+        List<String> blockers = new ArrayList<>();
+        List<TrainInfo> sameDirection = getTrainsInRail(from, to);
+        if (sameDirection.size() >= rail.capacity()) {
+            for (TrainInfo info : sameDirection) {
+                if (!info.trainId.equals(trainId))
+                    blockers.add(info.trainId);
             }
-        } catch (Exception e) {
         }
-        return Double.POSITIVE_INFINITY;
+
+        if (sharesTrackWithOpposingDirection(rail)) {
+            for (TrainInfo info : getTrainsInRail(to, from))
+                blockers.add(info.trainId);
+        }
+
+        if (priorityScheduling) {
+            QueuedTrain head = queueHead(new RailSegment(from, to));
+            if (head != null && !head.trainId.equals(trainId) && head.priority >= train.priority())
+                blockers.add(head.trainId);
+        }
+        return blockers;
+    }
+
+    // Edges are added when a train starts waiting and dropped as soon as either end lets go: the waiter
+    // stops waiting, or the holder leaves the rail or its queue. A cycle can then only close through
+    // the new waiter's edges, so one search from it finds it.
+    private void waitFor(String trainId, List<String> blockers) {
+        clearWaitEdges(trainId);
+        if (blockers.isEmpty())
+            return;
+
+        waitsFor.put(trainId, new HashSet<>(blockers));
+        for (String blocker : blockers)
+            waitedOnBy.computeIfAbsent(blocker, k -> new HashSet<>()).add(trainId);
+
+        long start = metrics.startTimer();
+        List<String> cycle = findCycle(trainId);
+        metrics.stopTimer(Phase.DEADLOCK_DETECTION, start);
+        if (cycle != null)
+            resolveDeadlock(cycle);
     }
 
-    private List<TrainStation> findAlternativeRoute(TrainStation from, TrainStation to, Train train) {
-       
-        List<TrainStation> currentRoute = train.route();
+    private void clearWaitEdges(String trainId) {
+        Set<String> blockers = waitsFor.remove(trainId);
+        if (blockers == null)
+            return;
+
+        for (String blocker : blockers) {
+            Set<String> waiters = waitedOnBy.get(blocker);
+            if (waiters != null && waiters.remove(trainId) && waiters.isEmpty())
+                waitedOnBy.remove(blocker);
+        }
+    }
+
+    private void releaseWaiters(String holderId) {
+        Set<String> waiters = waitedOnBy.remove(holderId);
+        if (waiters == null)
+            return;
+
+        for (String waiter : waiters) {
+            Set<String> blockers = waitsFor.get(waiter);
+            if (blockers != null && blockers.remove(holderId) && blockers.isEmpty())
+                waitsFor.remove(waiter);
+        }
+    }
+
+    private List<String> findCycle(String start) {
+        Deque<String> path = new ArrayDeque<>();
+        Deque<Iterator<String>> pending = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+
+        path.push(start);
+        pending.push(waitsFor.get(start).iterator());
+        visited.add(start);
+        while (!pending.isEmpty()) {
+            Iterator<String> next = pending.peek();
+            if (!next.hasNext()) {
+                pending.pop();
+                path.pop();
+                continue;
+            }
+
+            String blocker = next.next();
+            if (blocker.equals(start)) {
+                List<String> cycle = new ArrayList<>(path);
+                Collections.reverse(cycle);
+                return cycle;
+            }
+
+            // Trains running on a rail always leave it, so only waiting blockers can close a cycle.
+            Set<String> blockedBy = waitsFor.get(blocker);
+            if (blockedBy != null && visited.add(blocker)) {
+                path.push(blocker);
+                pending.push(blockedBy.iterator());
+            }
+        }
+        return null;
+    }
+
+    // The lowest priority train in the cycle gives way, the one whose wait closed it on ties: it leaves
+    // its queue and is rerouted around the rail it was waiting for, or, without an alternative, just
+    // drops its reservation. Either way the rest of the cycle is woken to retry on the next tick.
+    private void resolveDeadlock(List<String> cycle) {
+        metrics.countDeadlock();
+
+        String victimId = null;
+        Train victim = null;
+        for (String trainId : cycle) {
+            Train train = trainSimulator != null ? trainSimulator.getTrain(trainId) : null;
+            if (train != null && (victim == null || train.priority() < victim.priority())) {
+                victimId = trainId;
+                victim = train;
+            }
+        }
+        if (victim == null)
+            return;
+
+        dequeue(victimId);
+        clearWaitEdges(victimId);
+        TrainStation next = victim.getNextStation();
+        if (next != null) {
+            Route alternative = findAlternativeRoute(victim.currentStation(), next, victim);
+            if (alternative != null) {
+                updateTrainRoute(victimId, alternative);
+                metrics.countReroute();
+            }
+        }
+
+        for (String trainId : cycle)
+            waitingTrains.computeIfPresent(trainId, (id, remaining) -> 0.0);
+    }
+
+    public int waitForEdgeCount() {
+        int edges = 0;
+        for (Set<String> blockers : waitsFor.values())
+            edges += blockers.size();
+        return edges;
+    }
+
+    // Only the leg up to the next stop is replanned, by the train's own criterion; later stops are kept.
+    private Route findAlternativeRoute(TrainStation from, TrainStation to, Train train) {
+        Route currentRoute = train.route();
         int currentIndex = train.currentRouteIndex();
 
         if (currentIndex >= currentRoute.size() - 1) {
             return null;
         }
 
-        TrainStation destination = currentRoute.get(currentRoute.size() - 1);
+        int stop = currentRoute.nextStop(currentIndex);
 
         try {
-            return railwayManager.graph().shortestPathExcludingEdge(
-                    from, destination, Rail::distance, from, to).path;
+            ServiceClass serviceClass = train.serviceClass();
+            List<TrainStation> path = railwayManager.graph().shortestPathExcludingEdge(from,
+                    currentRoute.station(stop),
+                    TrainRoutePlanner.costFunction(railwayManager.routeCriterion(train.id())), from, to,
+                    serviceClass::canPassThrough).path;
+            if (path.size() < 2) {
+                return null;
+            }
+            return currentRoute.replaceLeg(currentIndex, currentIndex, stop, path, railwayManager.graph(),
+                    train.dynamics());
         } catch (Exception e) {
             return null;
         }
     }
 
-    private void updateTrainRoute(String trainId, List<TrainStation> newRoute) {
+    private void updateTrainRoute(String trainId, Route newRoute) {
         if (trainSimulator != null) {
-            Train train = trainSimulator.getAllTrains().stream()
-                    .filter(t -> t.id().equals(trainId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (train != null) {
-                train.updateRoute(newRoute);
-            }
+            trainSimulator.rerouteTrain(trainId, newRoute);
         }
     }
 
+    public boolean isOnRail(String trainId) {
+        TrainPosition position = trainPositions.get(trainId);
+        return position != null && position.currentRail != null;
+    }
+
     public boolean isTrainWaiting(String trainId) {
         return waitingTrains.containsKey(trainId);
     }
 
+    public int waitingTrainCount() {
+        return waitingTrains.size();
+    }
+
     public double getWaitingTime(String trainId) {
         return waitingTrains.getOrDefault(trainId, 0.0);
     }
 
+    private void startWaiting(String trainId, TrainStation from, TrainStation to, double waitTime) {
+        waitingTrains.put(trainId, waitTime);
+        metrics.countWait();
+        emit(SimulationEventType.WAIT_START, trainId, from, to, waitTime);
+    }
+
+    private void emit(SimulationEventType type, String trainId, TrainStation from, TrainStation to, double value) {
+        if (trainSimulator != null)
+            trainSimulator.emit(type, trainId, from, to, value);
+    }
+
     public void updateWaitingTimes(double deltaTime) {
         for (Map.Entry<String, Double> entry : waitingTrains.entrySet()) {
             double remainingTime = entry.getValue() - deltaTime;
             if (remainingTime <= 0) {
                 String trainId = entry.getKey();
                 waitingTrains.remove(trainId);
+                clearWaitEdges(trainId);
+                emit(SimulationEventType.WAIT_END, trainId, null, null, 0.0);
             } else {
                 entry.setValue(remainingTime);
             }
         }
     }
 
-    private void updateRailOccupancyTimes(double deltaTime) {
+    public void updateRailOccupancyTimes(double deltaTime) {
         for (Map<TrainStation, List<TrainInfo>> toMap : railOccupancy.values()) {
             for (List<TrainInfo> trainList : toMap.values()) {
                 for (TrainInfo info : trainList) {
@@ -252,11 +590,33 @@ public class TrafficController {
         }
     }
 
+    private static class QueuedTrain implements Comparable<QueuedTrain> {
+        final String trainId;
+        final RailSegment segment;
+        final int priority;
+        final long sequence;
+
+        QueuedTrain(String trainId, RailSegment segment, int priority, long sequence) {
+            this.trainId = trainId;
+            this.segment = segment;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(QueuedTrain other) {
+            if (priority != other.priority)
+                return Integer.compare(other.priority, priority);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
     private static class TrainPosition {
         TrainStation currentStation;
         TrainStation nextStation;
         RailSegment currentRail;
         double timeInRail;
+        double railTime;
 
         TrainPosition(TrainStation currentStation, TrainStation nextStation, double timeInRail) {
             this.currentStation = currentStation;
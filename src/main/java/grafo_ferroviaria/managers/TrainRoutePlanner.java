@@ -2,6 +2,7 @@ package grafo_ferroviaria.managers;
 
 import grafo_ferroviaria.models.*;
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 public class TrainRoutePlanner {
     private final RailwayManager railwayManager;
@@ -19,7 +20,7 @@ public class TrainRoutePlanner {
         }
 
         GenericGraph.PathResult<TrainStation> result = railwayManager.graph()
-                .shortestPath(from, to, Rail::distance, null);
+                .shortestPath(from, to, costFunction(RailwayManager.RouteCriterion.DISTANCE), null);
 
         if (result.cost == Double.POSITIVE_INFINITY) {
             throw new IllegalArgumentException(
@@ -38,7 +39,7 @@ public class TrainRoutePlanner {
         }
 
         GenericGraph.PathResult<TrainStation> result = railwayManager.graph()
-                .shortestPath(from, to, Rail::time, null);
+                .shortestPath(from, to, costFunction(RailwayManager.RouteCriterion.TIME), null);
 
         if (result.cost == Double.POSITIVE_INFINITY) {
             throw new IllegalArgumentException(
@@ -57,7 +58,7 @@ public class TrainRoutePlanner {
         }
 
         GenericGraph.PathResult<TrainStation> result = railwayManager.graph()
-                .shortestPath(from, to, Rail::price, null);
+                .shortestPath(from, to, costFunction(RailwayManager.RouteCriterion.PRICE), null);
 
         if (result.cost == Double.POSITIVE_INFINITY) {
             throw new IllegalArgumentException(
@@ -67,18 +68,104 @@ public class TrainRoutePlanner {
         return result.path;
     }
 
+    public List<TrainStation> planRoute(String fromStation, String toStation, RailwayManager.RouteCriterion criterion,
+            ServiceClass serviceClass) {
+        TrainStation from = railwayManager.stations().get(fromStation);
+        TrainStation to = railwayManager.stations().get(toStation);
+
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Estação não encontrada");
+        }
+        requireCanStop(from, serviceClass);
+        requireCanStop(to, serviceClass);
+
+        GenericGraph.PathResult<TrainStation> result = railwayManager.graph()
+                .shortestPath(from, to, costFunction(criterion), null, serviceClass::canPassThrough);
+
+        if (result.cost == Double.POSITIVE_INFINITY) {
+            throw new IllegalArgumentException("Não existe caminho para trens " + serviceClass + " entre "
+                    + from.name() + " e " + to.name());
+        }
+
+        return result.path;
+    }
+
+    static void requireCompatible(List<TrainStation> route, ServiceClass serviceClass) {
+        if (route.isEmpty())
+            return;
+
+        requireCanStop(route.get(0), serviceClass);
+        requireCanStop(route.get(route.size() - 1), serviceClass);
+        for (int i = 1; i < route.size() - 1; i++) {
+            TrainStation station = route.get(i);
+            if (!serviceClass.canPassThrough(station)) {
+                throw new IllegalArgumentException("Trens " + serviceClass + " não podem passar pela estação "
+                        + station.name() + " (" + station.type() + ")");
+            }
+        }
+    }
+
+    private static void requireCanStop(TrainStation station, ServiceClass serviceClass) {
+        if (!serviceClass.canStopAt(station.type())) {
+            throw new IllegalArgumentException("Trens " + serviceClass + " não podem parar na estação "
+                    + station.name() + " (" + station.type() + ")");
+        }
+    }
+
     public List<TrainStation> planMultiStopRoute(List<String> stationNames) {
-        List<TrainStation> route = new ArrayList<>();
+        List<TrainStation> stops = new ArrayList<>();
 
         for (String stationName : stationNames) {
             TrainStation station = railwayManager.stations().get(stationName);
             if (station == null) {
                 throw new IllegalArgumentException("Estação não encontrada: " + stationName);
             }
-            route.add(station);
+            stops.add(station);
         }
 
-        return route;
+        return railwayManager.getMultiStopOptimizer()
+                .connect(stops, RailwayManager.RouteCriterion.DISTANCE)
+                .path();
+    }
+
+    public MultiStopRouteOptimizer.MultiStopRoute planOptimizedMultiStopRoute(List<String> stopNames,
+            String fixedStart, String fixedEnd, RailwayManager.RouteCriterion criterion) {
+        return railwayManager.getMultiStopOptimizer().optimize(stopNames, fixedStart, fixedEnd, criterion);
+    }
+
+    private static final ToDoubleFunction<Rail> TIME_COST = new RailCost(RailwayManager.RouteCriterion.TIME);
+    private static final ToDoubleFunction<Rail> DISTANCE_COST = new RailCost(RailwayManager.RouteCriterion.DISTANCE);
+    private static final ToDoubleFunction<Rail> PRICE_COST = new RailCost(RailwayManager.RouteCriterion.PRICE);
+
+    public static ToDoubleFunction<Rail> costFunction(RailwayManager.RouteCriterion criterion) {
+        return switch (criterion) {
+            case TIME -> TIME_COST;
+            case DISTANCE -> DISTANCE_COST;
+            case PRICE -> PRICE_COST;
+        };
+    }
+
+    // Named so graph search events can report which criterion drove a search.
+    private static final class RailCost implements ToDoubleFunction<Rail> {
+        private final RailwayManager.RouteCriterion criterion;
+
+        RailCost(RailwayManager.RouteCriterion criterion) {
+            this.criterion = criterion;
+        }
+
+        @Override
+        public double applyAsDouble(Rail rail) {
+            return switch (criterion) {
+                case TIME -> rail.time();
+                case DISTANCE -> rail.distance();
+                case PRICE -> rail.price();
+            };
+        }
+
+        @Override
+        public String toString() {
+            return criterion.name();
+        }
     }
 
     public RouteStatistics calculateRouteStatistics(List<TrainStation> route) {
@@ -109,30 +196,27 @@ public class TrainRoutePlanner {
     }
 
     public RouteStatistics calculateRouteStatisticsForTrain(List<TrainStation> route, double trainMaxSpeed) {
+        return calculateRouteStatisticsForTrain(route, TrainDynamics.of(trainMaxSpeed));
+    }
+
+    public RouteStatistics calculateRouteStatisticsForTrain(List<TrainStation> route, TrainDynamics dynamics) {
         if (route.size() < 2) {
             throw new IllegalArgumentException("Rota deve ter pelo menos 2 estações");
         }
 
-        double totalDistance = 0.0;
-        double totalPrice = 0.0;
-        double totalTime = 0.0;
-        int numStops = route.size() - 1;
-
-        for (int i = 0; i < route.size() - 1; i++) {
-            TrainStation from = route.get(i);
-            TrainStation to = route.get(i + 1);
-
-            Rail rail = railwayManager.graph().neighbors(from).get(to);
-            if (rail == null) {
-                throw new IllegalArgumentException("Não existe conexão entre " + from.name() + " e " + to.name());
-            }
-
-            totalDistance += rail.distance();
-            totalPrice += rail.price();
-            totalTime += (rail.distance() / trainMaxSpeed) * 60;
+        LegSchedule schedule = LegSchedule.of(route, railwayManager.graph(), dynamics);
+        if (!schedule.isComplete()) {
+            int leg = schedule.firstMissingLeg();
+            throw new IllegalArgumentException("Não existe conexão entre " + route.get(leg).name() + " e "
+                    + route.get(leg + 1).name());
         }
 
-        return new RouteStatistics(totalDistance, totalPrice, (int) Math.round(totalTime), numStops);
+        return calculateRouteStatistics(schedule);
+    }
+
+    public RouteStatistics calculateRouteStatistics(LegSchedule schedule) {
+        return new RouteStatistics(schedule.totalDistance(), schedule.totalPrice(),
+                (int) Math.round(schedule.totalTime()), schedule.legs());
     }
 
     public static class RouteStatistics {
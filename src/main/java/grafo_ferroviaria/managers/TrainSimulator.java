@@ -1,39 +1,129 @@
 package grafo_ferroviaria.managers;
 
+import grafo_ferroviaria.metrics.Phase;
+import grafo_ferroviaria.metrics.SimulationMetrics;
+import grafo_ferroviaria.metrics.SimulationTickEvent;
 import grafo_ferroviaria.models.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class TrainSimulator {
     private final RailwayManager railwayManager;
     private final TrainRoutePlanner routePlanner;
     private final TrafficController trafficController;
     private final Map<String, Train> trains;
-    private final Map<String, List<TrainStation>> trainRoutes;
+    private final SimulationMetrics metrics;
+    private final List<SimulationEventListener> eventListeners = new CopyOnWriteArrayList<>();
+    private final PriorityQueue<ScheduledDeparture> departures = new PriorityQueue<>();
+    private final Set<String> scheduledIds = new HashSet<>();
+    private final Set<String> dispatchedIds = new HashSet<>();
+    private final Set<String> retiredIds = new HashSet<>();
+    private long departureSequence;
     private double simulationTime;
+    private Map<String, SimulationSnapshot.TrainFrame> lastFrames = Map.of();
 
     public TrainSimulator(RailwayManager railwayManager) {
         this.railwayManager = railwayManager;
         this.routePlanner = new TrainRoutePlanner(railwayManager);
         this.trafficController = new TrafficController(railwayManager, routePlanner);
         this.trains = new ConcurrentHashMap<>();
-        this.trainRoutes = new HashMap<>();
+        this.metrics = railwayManager.metrics();
         this.simulationTime = 0.0;
 
         this.trafficController.setTrainSimulator(this);
+
+        metrics.gauge("trens", trains::size);
+        metrics.gauge("trensAguardando", trafficController::waitingTrainCount);
+        metrics.gauge("arestasDeEspera", trafficController::waitForEdgeCount);
     }
 
     public void addTrain(String trainId, double maxSpeed, int capacity,
             TrainStation startingStation, List<TrainStation> route) {
-        Train train = new Train(trainId, maxSpeed, capacity, startingStation, route);
+        addTrain(trainId, maxSpeed, capacity, ServiceClass.PASSENGER, startingStation, route);
+    }
+
+    public void addTrain(String trainId, double maxSpeed, int capacity, ServiceClass serviceClass,
+            TrainStation startingStation, List<TrainStation> route) {
+        addTrain(trainId, TrainDynamics.of(maxSpeed), capacity, serviceClass, startingStation, route);
+    }
+
+    public void addTrain(String trainId, TrainDynamics dynamics, int capacity, ServiceClass serviceClass,
+            TrainStation startingStation, List<TrainStation> route) {
+        addTrain(trainId, dynamics, capacity, serviceClass, startingStation, route, null);
+    }
+
+    // stops are indices into route; null makes every station a stop.
+    public void addTrain(String trainId, TrainDynamics dynamics, int capacity, ServiceClass serviceClass,
+            TrainStation startingStation, List<TrainStation> route, int[] stops) {
+        requireNewId(trainId);
+        Train train = new Train(trainId, dynamics, capacity, serviceClass, startingStation,
+                Route.of(route, stops, railwayManager.graph(), dynamics));
         trains.put(trainId, train);
-        trainRoutes.put(trainId, new ArrayList<>(route));
         trafficController.registerTrain(trainId, train);
     }
 
+    // The train only joins the simulation at its departure time, so thousands of future trips cost
+    // nothing per tick: each step just peeks at the earliest pending departure.
+    public void scheduleDeparture(double departureTime, String trainId, TrainDynamics dynamics, int capacity,
+            ServiceClass serviceClass, List<TrainStation> route) {
+        scheduleDeparture(departureTime, trainId, dynamics, capacity, serviceClass, route, null);
+    }
+
+    public void scheduleDeparture(double departureTime, String trainId, TrainDynamics dynamics, int capacity,
+            ServiceClass serviceClass, List<TrainStation> route, int[] stops) {
+        if (route == null || route.size() < 2) {
+            throw new IllegalArgumentException("Rota deve ter pelo menos 2 estações");
+        }
+        requireNewId(trainId);
+        scheduledIds.add(trainId);
+        departures.add(new ScheduledDeparture(departureTime, departureSequence++, trainId, dynamics, capacity,
+                serviceClass, List.copyOf(route), stops != null ? stops.clone() : null));
+    }
+
+    // An id names one train for the whole run, whether it is still waiting to depart or already running.
+    private void requireNewId(String trainId) {
+        if (trains.containsKey(trainId) || scheduledIds.contains(trainId) || retiredIds.contains(trainId))
+            throw new IllegalArgumentException("Trem já existe: " + trainId);
+    }
+
+    public int pendingDepartures() {
+        return departures.size();
+    }
+
+    public double nextDepartureTime() {
+        ScheduledDeparture next = departures.peek();
+        return next != null ? next.time : Double.POSITIVE_INFINITY;
+    }
+
+    public void clearDepartures() {
+        departures.clear();
+        scheduledIds.clear();
+    }
+
+    private void releaseDueDepartures() {
+        while (!departures.isEmpty() && departures.peek().time <= simulationTime) {
+            ScheduledDeparture departure = departures.poll();
+            scheduledIds.remove(departure.trainId);
+            addTrain(departure.trainId, departure.dynamics, departure.capacity, departure.serviceClass,
+                    departure.route.get(0), departure.route, departure.stops);
+            startTrain(departure.trainId);
+            dispatchedIds.add(departure.trainId);
+        }
+    }
+
+    // Trains released from the departure queue leave the simulation on arrival, so each tick costs only the
+    // trains still running. Their ids stay taken until the clock is reset.
+    private void retire(String trainId) {
+        dispatchedIds.remove(trainId);
+        retiredIds.add(trainId);
+        trains.remove(trainId);
+        trafficController.unregisterTrain(trainId);
+    }
+
     public void removeTrain(String trainId) {
+        dispatchedIds.remove(trainId);
         trains.remove(trainId);
-        trainRoutes.remove(trainId);
         trafficController.unregisterTrain(trainId);
     }
 
@@ -42,6 +132,7 @@ public class TrainSimulator {
         if (train != null) {
             train.startMoving();
             calculateTimeToNextStation(train);
+            emit(SimulationEventType.DEPARTURE, trainId, train.currentStation(), train.getNextStation(), 0.0);
         }
     }
 
@@ -52,26 +143,60 @@ public class TrainSimulator {
         }
     }
 
+    public void rerouteTrain(String trainId, Route newRoute) {
+        Train train = trains.get(trainId);
+        if (train != null) {
+            train.updateRoute(newRoute);
+            emit(SimulationEventType.REROUTE, trainId, train.currentStation(), newRoute.last(),
+                    newRoute.schedule().totalTime());
+        }
+    }
+
+    public void addEventListener(SimulationEventListener listener) {
+        eventListeners.add(listener);
+    }
+
+    public void removeEventListener(SimulationEventListener listener) {
+        eventListeners.remove(listener);
+    }
+
+    void emit(SimulationEventType type, String trainId, TrainStation from, TrainStation to, double value) {
+        for (SimulationEventListener listener : eventListeners)
+            listener.onEvent(type, simulationTime, trainId, from, to, value);
+    }
+
     private void calculateTimeToNextStation(Train train) {
-        TrainStation current = train.currentStation();
-        TrainStation next = train.getNextStation();
-
-        if (next != null) {
-            Rail rail = railwayManager.graph().neighbors(current).get(next);
-            if (rail != null) {
-                double distance = rail.distance();
-                double time = (distance / train.maxSpeed()) * 60;
-                train.setTimeToNextStation(time);
-            }
+        if (train.hasReachedDestination())
+            return;
+
+        double time = train.route().schedule().legTime(train.currentRouteIndex());
+        if (!Double.isNaN(time)) {
+            train.setTimeToNextStation(time);
         }
     }
 
     public void updateSimulation(double deltaTime) {
+        SimulationTickEvent event = new SimulationTickEvent();
+        event.begin();
+        long tickStart = metrics.startTimer();
         simulationTime += deltaTime;
+        int moved = 0;
+        releaseDueDepartures();
 
+        long phaseStart = metrics.startTimer();
         trafficController.updateWaitingTimes(deltaTime);
+        metrics.stopTimer(Phase.WAITING_UPDATE, phaseStart);
+
+        phaseStart = metrics.startTimer();
+        trafficController.updateRailOccupancyTimes(deltaTime);
+        metrics.stopTimer(Phase.OCCUPANCY_AGING, phaseStart);
 
         for (Train train : trains.values()) {
+            if (train.isDwelling()) {
+                train.dwell(deltaTime);
+                continue;
+            }
+
             if (!train.isMoving() && !train.hasReachedDestination() && !trafficController.isTrainWaiting(train.id())) {
                 calculateTimeToNextStation(train);
             }
@@ -79,9 +204,27 @@ public class TrainSimulator {
             trafficController.updateTrainPosition(train.id(), train, deltaTime);
 
             if (!trafficController.isTrainWaiting(train.id())) {
+                if (train.isMoving())
+                    moved++;
+                boolean arrived = train.hasReachedDestination();
                 train.updatePosition(deltaTime);
+                if (!arrived && train.hasReachedDestination()) {
+                    emit(SimulationEventType.ARRIVAL, train.id(), train.currentStation(), null, 0.0);
+                    if (dispatchedIds.contains(train.id()))
+                        retire(train.id());
+                }
             }
         }
+        metrics.stopTimer(Phase.TICK, tickStart);
+
+        if (event.shouldCommit()) {
+            event.simulationTime = simulationTime;
+            event.deltaTime = deltaTime;
+            event.trains = trains.size();
+            event.trainsMoved = moved;
+            event.trainsWaiting = trafficController.waitingTrainCount();
+            event.commit();
+        }
     }
 
     public Map<String, TrainStatus> getTrainStatus() {
@@ -125,14 +268,66 @@ public class TrainSimulator {
                 trafficController.getWaitingTime(trainId));
     }
 
+    public SimulationSnapshot snapshot(long sequence) {
+        List<SimulationSnapshot.TrainFrame> frames = new ArrayList<>(trains.size());
+        Map<String, SimulationSnapshot.TrainFrame> byId = new HashMap<>(trains.size() * 2);
+        Set<String> changed = new HashSet<>();
+        for (Train train : trains.values()) {
+            TrainStation next = train.getNextStation();
+            double progress = next != null ? train.legProgress() : 0.0;
+
+            SimulationSnapshot.TrainFrame frame = new SimulationSnapshot.TrainFrame(
+                    train.id(),
+                    train.currentStation(),
+                    next,
+                    progress,
+                    train.currentSpeed(),
+                    train.isMoving(),
+                    train.timeToNextStation(),
+                    train.hasReachedDestination(),
+                    trafficController.isTrainWaiting(train.id()),
+                    trafficController.getWaitingTime(train.id()),
+                    train.route().schedule());
+
+            SimulationSnapshot.TrainFrame last = lastFrames.get(train.id());
+            if (frame.hasSameState(last))
+                frame = last;
+            else
+                changed.add(train.id());
+
+            frames.add(frame);
+            byId.put(train.id(), frame);
+        }
+        frames.sort(Comparator.comparing(SimulationSnapshot.TrainFrame::trainId));
+
+        boolean membershipChanged = !byId.keySet().equals(lastFrames.keySet());
+        lastFrames = byId;
+
+        List<TrainStation[]> occupied = new ArrayList<>();
+        trafficController.forEachOccupiedRail((from, to) -> occupied.add(new TrainStation[] { from, to }));
+
+        return new SimulationSnapshot(sequence, simulationTime, System.nanoTime(), frames, occupied,
+                changed, membershipChanged);
+    }
+
     public Collection<Train> getAllTrains() {
         return trains.values();
     }
+
+    public Train getTrain(String trainId) {
+        return trains.get(trainId);
+    }
     
     public double getSimulationTime() {
         return simulationTime;
     }
 
+    // A reset starts a new run, in which the ids of retired trains may be used again.
+    public void resetClock() {
+        simulationTime = 0.0;
+        retiredIds.clear();
+    }
+
     public TrafficController getTrafficController() {
         return trafficController;
     }
@@ -145,6 +340,35 @@ public class TrainSimulator {
         return trafficController.getWaitingTime(trainId);
     }
 
+    private static final class ScheduledDeparture implements Comparable<ScheduledDeparture> {
+        final double time;
+        final long sequence;
+        final String trainId;
+        final TrainDynamics dynamics;
+        final int capacity;
+        final ServiceClass serviceClass;
+        final List<TrainStation> route;
+        final int[] stops;
+
+        ScheduledDeparture(double time, long sequence, String trainId, TrainDynamics dynamics, int capacity,
+                ServiceClass serviceClass, List<TrainStation> route, int[] stops) {
+            this.time = time;
+            this.sequence = sequence;
+            this.trainId = trainId;
+            this.dynamics = dynamics;
+            this.capacity = capacity;
+            this.serviceClass = serviceClass;
+            this.route = route;
+            this.stops = stops;
+        }
+
+        @Override
+        public int compareTo(ScheduledDeparture other) {
+            int byTime = Double.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
     public static class TrainStatus {
         private final String trainId;
         private final TrainStation currentStation;
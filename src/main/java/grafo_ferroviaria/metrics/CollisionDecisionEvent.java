@@ -0,0 +1,33 @@
+package grafo_ferroviaria.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("grafo_ferroviaria.CollisionDecision")
+@Label("Decisão de conflito")
+@Category({ "Ferrovia", "Tráfego" })
+@Description("Escolha entre aguardar o trilho ocupado ou rerotear em TrafficController.handleCollision")
+@StackTrace(false)
+public class CollisionDecisionEvent extends Event {
+    @Label("Trem")
+    public String trainId;
+
+    @Label("Origem")
+    public String from;
+
+    @Label("Destino")
+    public String to;
+
+    @Label("Tempo de espera (min)")
+    public double waitTime;
+
+    @Label("Tempo da rota alternativa (min)")
+    public double alternativeTime;
+
+    @Label("Rerroteado")
+    public boolean rerouted;
+}
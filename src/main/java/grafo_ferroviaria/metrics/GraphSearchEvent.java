@@ -0,0 +1,27 @@
+package grafo_ferroviaria.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("grafo_ferroviaria.GraphSearch")
+@Label("Busca no grafo")
+@Category({ "Ferrovia", "Roteamento" })
+@Description("Execução de Dijkstra em GenericGraph")
+@StackTrace(false)
+public class GraphSearchEvent extends Event {
+    @Label("Método")
+    public String search;
+
+    @Label("Critério")
+    public String criterion;
+
+    @Label("Vértices assentados")
+    public int settledVertices;
+
+    @Label("Vértices do grafo")
+    public int vertices;
+}
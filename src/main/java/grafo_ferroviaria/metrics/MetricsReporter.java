@@ -0,0 +1,30 @@
+package grafo_ferroviaria.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class MetricsReporter implements AutoCloseable {
+    private final ScheduledExecutorService scheduler;
+
+    public MetricsReporter(SimulationMetrics metrics, PrintStream out, long periodSeconds) {
+        if (periodSeconds <= 0)
+            throw new IllegalArgumentException("Período do relatório deve ser positivo");
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(() -> {
+            if (metrics.isEnabled())
+                out.print(metrics.report());
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
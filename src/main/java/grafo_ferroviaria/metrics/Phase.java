@@ -0,0 +1,10 @@
+package grafo_ferroviaria.metrics;
+
+public enum Phase {
+    TICK,
+    WAITING_UPDATE,
+    OCCUPANCY_AGING,
+    COLLISION_HANDLING,
+    REROUTING,
+    DEADLOCK_DETECTION
+}
@@ -0,0 +1,193 @@
+package grafo_ferroviaria.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class SimulationMetrics implements SimulationMetricsMXBean {
+    public static final String ENABLED_PROPERTY = "grafo_ferroviaria.metrics";
+    public static final String OBJECT_NAME = "grafo_ferroviaria:type=SimulationMetrics";
+
+    private volatile boolean enabled;
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private final LongAdder reroutes = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder deadlocks = new LongAdder();
+    private final LongAdder dijkstraRuns = new LongAdder();
+    private final LongAdder nodesSettled = new LongAdder();
+
+    public SimulationMetrics() {
+        this(Boolean.getBoolean(ENABLED_PROPERTY));
+    }
+
+    public SimulationMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (Phase phase : Phase.values())
+            phases.put(phase, new LatencyHistogram());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stopTimer(Phase phase, long startNanos) {
+        if (startNanos != 0L)
+            phases.get(phase).record(System.nanoTime() - startNanos);
+    }
+
+    public void countReroute() {
+        if (enabled)
+            reroutes.increment();
+    }
+
+    public void countReroutes(int count) {
+        if (enabled && count > 0)
+            reroutes.add(count);
+    }
+
+    public void countWait() {
+        if (enabled)
+            waits.increment();
+    }
+
+    public void countDeadlock() {
+        if (enabled)
+            deadlocks.increment();
+    }
+
+    public void recordSearch(int settled) {
+        if (enabled) {
+            dijkstraRuns.increment();
+            nodesSettled.add(settled);
+        }
+    }
+
+    public void gauge(String name, DoubleSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return phases.get(phase);
+    }
+
+    @Override
+    public long getTicks() {
+        return phases.get(Phase.TICK).count();
+    }
+
+    @Override
+    public long getReroutes() {
+        return reroutes.sum();
+    }
+
+    @Override
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    @Override
+    public long getDeadlocks() {
+        return deadlocks.sum();
+    }
+
+    @Override
+    public long getDijkstraRuns() {
+        return dijkstraRuns.sum();
+    }
+
+    @Override
+    public long getNodesSettled() {
+        return nodesSettled.sum();
+    }
+
+    @Override
+    public Map<String, Double> getPhaseMeanMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<Phase, LatencyHistogram> e : phases.entrySet())
+            result.put(e.getKey().name(), e.getValue().mean() / 1_000.0);
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getPhaseP99Micros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<Phase, LatencyHistogram> e : phases.entrySet())
+            result.put(e.getKey().name(), e.getValue().percentile(99.0) / 1_000.0);
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getPhaseMaxMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<Phase, LatencyHistogram> e : phases.entrySet())
+            result.put(e.getKey().name(), e.getValue().max() / 1_000.0);
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getGauges() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, DoubleSupplier> e : gauges.entrySet())
+            result.put(e.getKey(), e.getValue().getAsDouble());
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : phases.values())
+            histogram.reset();
+        reroutes.reset();
+        waits.reset();
+        deadlocks.reset();
+        dijkstraRuns.reset();
+        nodesSettled.reset();
+    }
+
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name))
+                server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.out.println("Erro ao registrar métricas via JMX: " + e.getMessage());
+        }
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Métricas da simulação: ticks=%d reroteamentos=%d esperas=%d impasses=%d dijkstra=%d nós=%d%n",
+                getTicks(), getReroutes(), getWaits(), getDeadlocks(), getDijkstraRuns(), getNodesSettled()));
+        for (Map.Entry<Phase, LatencyHistogram> e : phases.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (h.count() == 0)
+                continue;
+            sb.append(String.format("   %-18s n=%d média=%.1fµs p50=%.1fµs p99=%.1fµs máx=%.1fµs%n",
+                    e.getKey(), h.count(), h.mean() / 1_000.0, h.percentile(50.0) / 1_000.0,
+                    h.percentile(99.0) / 1_000.0, h.max() / 1_000.0));
+        }
+        for (Map.Entry<String, Double> e : getGauges().entrySet())
+            sb.append(String.format("   %s=%.0f%n", e.getKey(), e.getValue()));
+        return sb.toString();
+    }
+}
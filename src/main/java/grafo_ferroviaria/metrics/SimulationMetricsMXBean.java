@@ -0,0 +1,31 @@
+package grafo_ferroviaria.metrics;
+
+import java.util.Map;
+
+public interface SimulationMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getTicks();
+
+    long getReroutes();
+
+    long getWaits();
+
+    long getDeadlocks();
+
+    long getDijkstraRuns();
+
+    long getNodesSettled();
+
+    Map<String, Double> getPhaseMeanMicros();
+
+    Map<String, Double> getPhaseP99Micros();
+
+    Map<String, Double> getPhaseMaxMicros();
+
+    Map<String, Double> getGauges();
+
+    void reset();
+}
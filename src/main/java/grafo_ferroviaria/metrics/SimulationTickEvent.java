@@ -0,0 +1,30 @@
+package grafo_ferroviaria.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("grafo_ferroviaria.SimulationTick")
+@Label("Tick da simulação")
+@Category({ "Ferrovia", "Simulação" })
+@Description("Duração de um passo de TrainSimulator.updateSimulation")
+@StackTrace(false)
+public class SimulationTickEvent extends Event {
+    @Label("Tempo simulado (min)")
+    public double simulationTime;
+
+    @Label("Passo (min)")
+    public double deltaTime;
+
+    @Label("Trens")
+    public int trains;
+
+    @Label("Trens em movimento")
+    public int trainsMoved;
+
+    @Label("Trens aguardando")
+    public int trainsWaiting;
+}
@@ -1,35 +1,237 @@
 package grafo_ferroviaria.models;
 
+import grafo_ferroviaria.metrics.GraphSearchEvent;
+
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
 
+// A graph is either mutable or a frozen snapshot. Snapshots share adjacency maps with the graph they were
+// taken from; the mutable graph copies the outer maps and each touched vertex map on its first write after
+// a snapshot, so a published snapshot never changes and can be read by any number of threads.
 public class GenericGraph<V, E> {
     private final boolean directed;
+    private final boolean frozen;
+
+    private Map<V, Map<V, E>> adj;
+    private Map<V, Map<V, E>> radj;
+    private Map<V, Set<V>> closed;
+
+    private boolean shared;
+    private boolean innerShared;
+    private final Set<V> ownedAdj = new HashSet<>();
+    private final Set<V> ownedRadj = new HashSet<>();
+    private final Set<V> ownedClosed = new HashSet<>();
 
-    private final Map<V, Map<V, E>> adj = new HashMap<>();
+    private long version;
+    private volatile SearchListener searchListener;
 
     public GenericGraph(boolean directed) {
         this.directed = directed;
+        this.frozen = false;
+        this.adj = new HashMap<>();
+        this.radj = new HashMap<>();
+        this.closed = new HashMap<>();
+    }
+
+    private GenericGraph(GenericGraph<V, E> source) {
+        this.directed = source.directed;
+        this.frozen = true;
+        this.adj = source.adj;
+        this.radj = source.radj;
+        this.closed = source.closed;
+        this.version = source.version;
+        this.searchListener = source.searchListener;
+    }
+
+    public GenericGraph<V, E> snapshot() {
+        if (frozen)
+            return this;
+
+        shared = true;
+        innerShared = true;
+        ownedAdj.clear();
+        ownedRadj.clear();
+        ownedClosed.clear();
+        return new GenericGraph<>(this);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void beginMutation() {
+        if (frozen)
+            throw new IllegalStateException("Grafo somente leitura");
+        if (shared) {
+            adj = new HashMap<>(adj);
+            radj = new HashMap<>(radj);
+            closed = new HashMap<>(closed);
+            shared = false;
+        }
+    }
+
+    private Map<V, E> out(V v) {
+        Map<V, E> m = adj.get(v);
+        if (innerShared && ownedAdj.add(v)) {
+            m = new HashMap<>(m);
+            adj.put(v, m);
+        }
+        return m;
+    }
+
+    private Map<V, E> in(V v) {
+        Map<V, E> m = radj.get(v);
+        if (innerShared && ownedRadj.add(v)) {
+            m = new HashMap<>(m);
+            radj.put(v, m);
+        }
+        return m;
+    }
+
+    private Set<V> closedFrom(V v) {
+        Set<V> targets = closed.get(v);
+        if (targets == null) {
+            targets = new HashSet<>();
+            closed.put(v, targets);
+            if (innerShared)
+                ownedClosed.add(v);
+        } else if (innerShared && ownedClosed.add(v)) {
+            targets = new HashSet<>(targets);
+            closed.put(v, targets);
+        }
+        return targets;
     }
 
     public void addVertex(V v) {
-        adj.putIfAbsent(v, new HashMap<>());
+        if (adj.containsKey(v) && (!directed || radj.containsKey(v)))
+            return;
+
+        beginMutation();
+        if (adj.putIfAbsent(v, new HashMap<>()) == null) {
+            if (innerShared)
+                ownedAdj.add(v);
+            version++;
+        }
+        if (directed && radj.putIfAbsent(v, new HashMap<>()) == null && innerShared)
+            ownedRadj.add(v);
     }
 
     public void addEdge(V from, V to, E data) {
         addVertex(from);
         addVertex(to);
-        adj.get(from).put(to, data);
+        beginMutation();
+        out(from).put(to, data);
+        if (!directed)
+            out(to).put(from, data);
+        else
+            in(to).put(from, data);
+        version++;
+    }
+
+    public E removeEdge(V from, V to) {
+        Map<V, E> current = adj.get(from);
+        if (current == null || !current.containsKey(to))
+            return null;
+
+        beginMutation();
+        E removed = out(from).remove(to);
+        if (!directed)
+            out(to).remove(from);
+        else
+            in(to).remove(from);
+        reopenEdge(from, to);
+        version++;
+        return removed;
+    }
+
+    public E updateEdge(V from, V to, E data) {
+        Map<V, E> current = adj.get(from);
+        if (current == null || !current.containsKey(to))
+            throw new IllegalArgumentException("Aresta inexistente: " + from + " -> " + to);
+
+        beginMutation();
+        E previous = out(from).put(to, data);
         if (!directed)
-            adj.get(to).put(from, data);
+            out(to).put(from, data);
+        else
+            in(to).put(from, data);
+        version++;
+        return previous;
+    }
+
+    public boolean hasEdge(V from, V to) {
+        return adjacent(from).containsKey(to);
+    }
+
+    public void closeEdge(V from, V to) {
+        if (!hasEdge(from, to))
+            throw new IllegalArgumentException("Aresta inexistente: " + from + " -> " + to);
+
+        beginMutation();
+        closedFrom(from).add(to);
+        if (!directed)
+            closedFrom(to).add(from);
+        version++;
+    }
+
+    public void reopenEdge(V from, V to) {
+        if (!isClosed(from, to) && (directed || !isClosed(to, from)))
+            return;
+
+        beginMutation();
+        boolean changed = removeClosure(from, to);
+        if (!directed)
+            changed |= removeClosure(to, from);
+        if (changed)
+            version++;
+    }
+
+    private boolean removeClosure(V from, V to) {
+        Set<V> targets = closed.get(from);
+        if (targets == null || !targets.contains(to))
+            return false;
+
+        targets = closedFrom(from);
+        targets.remove(to);
+        if (targets.isEmpty())
+            closed.remove(from);
+        return true;
+    }
+
+    public boolean isClosed(V from, V to) {
+        if (closed.isEmpty())
+            return false;
+        Set<V> targets = closed.get(from);
+        return targets != null && targets.contains(to);
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public void setSearchListener(SearchListener listener) {
+        this.searchListener = listener;
     }
 
     public boolean hasVertex(V v) {
         return adj.containsKey(v);
     }
 
+    // Read-only views: the inner maps may be shared with published snapshots.
     public Map<V, E> neighbors(V v) {
+        return Collections.unmodifiableMap(adjacent(v));
+    }
+
+    public Map<V, E> inNeighbors(V v) {
+        return directed ? Collections.unmodifiableMap(radj.getOrDefault(v, Map.of())) : neighbors(v);
+    }
+
+    private Map<V, E> adjacent(V v) {
         return adj.getOrDefault(v, Map.of());
     }
 
@@ -43,6 +245,9 @@ public class GenericGraph<V, E> {
             Predicate<? super E> allowed) {
         requireVertex(source);
 
+        GraphSearchEvent event = new GraphSearchEvent();
+        event.begin();
+
         Map<V, Double> dist = new HashMap<>();
         for (V v : adj.keySet())
             dist.put(v, Double.POSITIVE_INFINITY);
@@ -50,15 +255,19 @@ public class GenericGraph<V, E> {
 
         PriorityQueue<V> pq = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
         pq.add(source);
+        int settled = 0;
 
         while (!pq.isEmpty()) {
             V u = pq.poll();
+            settled++;
             double du = dist.get(u);
-            for (Map.Entry<V, E> e : neighbors(u).entrySet()) {
+            for (Map.Entry<V, E> e : adjacent(u).entrySet()) {
                 V v = e.getKey();
                 E data = e.getValue();
                 if (allowed != null && !allowed.test(data))
                     continue;
+                if (isClosed(u, v))
+                    continue;
 
                 double w = cost.applyAsDouble(data);
                 if (w < 0)
@@ -72,6 +281,7 @@ public class GenericGraph<V, E> {
                 }
             }
         }
+        searchCompleted(event, "dijkstraDistances", cost, settled);
         return dist;
     }
 
@@ -79,9 +289,21 @@ public class GenericGraph<V, E> {
             V source, V target,
             ToDoubleFunction<? super E> cost,
             Predicate<? super E> allowed) {
+        return shortestPath(source, target, cost, allowed, null);
+    }
+
+    // Vertices rejected by passable can still be the source or target, but paths never run through them.
+    public PathResult<V> shortestPath(
+            V source, V target,
+            ToDoubleFunction<? super E> cost,
+            Predicate<? super E> allowed,
+            Predicate<? super V> passable) {
         requireVertex(source);
         requireVertex(target);
 
+        GraphSearchEvent event = new GraphSearchEvent();
+        event.begin();
+
         Map<V, Double> dist = new HashMap<>();
         Map<V, V> prev = new HashMap<>();
         for (V v : adj.keySet())
@@ -90,18 +312,24 @@ public class GenericGraph<V, E> {
 
         PriorityQueue<V> pq = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
         pq.add(source);
+        int settled = 0;
 
         while (!pq.isEmpty()) {
             V u = pq.poll();
+            settled++;
             if (u.equals(target))
                 break;
+            if (passable != null && !u.equals(source) && !passable.test(u))
+                continue;
 
             double du = dist.get(u);
-            for (Map.Entry<V, E> e : neighbors(u).entrySet()) {
+            for (Map.Entry<V, E> e : adjacent(u).entrySet()) {
                 V v = e.getKey();
                 E data = e.getValue();
                 if (allowed != null && !allowed.test(data))
                     continue;
+                if (isClosed(u, v))
+                    continue;
 
                 double w = cost.applyAsDouble(data);
                 if (w < 0)
@@ -116,6 +344,7 @@ public class GenericGraph<V, E> {
                 }
             }
         }
+        searchCompleted(event, "shortestPath", cost, settled);
 
         double d = dist.get(target);
         if (Double.isInfinite(d))
@@ -135,9 +364,20 @@ public class GenericGraph<V, E> {
             V source, V target,
             ToDoubleFunction<? super E> cost,
             V excludedFrom, V excludedTo) {
+        return shortestPathExcludingEdge(source, target, cost, excludedFrom, excludedTo, null);
+    }
+
+    public PathResult<V> shortestPathExcludingEdge(
+            V source, V target,
+            ToDoubleFunction<? super E> cost,
+            V excludedFrom, V excludedTo,
+            Predicate<? super V> passable) {
         requireVertex(source);
         requireVertex(target);
 
+        GraphSearchEvent event = new GraphSearchEvent();
+        event.begin();
+
         Map<V, Double> dist = new HashMap<>();
         Map<V, V> prev = new HashMap<>();
         for (V v : adj.keySet())
@@ -146,19 +386,25 @@ public class GenericGraph<V, E> {
 
         PriorityQueue<V> pq = new PriorityQueue<>(Comparator.comparingDouble(dist::get));
         pq.add(source);
+        int settled = 0;
 
         while (!pq.isEmpty()) {
             V u = pq.poll();
+            settled++;
             if (u.equals(target))
                 break;
+            if (passable != null && !u.equals(source) && !passable.test(u))
+                continue;
 
             double du = dist.get(u);
-            for (Map.Entry<V, E> e : neighbors(u).entrySet()) {
+            for (Map.Entry<V, E> e : adjacent(u).entrySet()) {
                 V v = e.getKey();
                 E data = e.getValue();
 
                 if (u.equals(excludedFrom) && v.equals(excludedTo))
                     continue;
+                if (isClosed(u, v))
+                    continue;
 
                 double w = cost.applyAsDouble(data);
                 if (w < 0)
@@ -173,6 +419,7 @@ public class GenericGraph<V, E> {
                 }
             }
         }
+        searchCompleted(event, "shortestPathExcludingEdge", cost, settled);
 
         double d = dist.get(target);
         if (Double.isInfinite(d))
@@ -188,11 +435,90 @@ public class GenericGraph<V, E> {
         return new PathResult<>(path, d);
     }
 
+    public ShortestPathTree<V> shortestPathTree(
+            V source,
+            ToDoubleFunction<? super E> cost,
+            Predicate<? super E> allowed) {
+        return shortestPathTree(source, cost, allowed, null);
+    }
+
+    public ShortestPathTree<V> shortestPathTree(
+            V source,
+            ToDoubleFunction<? super E> cost,
+            Predicate<? super E> allowed,
+            Predicate<? super V> passable) {
+        requireVertex(source);
+
+        GraphSearchEvent event = new GraphSearchEvent();
+        event.begin();
+
+        Map<V, Double> dist = new HashMap<>();
+        Map<V, V> prev = new HashMap<>();
+        dist.put(source, 0.0);
+
+        PriorityQueue<QueueEntry<V>> pq = new PriorityQueue<>();
+        pq.add(new QueueEntry<>(source, 0.0));
+        int settled = 0;
+
+        while (!pq.isEmpty()) {
+            QueueEntry<V> top = pq.poll();
+            V u = top.vertex;
+            double du = top.dist;
+            if (du > dist.get(u))
+                continue;
+            settled++;
+            if (passable != null && !u.equals(source) && !passable.test(u))
+                continue;
+
+            for (Map.Entry<V, E> e : adjacent(u).entrySet()) {
+                V v = e.getKey();
+                E data = e.getValue();
+                if (allowed != null && !allowed.test(data))
+                    continue;
+                if (isClosed(u, v))
+                    continue;
+
+                double w = cost.applyAsDouble(data);
+                if (w < 0)
+                    throw new IllegalArgumentException("Dijkstra exige custos não negativos.");
+
+                double alt = du + w;
+                Double dv = dist.get(v);
+                if (dv == null || alt < dv) {
+                    dist.put(v, alt);
+                    prev.put(v, u);
+                    pq.add(new QueueEntry<>(v, alt));
+                }
+            }
+        }
+        searchCompleted(event, "shortestPathTree", cost, settled);
+        return new ShortestPathTree<>(source, dist, prev);
+    }
+
+    private void searchCompleted(GraphSearchEvent event, String search, ToDoubleFunction<? super E> cost,
+            int settled) {
+        SearchListener listener = searchListener;
+        if (listener != null)
+            listener.searchCompleted(settled);
+
+        if (event.shouldCommit()) {
+            event.search = search;
+            event.criterion = cost.getClass().isHidden() ? cost.getClass().getSimpleName() : cost.toString();
+            event.settledVertices = settled;
+            event.vertices = adj.size();
+            event.commit();
+        }
+    }
+
     private void requireVertex(V v) {
         if (!adj.containsKey(v))
             throw new IllegalArgumentException("Vértice inexistente: " + v);
     }
 
+    public interface SearchListener {
+        void searchCompleted(int settledVertices);
+    }
+
     public static final class PathResult<V> {
         public final List<V> path;
         public final double cost;
@@ -208,6 +534,52 @@ public class GenericGraph<V, E> {
         }
     }
 
+    public static final class ShortestPathTree<V> {
+        private final V source;
+        private final Map<V, Double> dist;
+        private final Map<V, V> prev;
+
+        ShortestPathTree(V source, Map<V, Double> dist, Map<V, V> prev) {
+            this.source = source;
+            this.dist = dist;
+            this.prev = prev;
+        }
+
+        public V source() {
+            return source;
+        }
+
+        public double distanceTo(V target) {
+            return dist.getOrDefault(target, Double.POSITIVE_INFINITY);
+        }
+
+        public List<V> pathTo(V target) {
+            if (!dist.containsKey(target))
+                return List.of();
+
+            List<V> path = new ArrayList<>();
+            for (V at = target; at != null; at = prev.get(at))
+                path.add(at);
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    private static final class QueueEntry<V> implements Comparable<QueueEntry<V>> {
+        final V vertex;
+        final double dist;
+
+        QueueEntry(V vertex, double dist) {
+            this.vertex = vertex;
+            this.dist = dist;
+        }
+
+        @Override
+        public int compareTo(QueueEntry<V> other) {
+            return Double.compare(dist, other.dist);
+        }
+    }
+
     public interface Feature<E> extends ToDoubleFunction<E> {
         static <E> Feature<E> of(ToDoubleFunction<E> f) {
             return f::applyAsDouble;
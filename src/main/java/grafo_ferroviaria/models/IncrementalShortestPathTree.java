@@ -0,0 +1,184 @@
+package grafo_ferroviaria.models;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+public final class IncrementalShortestPathTree<V, E> {
+    private final Supplier<? extends GenericGraph<V, E>> graph;
+    private final V root;
+    private final ToDoubleFunction<? super E> cost;
+
+    private final Map<V, Double> dist = new HashMap<>();
+    private final Map<V, V> next = new HashMap<>();
+    private final Map<V, Set<V>> children = new HashMap<>();
+
+    public IncrementalShortestPathTree(GenericGraph<V, E> graph, V root, ToDoubleFunction<? super E> cost) {
+        this(() -> graph, root, cost);
+    }
+
+    // Follows the supplier so a tree kept across edits always repairs against the latest graph snapshot.
+    public IncrementalShortestPathTree(Supplier<? extends GenericGraph<V, E>> graph, V root,
+            ToDoubleFunction<? super E> cost) {
+        this.graph = graph;
+        this.root = root;
+        this.cost = cost;
+        rebuild();
+    }
+
+    public V root() {
+        return root;
+    }
+
+    public double distanceFrom(V v) {
+        return dist.getOrDefault(v, Double.POSITIVE_INFINITY);
+    }
+
+    public List<V> pathFrom(V v) {
+        if (!dist.containsKey(v))
+            return List.of();
+
+        List<V> path = new ArrayList<>();
+        for (V at = v; at != null; at = next.get(at))
+            path.add(at);
+        return path;
+    }
+
+    public int rebuild() {
+        if (!graph.get().hasVertex(root))
+            throw new IllegalArgumentException("Vértice inexistente: " + root);
+
+        dist.clear();
+        next.clear();
+        children.clear();
+        dist.put(root, 0.0);
+
+        PriorityQueue<Entry<V>> pq = new PriorityQueue<>();
+        pq.add(new Entry<>(root, 0.0));
+        return settle(pq, null);
+    }
+
+    public int edgeWorsened(V from, V to) {
+        if (!to.equals(next.get(from)))
+            return 0;
+
+        Set<V> affected = new HashSet<>();
+        Deque<V> stack = new ArrayDeque<>();
+        stack.push(from);
+        while (!stack.isEmpty()) {
+            V x = stack.pop();
+            if (affected.add(x))
+                stack.addAll(children.getOrDefault(x, Set.of()));
+        }
+
+        for (V x : affected) {
+            V parent = next.remove(x);
+            if (parent != null && !affected.contains(parent))
+                children.get(parent).remove(x);
+            children.remove(x);
+            dist.remove(x);
+        }
+
+        PriorityQueue<Entry<V>> pq = new PriorityQueue<>();
+        for (V x : affected) {
+            double best = Double.POSITIVE_INFINITY;
+            V bestNext = null;
+            for (V y : graph.get().neighbors(x).keySet()) {
+                if (affected.contains(y) || !dist.containsKey(y))
+                    continue;
+                double alt = edgeCost(x, y) + dist.get(y);
+                if (alt < best) {
+                    best = alt;
+                    bestNext = y;
+                }
+            }
+            if (bestNext != null) {
+                dist.put(x, best);
+                link(x, bestNext);
+                pq.add(new Entry<>(x, best));
+            }
+        }
+
+        settle(pq, affected);
+        return affected.size();
+    }
+
+    public int edgeImproved(V from, V to) {
+        if (!dist.containsKey(to))
+            return 0;
+
+        double alt = dist.get(to) + edgeCost(from, to);
+        if (alt >= distanceFrom(from))
+            return 0;
+
+        dist.put(from, alt);
+        link(from, to);
+
+        PriorityQueue<Entry<V>> pq = new PriorityQueue<>();
+        pq.add(new Entry<>(from, alt));
+        return 1 + settle(pq, null);
+    }
+
+    private int settle(PriorityQueue<Entry<V>> pq, Set<V> scope) {
+        GenericGraph<V, E> graph = this.graph.get();
+        int updated = 0;
+        while (!pq.isEmpty()) {
+            Entry<V> top = pq.poll();
+            V u = top.vertex;
+            double du = top.dist;
+            if (du > distanceFrom(u))
+                continue;
+
+            for (V w : graph.inNeighbors(u).keySet()) {
+                if (scope != null && !scope.contains(w))
+                    continue;
+
+                double alt = du + edgeCost(w, u);
+                if (alt < distanceFrom(w)) {
+                    dist.put(w, alt);
+                    link(w, u);
+                    pq.add(new Entry<>(w, alt));
+                    updated++;
+                }
+            }
+        }
+        return updated;
+    }
+
+    private double edgeCost(V from, V to) {
+        GenericGraph<V, E> graph = this.graph.get();
+        E data = graph.neighbors(from).get(to);
+        if (data == null || graph.isClosed(from, to))
+            return Double.POSITIVE_INFINITY;
+
+        double w = cost.applyAsDouble(data);
+        if (w < 0)
+            throw new IllegalArgumentException("Dijkstra exige custos não negativos.");
+        return w;
+    }
+
+    private void link(V child, V parent) {
+        V previous = next.put(child, parent);
+        if (previous != null) {
+            Set<V> siblings = children.get(previous);
+            if (siblings != null)
+                siblings.remove(child);
+        }
+        children.computeIfAbsent(parent, k -> new HashSet<>()).add(child);
+    }
+
+    private static final class Entry<V> implements Comparable<Entry<V>> {
+        final V vertex;
+        final double dist;
+
+        Entry(V vertex, double dist) {
+            this.vertex = vertex;
+            this.dist = dist;
+        }
+
+        @Override
+        public int compareTo(Entry<V> other) {
+            return Double.compare(dist, other.dist);
+        }
+    }
+}
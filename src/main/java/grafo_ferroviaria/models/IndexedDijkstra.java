@@ -0,0 +1,164 @@
+package grafo_ferroviaria.models;
+
+import java.util.Arrays;
+
+// Dijkstra over an IndexedRailGraph with an indexed binary heap and buffers reused between runs, so
+// repeated searches from many sources allocate nothing. Not thread-safe: use one instance per thread.
+public final class IndexedDijkstra {
+    private final IndexedRailGraph graph;
+    private final double[] dist;
+    private final int[] predArc;
+    private final int[] order;
+    private final int[] heap;
+    private final int[] heapPos;
+    private int settled;
+    private int heapSize;
+
+    public IndexedDijkstra(IndexedRailGraph graph) {
+        int n = graph.size();
+        this.graph = graph;
+        this.dist = new double[n];
+        this.predArc = new int[n];
+        this.order = new int[n];
+        this.heap = new int[n];
+        this.heapPos = new int[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(predArc, -1);
+        Arrays.fill(heapPos, -1);
+    }
+
+    public void run(int source, double[] weights) {
+        run(source, weights, -1);
+    }
+
+    // Arcs with infinite weight and every arc of excludedEdge are skipped.
+    public void run(int source, double[] weights, int excludedEdge) {
+        reset();
+        dist[source] = 0.0;
+        push(source);
+        settleAll(weights, excludedEdge, null);
+    }
+
+    // Multi-source run that only relaxes a vertex below its bound. With the distances of an earlier run as
+    // bounds and the vertices cut off by a closure seeded from their intact neighbours, it repairs that
+    // part of the tree without visiting the rest; vertices it does not reach keep an infinite distance.
+    public void run(int[] seeds, double[] seedDistances, int seedCount, double[] weights, int excludedEdge,
+            double[] bound) {
+        reset();
+        for (int i = 0; i < seedCount; i++) {
+            int v = seeds[i];
+            if (seedDistances[i] < dist[v]) {
+                dist[v] = seedDistances[i];
+                if (heapPos[v] < 0)
+                    push(v);
+                else
+                    siftUp(heapPos[v]);
+            }
+        }
+        settleAll(weights, excludedEdge, bound);
+    }
+
+    private void settleAll(double[] weights, int excludedEdge, double[] bound) {
+        while (heapSize > 0) {
+            int u = pop();
+            order[settled++] = u;
+            double du = dist[u];
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                double w = weights[a];
+                if (w == Double.POSITIVE_INFINITY || graph.edge(a) == excludedEdge)
+                    continue;
+
+                int v = graph.target(a);
+                double alt = du + w;
+                if (alt < dist[v] && (bound == null || alt < bound[v])) {
+                    dist[v] = alt;
+                    predArc[v] = a;
+                    if (heapPos[v] < 0)
+                        push(v);
+                    else
+                        siftUp(heapPos[v]);
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < settled; i++) {
+            int v = order[i];
+            dist[v] = Double.POSITIVE_INFINITY;
+            predArc[v] = -1;
+        }
+        settled = 0;
+    }
+
+    public double distance(int v) {
+        return dist[v];
+    }
+
+    // Arc used to reach v on the shortest path, or -1 for the source and unreached vertices.
+    public int predecessorArc(int v) {
+        return predArc[v];
+    }
+
+    // Vertices reached by the last run, in non-decreasing distance.
+    public int settled() {
+        return settled;
+    }
+
+    public int settledVertex(int i) {
+        return order[i];
+    }
+
+    private void push(int v) {
+        heap[heapSize] = v;
+        heapPos[v] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int pop() {
+        int top = heap[0];
+        heapPos[top] = -1;
+        if (--heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapPos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        double d = dist[v];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            int p = heap[parent];
+            if (dist[p] <= d)
+                break;
+            heap[i] = p;
+            heapPos[p] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        heapPos[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        double d = dist[v];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && dist[heap[child + 1]] < dist[heap[child]])
+                child++;
+            int c = heap[child];
+            if (dist[c] >= d)
+                break;
+            heap[i] = c;
+            heapPos[c] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapPos[v] = i;
+    }
+}
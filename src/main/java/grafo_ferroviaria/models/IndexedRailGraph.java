@@ -0,0 +1,199 @@
+package grafo_ferroviaria.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+// Read-only array copy of a graph snapshot for algorithms that run thousands of searches over it.
+// Vertices become 0..n-1 and outgoing arcs sit contiguously per vertex. Each arc also points to its
+// rail: in an undirected graph the two arcs of one rail share an edge id, in a directed graph every arc
+// is its own edge. Closed rails are left out.
+public final class IndexedRailGraph {
+    private final boolean directed;
+    private final TrainStation[] stations;
+    private final Map<TrainStation, Integer> index;
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[] edges;
+    private final Rail[] rails;
+    private final int[] edgeArc;
+    private final int edgeCount;
+
+    private IndexedRailGraph(boolean directed, TrainStation[] stations, Map<TrainStation, Integer> index,
+            int[] offsets, int[] sources, int[] targets, Rail[] rails) {
+        this.directed = directed;
+        this.stations = stations;
+        this.index = index;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.rails = rails;
+        this.edges = new int[targets.length];
+
+        int[] edgeArc = new int[targets.length];
+        int count = 0;
+        for (int a = 0; a < targets.length; a++) {
+            int u = sources[a];
+            int v = targets[a];
+            if (directed || u <= v) {
+                edges[a] = count;
+                edgeArc[count++] = a;
+            } else {
+                int back = arc(v, u);
+                // An undirected rail closed from one side only keeps just this arc.
+                if (back < 0) {
+                    edges[a] = count;
+                    edgeArc[count++] = a;
+                } else {
+                    edges[a] = -1;
+                }
+            }
+        }
+        for (int a = 0; a < targets.length; a++) {
+            if (edges[a] < 0)
+                edges[a] = edges[arc(targets[a], sources[a])];
+        }
+        this.edgeArc = Arrays.copyOf(edgeArc, count);
+        this.edgeCount = count;
+    }
+
+    public static IndexedRailGraph of(GenericGraph<TrainStation, Rail> graph) {
+        GenericGraph<TrainStation, Rail> snapshot = graph.snapshot();
+        TrainStation[] stations = snapshot.vertices().toArray(new TrainStation[0]);
+        Arrays.sort(stations, (a, b) -> a.id() != b.id() ? Integer.compare(a.id(), b.id())
+                : a.name().compareTo(b.name()));
+
+        Map<TrainStation, Integer> index = new HashMap<>(stations.length * 2);
+        for (int i = 0; i < stations.length; i++)
+            index.put(stations[i], i);
+
+        int[] offsets = new int[stations.length + 1];
+        int arcs = 0;
+        for (int u = 0; u < stations.length; u++) {
+            offsets[u] = arcs;
+            arcs += snapshot.neighbors(stations[u]).size();
+        }
+        offsets[stations.length] = arcs;
+
+        int[] sources = new int[arcs];
+        int[] targets = new int[arcs];
+        Rail[] rails = new Rail[arcs];
+        int a = 0;
+        for (int u = 0; u < stations.length; u++) {
+            offsets[u] = a;
+            int start = a;
+            for (Map.Entry<TrainStation, Rail> e : snapshot.neighbors(stations[u]).entrySet()) {
+                if (snapshot.isClosed(stations[u], e.getKey()))
+                    continue;
+                sources[a] = u;
+                targets[a] = index.get(e.getKey());
+                rails[a] = e.getValue();
+                a++;
+            }
+            sortArcs(targets, rails, start, a);
+        }
+        offsets[stations.length] = a;
+
+        return new IndexedRailGraph(snapshot.isDirected(), stations, index, offsets,
+                Arrays.copyOf(sources, a), Arrays.copyOf(targets, a), Arrays.copyOf(rails, a));
+    }
+
+    // Neighbour order follows station order, so searches over the arrays are deterministic.
+    private static void sortArcs(int[] targets, Rail[] rails, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int t = targets[i];
+            Rail r = rails[i];
+            int j = i - 1;
+            while (j >= from && targets[j] > t) {
+                targets[j + 1] = targets[j];
+                rails[j + 1] = rails[j];
+                j--;
+            }
+            targets[j + 1] = t;
+            rails[j + 1] = r;
+        }
+    }
+
+    public boolean isDirected() {
+        return directed;
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    public int arcs() {
+        return targets.length;
+    }
+
+    public int edges() {
+        return edgeCount;
+    }
+
+    public TrainStation station(int v) {
+        return stations[v];
+    }
+
+    // -1 when the station is not in the graph.
+    public int indexOf(TrainStation station) {
+        Integer i = index.get(station);
+        return i != null ? i : -1;
+    }
+
+    public int firstArc(int v) {
+        return offsets[v];
+    }
+
+    public int endArc(int v) {
+        return offsets[v + 1];
+    }
+
+    public int source(int arc) {
+        return sources[arc];
+    }
+
+    public int target(int arc) {
+        return targets[arc];
+    }
+
+    public Rail rail(int arc) {
+        return rails[arc];
+    }
+
+    public int edge(int arc) {
+        return edges[arc];
+    }
+
+    // One of the arcs of the edge; for undirected rails, the one leaving the lower-indexed station.
+    public int edgeArc(int edge) {
+        return edgeArc[edge];
+    }
+
+    // -1 when there is no open arc from u to v.
+    public int arc(int u, int v) {
+        int lo = offsets[u];
+        int hi = offsets[u + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (targets[mid] < v)
+                lo = mid + 1;
+            else if (targets[mid] > v)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    public double[] weights(ToDoubleFunction<? super Rail> cost) {
+        double[] w = new double[rails.length];
+        for (int a = 0; a < rails.length; a++) {
+            w[a] = cost.applyAsDouble(rails[a]);
+            if (w[a] < 0)
+                throw new IllegalArgumentException("Dijkstra exige custos não negativos.");
+        }
+        return w;
+    }
+}
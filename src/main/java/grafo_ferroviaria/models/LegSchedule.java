@@ -0,0 +1,241 @@
+package grafo_ferroviaria.models;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class LegSchedule {
+    private final double[] legTime;
+    private final double[] legDistance;
+    private final double[] legPrice;
+    private final double[] legRailTime;
+    private final double[] legPeakSpeed;
+    private final double[] legEntrySpeed;
+    private final double[] legExitSpeed;
+    private final TrainDynamics dynamics;
+    private final double[] cumulativeTime;
+    private final double[] cumulativeDistance;
+    private final double[] cumulativePrice;
+    private final double totalRailTime;
+    private final int firstMissingLeg;
+
+    private LegSchedule(double[] legTime, double[] legDistance, double[] legPrice, double[] legRailTime,
+            double[] legPeakSpeed, double[] legEntrySpeed, double[] legExitSpeed, boolean[] stop,
+            TrainDynamics dynamics, double totalRailTime, int firstMissingLeg) {
+        this.legTime = legTime;
+        this.legDistance = legDistance;
+        this.legPrice = legPrice;
+        this.legRailTime = legRailTime;
+        this.legPeakSpeed = legPeakSpeed;
+        this.legEntrySpeed = legEntrySpeed;
+        this.legExitSpeed = legExitSpeed;
+        this.dynamics = dynamics;
+        this.cumulativeTime = travelTimes(legTime, dynamics.dwellTime(), stop);
+        this.cumulativeDistance = prefixSums(legDistance);
+        this.cumulativePrice = prefixSums(legPrice);
+        this.totalRailTime = totalRailTime;
+        this.firstMissingLeg = firstMissingLeg;
+    }
+
+    public static LegSchedule of(List<TrainStation> stations, GenericGraph<TrainStation, Rail> graph,
+            double maxSpeed) {
+        return of(stations, graph, TrainDynamics.of(maxSpeed));
+    }
+
+    public static LegSchedule of(List<TrainStation> stations, GenericGraph<TrainStation, Rail> graph,
+            TrainDynamics dynamics) {
+        return of(stations, null, graph, dynamics);
+    }
+
+    // stops are indices into stations; null makes every station a stop.
+    public static LegSchedule of(List<TrainStation> stations, int[] stops, GenericGraph<TrainStation, Rail> graph,
+            TrainDynamics dynamics) {
+        return of(stations.toArray(new TrainStation[0]), stops, graph, dynamics);
+    }
+
+    static LegSchedule of(TrainStation[] stations, int[] stops, GenericGraph<TrainStation, Rail> graph,
+            TrainDynamics dynamics) {
+        int legs = Math.max(0, stations.length - 1);
+        double[] legTime = new double[legs];
+        double[] legDistance = new double[legs];
+        double[] legPrice = new double[legs];
+        double[] legRailTime = new double[legs];
+        double[] legPeakSpeed = new double[legs];
+        double[] legEntrySpeed = new double[legs];
+        double[] legExitSpeed = new double[legs];
+        Rail[] rails = new Rail[legs];
+        double totalRailTime = 0.0;
+        int firstMissingLeg = -1;
+
+        boolean[] stop = new boolean[stations.length];
+        if (stops == null) {
+            Arrays.fill(stop, true);
+        } else {
+            for (int index : stops)
+                stop[index] = true;
+        }
+        if (stations.length > 0) {
+            stop[0] = true;
+            stop[stations.length - 1] = true;
+        }
+
+        for (int i = 0; i < legs; i++) {
+            rails[i] = graph.neighbors(stations[i]).get(stations[i + 1]);
+            if (rails[i] == null) {
+                // A missing rail ends the run: the stations on both sides are treated as stops.
+                stop[i] = true;
+                stop[i + 1] = true;
+            }
+        }
+
+        double[] through = passingSpeeds(rails, stop, dynamics);
+        for (int i = 0; i < legs; i++) {
+            Rail rail = rails[i];
+            if (rail == null) {
+                legTime[i] = Double.NaN;
+                legDistance[i] = Double.NaN;
+                legPrice[i] = Double.NaN;
+                legRailTime[i] = Double.NaN;
+                legPeakSpeed[i] = Double.NaN;
+                if (firstMissingLeg < 0)
+                    firstMissingLeg = i;
+                continue;
+            }
+
+            legEntrySpeed[i] = through[i];
+            legExitSpeed[i] = through[i + 1];
+            legPeakSpeed[i] = dynamics.peakSpeed(rail.distance(), rail.speedLimit(), through[i], through[i + 1]);
+            legTime[i] = dynamics.runTime(rail.distance(), legPeakSpeed[i], through[i], through[i + 1]);
+            legDistance[i] = rail.distance();
+            legPrice[i] = rail.price();
+            legRailTime[i] = rail.time();
+            totalRailTime += rail.time();
+        }
+
+        return new LegSchedule(legTime, legDistance, legPrice, legRailTime, legPeakSpeed, legEntrySpeed,
+                legExitSpeed, stop, dynamics, totalRailTime, firstMissingLeg);
+    }
+
+    // Speed at each station: zero at stops, and at a station passed through the lower line speed of the two
+    // rails it joins, cut down to what the train can reach from the previous station and still brake from
+    // before the next one.
+    private static double[] passingSpeeds(Rail[] rails, boolean[] stop, TrainDynamics dynamics) {
+        double[] speed = new double[stop.length];
+        for (int i = 1; i < rails.length; i++) {
+            if (!stop[i])
+                speed[i] = Math.min(dynamics.maxSpeed(),
+                        Math.min(rails[i - 1].speedLimit(), rails[i].speedLimit()));
+        }
+        for (int i = 1; i < rails.length; i++) {
+            if (!stop[i])
+                speed[i] = Math.min(speed[i], dynamics.accelerateTo(rails[i - 1].distance(), speed[i - 1]));
+        }
+        for (int i = rails.length - 1; i > 0; i--) {
+            if (!stop[i])
+                speed[i] = Math.min(speed[i], dynamics.brakeFrom(rails[i].distance(), speed[i + 1]));
+        }
+        return speed;
+    }
+
+    // Arrival times at each station, counting the dwell only at intermediate stops.
+    private static double[] travelTimes(double[] legTime, double dwellTime, boolean[] stop) {
+        double[] times = new double[legTime.length + 1];
+        for (int i = 0; i < legTime.length; i++) {
+            double dwell = i > 0 && stop[i] ? dwellTime : 0.0;
+            times[i + 1] = Double.isNaN(legTime[i]) ? times[i] : times[i] + dwell + legTime[i];
+        }
+        return times;
+    }
+
+    private static double[] prefixSums(double[] legs) {
+        double[] sums = new double[legs.length + 1];
+        for (int i = 0; i < legs.length; i++)
+            sums[i + 1] = Double.isNaN(legs[i]) ? sums[i] : sums[i] + legs[i];
+        return sums;
+    }
+
+    public int legs() {
+        return legTime.length;
+    }
+
+    public double legTime(int leg) {
+        return legTime[leg];
+    }
+
+    public double legDistance(int leg) {
+        return legDistance[leg];
+    }
+
+    public double legPrice(int leg) {
+        return legPrice[leg];
+    }
+
+    public double legRailTime(int leg) {
+        return legRailTime[leg];
+    }
+
+    public double legPeakSpeed(int leg) {
+        return legPeakSpeed[leg];
+    }
+
+    public double legEntrySpeed(int leg) {
+        return legEntrySpeed[leg];
+    }
+
+    public double legExitSpeed(int leg) {
+        return legExitSpeed[leg];
+    }
+
+    public TrainDynamics dynamics() {
+        return dynamics;
+    }
+
+    public double speedAt(int leg, double elapsed) {
+        return Double.isNaN(legTime[leg]) ? 0.0
+                : dynamics.speedAt(elapsed, legTime[leg], legPeakSpeed[leg], legEntrySpeed[leg], legExitSpeed[leg]);
+    }
+
+    public double progressAt(int leg, double elapsed) {
+        return Double.isNaN(legTime[leg]) ? 0.0 : dynamics.distanceFraction(elapsed, legTime[leg],
+                legPeakSpeed[leg], legEntrySpeed[leg], legExitSpeed[leg]);
+    }
+
+    public double timeAt(int stationIndex) {
+        return cumulativeTime[stationIndex];
+    }
+
+    public double distanceAt(int stationIndex) {
+        return cumulativeDistance[stationIndex];
+    }
+
+    public double priceAt(int stationIndex) {
+        return cumulativePrice[stationIndex];
+    }
+
+    public double remainingTime(int stationIndex) {
+        return cumulativeTime[cumulativeTime.length - 1] - cumulativeTime[stationIndex];
+    }
+
+    public double totalTime() {
+        return cumulativeTime[cumulativeTime.length - 1];
+    }
+
+    public double totalDistance() {
+        return cumulativeDistance[cumulativeDistance.length - 1];
+    }
+
+    public double totalPrice() {
+        return cumulativePrice[cumulativePrice.length - 1];
+    }
+
+    public double totalRailTime() {
+        return totalRailTime;
+    }
+
+    public boolean isComplete() {
+        return firstMissingLeg < 0;
+    }
+
+    public int firstMissingLeg() {
+        return firstMissingLeg;
+    }
+}
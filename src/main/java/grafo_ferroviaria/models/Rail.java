@@ -1,16 +1,48 @@
 package grafo_ferroviaria.models;
 
+import java.util.Objects;
+
 public class Rail {
+    public static final double CONVENTIONAL_SPEED_LIMIT = 120.0;
+    public static final double HIGH_SPEED_LIMIT = 300.0;
+
     private final double price;
     private final double time;
     private final double distance;
     private final boolean highSpeed;
+    private final int tracks;
+    private final int capacity;
+    private final double headway;
+    private final double speedLimit;
+    private final int hash;
 
     public Rail(double price, double time, double distance, boolean highSpeed) {
+        this(price, time, distance, highSpeed, 1, 1, 0.0);
+    }
+
+    // capacity is the number of trains allowed on the rail at once in each direction; headway is the
+    // minimum gap in minutes between two entries in the same direction.
+    public Rail(double price, double time, double distance, boolean highSpeed, int tracks, int capacity,
+            double headway) {
+        this(price, time, distance, highSpeed, tracks, capacity, headway,
+                highSpeed ? HIGH_SPEED_LIMIT : CONVENTIONAL_SPEED_LIMIT);
+    }
+
+    public Rail(double price, double time, double distance, boolean highSpeed, int tracks, int capacity,
+            double headway, double speedLimit) {
+        if (tracks < 1 || capacity < 1 || headway < 0 || Double.isNaN(headway) || !(speedLimit > 0))
+            throw new IllegalArgumentException("Trilho inválido: vias=" + tracks + ", capacidade=" + capacity
+                    + ", intervalo=" + headway + ", velocidade máxima=" + speedLimit);
+
         this.price = price;
         this.time = time;
         this.distance = distance;
         this.highSpeed = highSpeed;
+        this.tracks = tracks;
+        this.capacity = capacity;
+        this.headway = headway;
+        this.speedLimit = speedLimit;
+        this.hash = Objects.hash(price, time, distance, highSpeed, tracks, capacity, headway, speedLimit);
     }
 
     public double price() {
@@ -28,4 +60,48 @@ public class Rail {
     public boolean highSpeed() {
         return highSpeed;
     }
+
+    public int tracks() {
+        return tracks;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public double headway() {
+        return headway;
+    }
+
+    public double speedLimit() {
+        return speedLimit;
+    }
+
+    // A single track is shared by both directions, so opposing trains must wait for it to clear.
+    public boolean isSingleTrack() {
+        return tracks == 1;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Rail))
+            return false;
+        Rail that = (Rail) obj;
+        return hash == that.hash
+                && Double.compare(price, that.price) == 0
+                && Double.compare(time, that.time) == 0
+                && Double.compare(distance, that.distance) == 0
+                && highSpeed == that.highSpeed
+                && tracks == that.tracks
+                && capacity == that.capacity
+                && Double.compare(headway, that.headway) == 0
+                && Double.compare(speedLimit, that.speedLimit) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
 }
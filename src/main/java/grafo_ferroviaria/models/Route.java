@@ -0,0 +1,196 @@
+package grafo_ferroviaria.models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Stops are the stations the route must visit, in order; the stations between two stops are just the
+// path joining them and may be replaced when a rail changes. The first and last stations are always stops.
+public final class Route {
+    private final TrainStation[] stations;
+    private final int[] stops;
+    private final int[] stationIds;
+    private final LegSchedule schedule;
+    private final int[] indexKeys;
+    private final int[] indexValues;
+    private final List<TrainStation> view;
+
+    private Route(TrainStation[] stations, int[] stops, LegSchedule schedule) {
+        this.stations = stations;
+        this.stops = stops;
+        this.schedule = schedule;
+        this.stationIds = new int[stations.length];
+        for (int i = 0; i < stations.length; i++)
+            this.stationIds[i] = stations[i].id();
+
+        int slots = Integer.highestOneBit(Math.max(2, stations.length) * 2 - 1) << 1;
+        this.indexKeys = new int[slots];
+        this.indexValues = new int[slots];
+        for (int i = 0; i < stations.length; i++) {
+            int slot = find(stationIds[i]);
+            if (indexKeys[slot] == 0) {
+                indexKeys[slot] = stationIds[i] + 1;
+                indexValues[slot] = i;
+            }
+        }
+
+        this.view = new StationView();
+    }
+
+    public static Route of(List<TrainStation> stations, GenericGraph<TrainStation, Rail> graph, double maxSpeed) {
+        return of(stations, graph, TrainDynamics.of(maxSpeed));
+    }
+
+    // Without explicit stops every station of the list is one.
+    public static Route of(List<TrainStation> stations, GenericGraph<TrainStation, Rail> graph,
+            TrainDynamics dynamics) {
+        return of(stations, null, graph, dynamics);
+    }
+
+    public static Route of(List<TrainStation> stations, int[] stops, GenericGraph<TrainStation, Rail> graph,
+            TrainDynamics dynamics) {
+        if (stations == null || stations.isEmpty()) {
+            throw new IllegalArgumentException("Rota não pode ser nula ou vazia");
+        }
+
+        TrainStation[] array = stations.toArray(new TrainStation[0]);
+        int[] normalized = normalizeStops(stops, array.length);
+        return new Route(array, normalized, LegSchedule.of(array, normalized, graph, dynamics));
+    }
+
+    private static int[] normalizeStops(int[] stops, int size) {
+        if (stops == null) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++)
+                all[i] = i;
+            return all;
+        }
+
+        int[] sorted = Arrays.copyOf(stops, stops.length + 2);
+        sorted[stops.length] = 0;
+        sorted[stops.length + 1] = size - 1;
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int stop : sorted) {
+            if (stop < 0 || stop >= size)
+                throw new IllegalArgumentException("Parada fora da rota: " + stop);
+            if (count == 0 || sorted[count - 1] != stop)
+                sorted[count++] = stop;
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    // New route starting at index start, with the stations between from and the stop at index to replaced by
+    // path, which must run from station(from) to station(to). Stops outside the replaced span are kept.
+    public Route replaceLeg(int start, int from, int to, List<TrainStation> path,
+            GenericGraph<TrainStation, Rail> graph, TrainDynamics dynamics) {
+        if (start > from || from >= to || to >= stations.length || path.size() < 2
+                || !path.get(0).equals(stations[from]) || !path.get(path.size() - 1).equals(stations[to]))
+            throw new IllegalArgumentException("Trecho inválido para a rota " + this);
+
+        int shift = path.size() - 1 - (to - from);
+        List<TrainStation> list = new ArrayList<>(stations.length - start + shift);
+        list.addAll(Arrays.asList(stations).subList(start, from));
+        list.addAll(path);
+        list.addAll(Arrays.asList(stations).subList(to + 1, stations.length));
+
+        int[] kept = new int[stops.length];
+        int count = 0;
+        for (int stop : stops) {
+            if (stop < start)
+                continue;
+            if (stop <= from)
+                kept[count++] = stop - start;
+            else if (stop >= to)
+                kept[count++] = stop - start + shift;
+        }
+        return of(list, Arrays.copyOf(kept, count), graph, dynamics);
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    public TrainStation station(int index) {
+        return stations[index];
+    }
+
+    public int stationId(int index) {
+        return stationIds[index];
+    }
+
+    public TrainStation first() {
+        return stations[0];
+    }
+
+    public TrainStation last() {
+        return stations[stations.length - 1];
+    }
+
+    public boolean isStop(int index) {
+        return Arrays.binarySearch(stops, index) >= 0;
+    }
+
+    // First stop after index; the last station when index is already past every other stop.
+    public int nextStop(int index) {
+        int i = Arrays.binarySearch(stops, index + 1);
+        return stops[i >= 0 ? i : Math.min(-i - 1, stops.length - 1)];
+    }
+
+    public LegSchedule schedule() {
+        return schedule;
+    }
+
+    public int indexOf(TrainStation station) {
+        if (station == null || station.id() < 0)
+            return -1;
+
+        int slot = find(station.id());
+        return indexKeys[slot] != 0 && stations[indexValues[slot]].equals(station) ? indexValues[slot] : -1;
+    }
+
+    public boolean contains(TrainStation station) {
+        return indexOf(station) >= 0;
+    }
+
+    public List<TrainStation> asList() {
+        return view;
+    }
+
+    private int find(int stationId) {
+        int mask = indexKeys.length - 1;
+        int slot = (stationId * 0x9E3779B9) >>> 16 & mask;
+        while (indexKeys[slot] != 0 && indexKeys[slot] != stationId + 1)
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    @Override
+    public String toString() {
+        return view.toString();
+    }
+
+    private final class StationView extends AbstractList<TrainStation> implements RandomAccess {
+        @Override
+        public TrainStation get(int index) {
+            return stations[index];
+        }
+
+        @Override
+        public int size() {
+            return stations.length;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof TrainStation station ? Route.this.indexOf(station) : -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package grafo_ferroviaria.models;
+
+// Passenger services may not run through freight yards; freight may run through any station but only
+// loads and unloads at freight or mixed stations.
+public enum ServiceClass {
+    EXPRESS(3),
+    PASSENGER(2),
+    FREIGHT(1);
+
+    private final int priority;
+
+    ServiceClass(int priority) {
+        this.priority = priority;
+    }
+
+    public int priority() {
+        return priority;
+    }
+
+    public boolean canStopAt(TrainStationType type) {
+        if (type == TrainStationType.MIXED)
+            return true;
+        return this == FREIGHT ? type == TrainStationType.MERCHANDISE : type == TrainStationType.PASSANGERS;
+    }
+
+    public boolean canPassThrough(TrainStationType type) {
+        return this == FREIGHT || type != TrainStationType.MERCHANDISE;
+    }
+
+    public boolean canPassThrough(TrainStation station) {
+        return canPassThrough(station.type());
+    }
+}
@@ -0,0 +1,54 @@
+package grafo_ferroviaria.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StationRegistry {
+    private final Map<String, TrainStation> byName;
+    private TrainStation[] byId;
+    private int size;
+
+    public StationRegistry() {
+        this.byName = new ConcurrentHashMap<>();
+        this.byId = new TrainStation[16];
+        this.size = 0;
+    }
+
+    public synchronized TrainStation intern(String name, double latitude, double longitude, TrainStationType type) {
+        TrainStation existing = byName.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == byId.length) {
+            byId = Arrays.copyOf(byId, size * 2);
+        }
+
+        TrainStation station = new TrainStation(size, name, latitude, longitude, type);
+        byId[size++] = station;
+        byName.put(name, station);
+        return station;
+    }
+
+    public TrainStation get(String name) {
+        return byName.get(name);
+    }
+
+    public TrainStation byId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Estação inexistente: " + id);
+        }
+        return byId[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Collection<TrainStation> stations() {
+        return Collections.unmodifiableList(Arrays.asList(byId).subList(0, size));
+    }
+}
@@ -1,28 +1,38 @@
 package grafo_ferroviaria.models;
 
-import java.util.List;
-
 public class Train {
     private final String id;
-    private final double maxSpeed;
+    private final TrainDynamics dynamics;
     private final int capacity;
+    private final ServiceClass serviceClass;
     private final TrainStation currentStation;
-    private final List<TrainStation> route;
+    private Route route;
     private int currentRouteIndex;
-    private double currentSpeed;
     private boolean isMoving;
     private double timeToNextStation;
+    private double dwellRemaining;
+
+    public Train(String id, double maxSpeed, int capacity, TrainStation startingStation, Route route) {
+        this(id, maxSpeed, capacity, ServiceClass.PASSENGER, startingStation, route);
+    }
 
-    public Train(String id, double maxSpeed, int capacity, TrainStation startingStation, List<TrainStation> route) {
+    public Train(String id, double maxSpeed, int capacity, ServiceClass serviceClass, TrainStation startingStation,
+            Route route) {
+        this(id, TrainDynamics.of(maxSpeed), capacity, serviceClass, startingStation, route);
+    }
+
+    public Train(String id, TrainDynamics dynamics, int capacity, ServiceClass serviceClass,
+            TrainStation startingStation, Route route) {
         this.id = id;
-        this.maxSpeed = maxSpeed;
+        this.dynamics = dynamics;
         this.capacity = capacity;
+        this.serviceClass = serviceClass;
         this.currentStation = startingStation;
         this.route = route;
         this.currentRouteIndex = 0;
-        this.currentSpeed = 0.0;
         this.isMoving = false;
         this.timeToNextStation = 0.0;
+        this.dwellRemaining = 0.0;
     }
 
     public String id() {
@@ -30,18 +40,30 @@ public class Train {
     }
 
     public double maxSpeed() {
-        return maxSpeed;
+        return dynamics.maxSpeed();
+    }
+
+    public TrainDynamics dynamics() {
+        return dynamics;
     }
 
     public int capacity() {
         return capacity;
     }
 
+    public ServiceClass serviceClass() {
+        return serviceClass;
+    }
+
+    public int priority() {
+        return serviceClass.priority();
+    }
+
     public TrainStation currentStation() {
-        return this.route.get(this.currentRouteIndex);
+        return this.route.station(this.currentRouteIndex);
     }
 
-    public List<TrainStation> route() {
+    public Route route() {
         return route;
     }
 
@@ -49,8 +71,33 @@ public class Train {
         return currentRouteIndex;
     }
 
+    // Derived from the leg's speed profile on demand, so ticks only count the clock down.
     public double currentSpeed() {
-        return currentSpeed;
+        if (!isMoving || hasReachedDestination())
+            return 0.0;
+
+        LegSchedule schedule = route.schedule();
+        return schedule.speedAt(currentRouteIndex, schedule.legTime(currentRouteIndex) - timeToNextStation);
+    }
+
+    public double legProgress() {
+        if (!isMoving || hasReachedDestination())
+            return 0.0;
+
+        LegSchedule schedule = route.schedule();
+        return schedule.progressAt(currentRouteIndex, schedule.legTime(currentRouteIndex) - timeToNextStation);
+    }
+
+    public boolean isDwelling() {
+        return dwellRemaining > 0;
+    }
+
+    public double dwellRemaining() {
+        return dwellRemaining;
+    }
+
+    public void dwell(double deltaTime) {
+        dwellRemaining = Math.max(0.0, dwellRemaining - deltaTime);
     }
 
     public boolean isMoving() {
@@ -64,13 +111,11 @@ public class Train {
     public void startMoving() {
         if (currentRouteIndex < route.size() - 1) {
             this.isMoving = true;
-            this.currentSpeed = maxSpeed;
         }
     }
 
     public void stop() {
         this.isMoving = false;
-        this.currentSpeed = 0.0;
     }
 
     public void updatePosition(double deltaTime) {
@@ -84,13 +129,15 @@ public class Train {
             currentRouteIndex++;
             timeToNextStation = 0.0;
             isMoving = false;
-            currentSpeed = 0.0;
+            // Stations the route only passes through are run at speed, as the leg schedule times them.
+            if (!hasReachedDestination() && route.isStop(currentRouteIndex))
+                dwellRemaining = dynamics.dwellTime();
         }
     }
 
     public TrainStation getNextStation() {
         if (currentRouteIndex < route.size() - 1) {
-            return route.get(currentRouteIndex + 1);
+            return route.station(currentRouteIndex + 1);
         }
         return null;
     }
@@ -101,39 +148,35 @@ public class Train {
 
     public void setTimeToNextStation(double time) {
         this.timeToNextStation = time;
-        this.currentSpeed = maxSpeed;
         this.isMoving = true;
     }
 
-    public void updateRoute(List<TrainStation> newRoute) {
-        if (newRoute == null || newRoute.isEmpty()) {
+    public void updateRoute(Route newRoute) {
+        if (newRoute == null) {
             throw new IllegalArgumentException("Nova rota não pode ser nula ou vazia");
         }
 
-        boolean containsCurrent = false;
-        for (int i = 0; i < newRoute.size(); i++) {
-            if (newRoute.get(i).equals(currentStation())) {
-                this.currentRouteIndex = i;
-                containsCurrent = true;
-                break;
-            }
-        }
-
-        if (!containsCurrent) {
+        int index = newRoute.indexOf(currentStation());
+        if (index < 0) {
             throw new IllegalArgumentException("Nova rota deve conter a estação atual: " + currentStation().name());
         }
 
-        this.route.clear();
-        this.route.addAll(newRoute);
+        TrainStation previousNext = getNextStation();
+        boolean keepMoving = isMoving && previousNext != null && index < newRoute.size() - 1
+                && newRoute.station(index + 1).equals(previousNext);
 
-        this.isMoving = false;
-        this.currentSpeed = 0.0;
-        this.timeToNextStation = 0.0;
+        this.route = newRoute;
+        this.currentRouteIndex = index;
+
+        if (!keepMoving) {
+            this.isMoving = false;
+            this.timeToNextStation = 0.0;
+        }
     }
 
     @Override
     public String toString() {
         return String.format("Train[%s] at %s, speed=%.1f km/h, moving=%s",
-                id, currentStation.name(), currentSpeed, isMoving);
+                id, currentStation.name(), currentSpeed(), isMoving);
     }
 }
@@ -0,0 +1,141 @@
+package grafo_ferroviaria.models;
+
+// Each leg accelerates from its entry speed to its peak, cruises, then brakes to its exit speed. Legs
+// between two stops start and end at rest; at a station the train passes through, entry and exit speeds
+// carry the run across. All quantities are closed-form so legs are timed once per route, not once per tick.
+public final class TrainDynamics {
+    public static final double DEFAULT_ACCELERATION = 0.5;
+    public static final double DEFAULT_DECELERATION = 0.6;
+    public static final double DEFAULT_DWELL_TIME = 0.5;
+
+    private final double maxSpeed;
+    private final double acceleration;
+    private final double deceleration;
+    private final double dwellTime;
+
+    // Speeds in km/h, acceleration and deceleration in m/s², dwell time in minutes.
+    public TrainDynamics(double maxSpeed, double acceleration, double deceleration, double dwellTime) {
+        if (!(maxSpeed > 0) || !(acceleration > 0) || !(deceleration > 0) || !(dwellTime >= 0))
+            throw new IllegalArgumentException("Dinâmica inválida: velocidade=" + maxSpeed + ", aceleração="
+                    + acceleration + ", frenagem=" + deceleration + ", parada=" + dwellTime);
+
+        this.maxSpeed = maxSpeed;
+        this.acceleration = acceleration;
+        this.deceleration = deceleration;
+        this.dwellTime = dwellTime;
+    }
+
+    public static TrainDynamics of(double maxSpeed) {
+        return new TrainDynamics(maxSpeed, DEFAULT_ACCELERATION, DEFAULT_DECELERATION, DEFAULT_DWELL_TIME);
+    }
+
+    public double maxSpeed() {
+        return maxSpeed;
+    }
+
+    public double acceleration() {
+        return acceleration;
+    }
+
+    public double deceleration() {
+        return deceleration;
+    }
+
+    public double dwellTime() {
+        return dwellTime;
+    }
+
+    public double peakSpeed(double distanceKm, double speedLimit) {
+        return peakSpeed(distanceKm, speedLimit, 0.0, 0.0);
+    }
+
+    // Entry and exit speeds must be reachable from each other over the leg, as LegSchedule makes them.
+    public double peakSpeed(double distanceKm, double speedLimit, double entrySpeed, double exitSpeed) {
+        double limit = Math.min(maxSpeed, speedLimit) / 3.6;
+        double u = entrySpeed / 3.6;
+        double w = exitSpeed / 3.6;
+        double meters = distanceKm * 1000;
+        double reachable = Math.sqrt((2 * meters * acceleration * deceleration + deceleration * u * u
+                + acceleration * w * w) / (acceleration + deceleration));
+        return Math.max(Math.max(u, w), Math.min(limit, reachable)) * 3.6;
+    }
+
+    // Fastest speed at the end of a leg entered at entrySpeed.
+    public double accelerateTo(double distanceKm, double entrySpeed) {
+        double u = entrySpeed / 3.6;
+        return Math.sqrt(u * u + 2 * acceleration * distanceKm * 1000) * 3.6;
+    }
+
+    // Fastest speed at the start of a leg that must be left at exitSpeed.
+    public double brakeFrom(double distanceKm, double exitSpeed) {
+        double w = exitSpeed / 3.6;
+        return Math.sqrt(w * w + 2 * deceleration * distanceKm * 1000) * 3.6;
+    }
+
+    public double runTime(double distanceKm, double peakSpeed) {
+        return runTime(distanceKm, peakSpeed, 0.0, 0.0);
+    }
+
+    public double runTime(double distanceKm, double peakSpeed, double entrySpeed, double exitSpeed) {
+        double v = peakSpeed / 3.6;
+        if (v <= 0)
+            return 0.0;
+
+        double u = entrySpeed / 3.6;
+        double w = exitSpeed / 3.6;
+        double meters = distanceKm * 1000;
+        double rampDistance = (v * v - u * u) / (2 * acceleration) + (v * v - w * w) / (2 * deceleration);
+        double seconds = (v - u) / acceleration + (v - w) / deceleration + Math.max(0.0, meters - rampDistance) / v;
+        return seconds / 60;
+    }
+
+    public double speedAt(double elapsed, double runTime, double peakSpeed) {
+        return speedAt(elapsed, runTime, peakSpeed, 0.0, 0.0);
+    }
+
+    public double speedAt(double elapsed, double runTime, double peakSpeed, double entrySpeed, double exitSpeed) {
+        if (elapsed <= 0)
+            return entrySpeed;
+        if (elapsed >= runTime)
+            return exitSpeed;
+
+        double v = peakSpeed / 3.6;
+        double speed = Math.min(v, Math.min(entrySpeed / 3.6 + acceleration * elapsed * 60,
+                exitSpeed / 3.6 + deceleration * (runTime - elapsed) * 60));
+        return speed * 3.6;
+    }
+
+    public double distanceFraction(double elapsed, double runTime, double peakSpeed) {
+        return distanceFraction(elapsed, runTime, peakSpeed, 0.0, 0.0);
+    }
+
+    public double distanceFraction(double elapsed, double runTime, double peakSpeed, double entrySpeed,
+            double exitSpeed) {
+        if (elapsed <= 0 || runTime <= 0)
+            return 0.0;
+        if (elapsed >= runTime)
+            return 1.0;
+
+        double v = peakSpeed / 3.6;
+        double u = entrySpeed / 3.6;
+        double w = exitSpeed / 3.6;
+        double t = elapsed * 60;
+        double total = runTime * 60;
+        double accelTime = (v - u) / acceleration;
+        double brakeTime = (v - w) / deceleration;
+        double accelDistance = u * accelTime + acceleration * accelTime * accelTime / 2;
+        double length = accelDistance + v * (total - accelTime - brakeTime)
+                + w * brakeTime + deceleration * brakeTime * brakeTime / 2;
+
+        double covered;
+        if (t <= accelTime) {
+            covered = u * t + acceleration * t * t / 2;
+        } else if (t <= total - brakeTime) {
+            covered = accelDistance + v * (t - accelTime);
+        } else {
+            double left = total - t;
+            covered = length - w * left - deceleration * left * left / 2;
+        }
+        return Math.max(0.0, Math.min(1.0, covered / length));
+    }
+}
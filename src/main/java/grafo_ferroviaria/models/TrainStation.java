@@ -1,16 +1,25 @@
 package grafo_ferroviaria.models;
 
 public class TrainStation {
+    private final int id;
     private final String name;
     private final double latitude;
     private final double longitude;
     private final TrainStationType type;
+    private final int hash;
 
-    public TrainStation(String name, double latitude, double longitude, TrainStationType type) {
+    public TrainStation(int id, String name, double latitude, double longitude, TrainStationType type) {
+        this.id = id;
         this.name = name;
         this.latitude = latitude;
         this.longitude = longitude;
         this.type = type;
+        int h = name.hashCode();
+        this.hash = h ^ (h >>> 16);
+    }
+
+    public int id() {
+        return id;
     }
 
     public String name() {
@@ -29,6 +38,21 @@ public class TrainStation {
         return type;
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof TrainStation))
+            return false;
+        TrainStation that = (TrainStation) obj;
+        return hash == that.hash && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public String toString() {
         return name;
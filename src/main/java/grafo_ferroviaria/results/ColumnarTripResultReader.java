@@ -0,0 +1,100 @@
+package grafo_ferroviaria.results;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+public class ColumnarTripResultReader implements AutoCloseable {
+    private final DataInputStream in;
+    private final String[] trainIds = new String[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final String[] origins = new String[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final String[] destinations = new String[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final double[] departures = new double[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final double[] arrivals = new double[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final double[] waitingTimes = new double[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final int[] waits = new int[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final int[] reroutes = new int[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final int[] legs = new int[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final double[] distances = new double[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private final double[] prices = new double[ColumnarTripResultWriter.ROWS_PER_GROUP];
+    private int rows;
+    private int position;
+
+    private ColumnarTripResultReader(DataInputStream in) throws IOException {
+        this.in = in;
+        if (in.readInt() != ColumnarTripResultWriter.MAGIC)
+            throw new IOException("Arquivo não é um resultado de viagens");
+        int version = in.readInt();
+        if (version != ColumnarTripResultWriter.VERSION)
+            throw new IOException("Versão de resultados não suportada: " + version);
+    }
+
+    public static ColumnarTripResultReader open(Path path) throws IOException {
+        return new ColumnarTripResultReader(
+                new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024)));
+    }
+
+    public TripResult next() throws IOException {
+        if (position == rows && !readGroup())
+            return null;
+
+        int i = position++;
+        return new TripResult(trainIds[i], origins[i], destinations[i], departures[i], arrivals[i],
+                waitingTimes[i], waits[i], reroutes[i], legs[i], distances[i], prices[i]);
+    }
+
+    public void forEach(Consumer<TripResult> action) throws IOException {
+        for (TripResult r = next(); r != null; r = next())
+            action.accept(r);
+    }
+
+    private boolean readGroup() throws IOException {
+        int count;
+        try {
+            count = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (count <= 0 || count > ColumnarTripResultWriter.ROWS_PER_GROUP)
+            throw new IOException("Grupo de resultados inválido: " + count + " linhas");
+
+        rows = count;
+        position = 0;
+        readStrings(trainIds);
+        readStrings(origins);
+        readStrings(destinations);
+        readDoubles(departures);
+        readDoubles(arrivals);
+        readDoubles(waitingTimes);
+        readInts(waits);
+        readInts(reroutes);
+        readInts(legs);
+        readDoubles(distances);
+        readDoubles(prices);
+        return true;
+    }
+
+    private void readStrings(String[] column) throws IOException {
+        for (int i = 0; i < rows; i++)
+            column[i] = in.readUTF();
+    }
+
+    private void readDoubles(double[] column) throws IOException {
+        for (int i = 0; i < rows; i++)
+            column[i] = in.readDouble();
+    }
+
+    private void readInts(int[] column) throws IOException {
+        for (int i = 0; i < rows; i++)
+            column[i] = in.readInt();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,97 @@
+package grafo_ferroviaria.results;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Rows are buffered into fixed-size groups and each group is written column by column, so memory stays
+// bounded by the group size no matter how many trains are exported.
+public class ColumnarTripResultWriter implements TripResultWriter {
+    static final int MAGIC = 0x47525452;
+    static final int VERSION = 1;
+    static final int ROWS_PER_GROUP = 4096;
+
+    private final DataOutputStream out;
+    private final String[] trainIds = new String[ROWS_PER_GROUP];
+    private final String[] origins = new String[ROWS_PER_GROUP];
+    private final String[] destinations = new String[ROWS_PER_GROUP];
+    private final double[] departures = new double[ROWS_PER_GROUP];
+    private final double[] arrivals = new double[ROWS_PER_GROUP];
+    private final double[] waitingTimes = new double[ROWS_PER_GROUP];
+    private final int[] waits = new int[ROWS_PER_GROUP];
+    private final int[] reroutes = new int[ROWS_PER_GROUP];
+    private final int[] legs = new int[ROWS_PER_GROUP];
+    private final double[] distances = new double[ROWS_PER_GROUP];
+    private final double[] prices = new double[ROWS_PER_GROUP];
+    private int rows;
+
+    private ColumnarTripResultWriter(DataOutputStream out) throws IOException {
+        this.out = out;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    public static ColumnarTripResultWriter open(Path path) throws IOException {
+        return new ColumnarTripResultWriter(
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024)));
+    }
+
+    @Override
+    public void write(TripResult r) throws IOException {
+        trainIds[rows] = r.trainId();
+        origins[rows] = r.origin();
+        destinations[rows] = r.destination();
+        departures[rows] = r.departure();
+        arrivals[rows] = r.arrival();
+        waitingTimes[rows] = r.waitingTime();
+        waits[rows] = r.waits();
+        reroutes[rows] = r.reroutes();
+        legs[rows] = r.legs();
+        distances[rows] = r.distance();
+        prices[rows] = r.price();
+        if (++rows == ROWS_PER_GROUP)
+            writeGroup();
+    }
+
+    private void writeGroup() throws IOException {
+        out.writeInt(rows);
+        writeStrings(trainIds);
+        writeStrings(origins);
+        writeStrings(destinations);
+        writeDoubles(departures);
+        writeDoubles(arrivals);
+        writeDoubles(waitingTimes);
+        writeInts(waits);
+        writeInts(reroutes);
+        writeInts(legs);
+        writeDoubles(distances);
+        writeDoubles(prices);
+        rows = 0;
+    }
+
+    private void writeStrings(String[] column) throws IOException {
+        for (int i = 0; i < rows; i++) {
+            out.writeUTF(column[i] != null ? column[i] : "");
+            column[i] = null;
+        }
+    }
+
+    private void writeDoubles(double[] column) throws IOException {
+        for (int i = 0; i < rows; i++)
+            out.writeDouble(column[i]);
+    }
+
+    private void writeInts(int[] column) throws IOException {
+        for (int i = 0; i < rows; i++)
+            out.writeInt(column[i]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rows > 0)
+            writeGroup();
+        out.close();
+    }
+}
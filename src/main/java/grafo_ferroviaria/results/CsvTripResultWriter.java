@@ -0,0 +1,55 @@
+package grafo_ferroviaria.results;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public class CsvTripResultWriter implements TripResultWriter {
+    static final String HEADER = "trem,origem,destino,partida,chegada,tempo_viagem,tempo_espera,esperas,"
+            + "rerroteamentos,trechos,distancia,preco";
+
+    private final BufferedWriter out;
+
+    private CsvTripResultWriter(BufferedWriter out) throws IOException {
+        this.out = out;
+        out.write(HEADER);
+        out.newLine();
+    }
+
+    public static CsvTripResultWriter open(Path path) throws IOException {
+        return new CsvTripResultWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void write(TripResult r) throws IOException {
+        out.write(quote(r.trainId()));
+        out.write(',');
+        out.write(quote(r.origin()));
+        out.write(',');
+        out.write(quote(r.destination()));
+        out.write(String.format(Locale.ROOT, ",%.3f,%s,%s,%.3f,%d,%d,%d,%.3f,%.2f",
+                r.departure(), number(r.arrival()), number(r.travelTime()), r.waitingTime(), r.waits(),
+                r.reroutes(), r.legs(), r.distance(), r.price()));
+        out.newLine();
+    }
+
+    private static String number(double value) {
+        return Double.isNaN(value) ? "" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String quote(String value) {
+        if (value == null)
+            return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0)
+            return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
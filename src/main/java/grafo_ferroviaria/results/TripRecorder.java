@@ -0,0 +1,130 @@
+package grafo_ferroviaria.results;
+
+import grafo_ferroviaria.managers.SimulationEventListener;
+import grafo_ferroviaria.managers.SimulationEventType;
+import grafo_ferroviaria.managers.TrainSimulator;
+import grafo_ferroviaria.models.LegSchedule;
+import grafo_ferroviaria.models.Train;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Only trains still travelling are held in memory; each trip is handed to the writer as soon as it arrives.
+public class TripRecorder implements SimulationEventListener, AutoCloseable {
+    private final TrainSimulator trainSimulator;
+    private final TripResultWriter writer;
+    private final Map<String, Trip> inFlight = new HashMap<>();
+    private boolean closed;
+    private IOException failure;
+
+    public TripRecorder(TrainSimulator trainSimulator, TripResultWriter writer) {
+        this.trainSimulator = trainSimulator;
+        this.writer = writer;
+    }
+
+    @Override
+    public synchronized void onEvent(SimulationEventType type, double simulationTime, String trainId,
+            TrainStation from, TrainStation to, double value) {
+        if (closed)
+            return;
+
+        if (type == SimulationEventType.DEPARTURE) {
+            inFlight.put(trainId, new Trip(from != null ? from.name() : null, simulationTime));
+            return;
+        }
+
+        Trip trip = inFlight.get(trainId);
+        if (trip == null)
+            return;
+
+        switch (type) {
+            case RAIL_ENTRY -> {
+                Train train = trainSimulator.getTrain(trainId);
+                if (train != null) {
+                    LegSchedule schedule = train.route().schedule();
+                    int leg = train.currentRouteIndex();
+                    trip.distance += schedule.legDistance(leg);
+                    trip.price += schedule.legPrice(leg);
+                    trip.legs++;
+                }
+            }
+            case WAIT_START -> {
+                trip.waitStart = simulationTime;
+                trip.waits++;
+            }
+            case WAIT_END -> endWait(trip, simulationTime);
+            case REROUTE -> trip.reroutes++;
+            case ARRIVAL -> {
+                inFlight.remove(trainId);
+                write(trip.result(trainId, from != null ? from.name() : null, simulationTime));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static void endWait(Trip trip, double time) {
+        if (!Double.isNaN(trip.waitStart)) {
+            trip.waitingTime += time - trip.waitStart;
+            trip.waitStart = Double.NaN;
+        }
+    }
+
+    private void write(TripResult result) {
+        if (failure != null)
+            return;
+        try {
+            writer.write(result);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        double now = trainSimulator.getSimulationTime();
+        for (Map.Entry<String, Trip> e : inFlight.entrySet()) {
+            Trip trip = e.getValue();
+            endWait(trip, now);
+            Train train = trainSimulator.getTrain(e.getKey());
+            String destination = train != null ? train.route().last().name() : null;
+            write(trip.result(e.getKey(), destination, Double.NaN));
+        }
+        inFlight.clear();
+        writer.close();
+        if (failure != null)
+            throw failure;
+    }
+
+    private static final class Trip {
+        final String origin;
+        final double departure;
+        double waitStart = Double.NaN;
+        double waitingTime;
+        int waits;
+        int reroutes;
+        int legs;
+        double distance;
+        double price;
+
+        Trip(String origin, double departure) {
+            this.origin = origin;
+            this.departure = departure;
+        }
+
+        TripResult result(String trainId, String destination, double arrival) {
+            return new TripResult(trainId, origin, destination, departure, arrival, waitingTime, waits, reroutes,
+                    legs, distance, price);
+        }
+    }
+}
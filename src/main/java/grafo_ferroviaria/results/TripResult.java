@@ -0,0 +1,88 @@
+package grafo_ferroviaria.results;
+
+public final class TripResult {
+    private final String trainId;
+    private final String origin;
+    private final String destination;
+    private final double departure;
+    private final double arrival;
+    private final double waitingTime;
+    private final int waits;
+    private final int reroutes;
+    private final int legs;
+    private final double distance;
+    private final double price;
+
+    public TripResult(String trainId, String origin, String destination, double departure, double arrival,
+            double waitingTime, int waits, int reroutes, int legs, double distance, double price) {
+        this.trainId = trainId;
+        this.origin = origin;
+        this.destination = destination;
+        this.departure = departure;
+        this.arrival = arrival;
+        this.waitingTime = waitingTime;
+        this.waits = waits;
+        this.reroutes = reroutes;
+        this.legs = legs;
+        this.distance = distance;
+        this.price = price;
+    }
+
+    public String trainId() {
+        return trainId;
+    }
+
+    public String origin() {
+        return origin;
+    }
+
+    public String destination() {
+        return destination;
+    }
+
+    public double departure() {
+        return departure;
+    }
+
+    public double arrival() {
+        return arrival;
+    }
+
+    public boolean hasArrived() {
+        return !Double.isNaN(arrival);
+    }
+
+    public double travelTime() {
+        return arrival - departure;
+    }
+
+    public double waitingTime() {
+        return waitingTime;
+    }
+
+    public int waits() {
+        return waits;
+    }
+
+    public int reroutes() {
+        return reroutes;
+    }
+
+    public int legs() {
+        return legs;
+    }
+
+    public double distance() {
+        return distance;
+    }
+
+    public double price() {
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s→%s: %.1f min, espera %.1f min, %d rerroteamentos, %.1f km, R$ %.2f",
+                trainId, origin, destination, travelTime(), waitingTime, reroutes, distance, price);
+    }
+}
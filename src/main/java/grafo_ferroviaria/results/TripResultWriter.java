@@ -0,0 +1,17 @@
+package grafo_ferroviaria.results;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface TripResultWriter extends AutoCloseable {
+    void write(TripResult result) throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    static TripResultWriter open(Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".csv"))
+            return CsvTripResultWriter.open(path);
+        return ColumnarTripResultWriter.open(path);
+    }
+}
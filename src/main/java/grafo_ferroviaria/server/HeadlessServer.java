@@ -0,0 +1,44 @@
+package grafo_ferroviaria.server;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.managers.SimulationLoop;
+import grafo_ferroviaria.tools.FleetSchedule;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class HeadlessServer {
+    private static final double TIME_STEP = 0.5;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Uso: java HeadlessServer <arquivo_ferrovia> <frota.txt> [porta] [intervalo_ms]");
+            System.exit(1);
+        }
+
+        RailwayManager railwayManager = new RailwayManager(false);
+        railwayManager.loadRailway(args[0]);
+        FleetSchedule fleet = FleetSchedule.readText(Paths.get(args[1]));
+        int port = args.length > 2 ? Integer.parseInt(args[2]) : 8080;
+        long interval = args.length > 3 ? Long.parseLong(args[3]) : 100;
+
+        SimulationLoop loop = new SimulationLoop(railwayManager.getTrainSimulator(), TIME_STEP, interval);
+        PositionStream positions = new PositionStream();
+        loop.addSnapshotListener(positions);
+        loop.submit(() -> System.out.println(fleet.addTo(railwayManager) + " trens carregados"));
+        loop.setBeforeTick(() -> fleet.dispatchDue(railwayManager,
+                railwayManager.getTrainSimulator().getSimulationTime()));
+
+        RouteServer server = new RouteServer(railwayManager, loop::latest, port);
+        server.streamPositions(positions);
+        server.start();
+        loop.start();
+        railwayManager.metrics().registerMBean();
+        System.out.println("Simulação sem interface em http://localhost:" + server.port() + "/posicoes");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            loop.shutdown();
+            server.close();
+        }, "headless-close"));
+    }
+}
@@ -0,0 +1,42 @@
+package grafo_ferroviaria.server;
+
+import java.util.Locale;
+
+final class Json {
+    private Json() {
+    }
+
+    static String quote(String value) {
+        if (value == null)
+            return "null";
+
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        sb.append(String.format("\\u%04x", (int) c));
+                    else
+                        sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return "null";
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    static String error(String message) {
+        return "{\"erro\":" + quote(message) + "}";
+    }
+}
@@ -0,0 +1,109 @@
+package grafo_ferroviaria.server;
+
+import grafo_ferroviaria.managers.SimulationSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+// The simulation thread only swaps in the newest snapshot; a separate thread diffs it against the last one
+// (unchanged trains keep the same frame instance) and fans the delta out to the subscribers. The class is
+// final because the constructor starts that thread on this::run.
+public final class PositionStream implements Consumer<SimulationSnapshot>, AutoCloseable {
+    private final AtomicReference<SimulationSnapshot> incoming = new AtomicReference<>();
+    private final List<PositionSubscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder skippedSnapshots = new LongAdder();
+    private final LongAdder conflatedFrames = new LongAdder();
+
+    private volatile boolean closed;
+    private volatile SimulationSnapshot current = SimulationSnapshot.empty();
+    private Map<String, SimulationSnapshot.TrainFrame> lastFrames = new HashMap<>();
+
+    public PositionStream() {
+        this.thread = new Thread(this::run, "position-stream");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void accept(SimulationSnapshot snapshot) {
+        if (incoming.getAndSet(snapshot) != null)
+            skippedSnapshots.increment();
+        LockSupport.unpark(thread);
+    }
+
+    public synchronized PositionSubscriber subscribe() {
+        PositionSubscriber subscriber = new PositionSubscriber();
+        subscribers.add(subscriber);
+        SimulationSnapshot snapshot = current;
+        subscriber.offer(snapshot.sequence(), snapshot.simulationTime(), snapshot.trains(), List.of());
+        return subscriber;
+    }
+
+    public void unsubscribe(PositionSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long deltas() {
+        return deltas.sum();
+    }
+
+    public long skippedSnapshots() {
+        return skippedSnapshots.sum();
+    }
+
+    public long conflatedFrames() {
+        return conflatedFrames.sum();
+    }
+
+    private void run() {
+        while (!closed) {
+            SimulationSnapshot snapshot = incoming.getAndSet(null);
+            if (snapshot == null) {
+                LockSupport.park(this);
+                continue;
+            }
+            publish(snapshot);
+        }
+    }
+
+    private synchronized void publish(SimulationSnapshot snapshot) {
+        Map<String, SimulationSnapshot.TrainFrame> frames = new HashMap<>(snapshot.trains().size() * 2);
+        List<SimulationSnapshot.TrainFrame> changed = new ArrayList<>();
+        for (SimulationSnapshot.TrainFrame frame : snapshot.trains()) {
+            frames.put(frame.trainId(), frame);
+            if (lastFrames.remove(frame.trainId()) != frame)
+                changed.add(frame);
+        }
+        List<String> gone = new ArrayList<>(lastFrames.keySet());
+        lastFrames = frames;
+        current = snapshot;
+
+        if (changed.isEmpty() && gone.isEmpty())
+            return;
+        deltas.increment();
+        for (PositionSubscriber subscriber : subscribers)
+            conflatedFrames.add(subscriber.offer(snapshot.sequence(), snapshot.simulationTime(), changed, gone));
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        for (PositionSubscriber subscriber : subscribers)
+            unsubscribe(subscriber);
+    }
+}
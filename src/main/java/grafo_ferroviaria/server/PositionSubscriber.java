@@ -0,0 +1,131 @@
+package grafo_ferroviaria.server;
+
+import grafo_ferroviaria.managers.SimulationSnapshot;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Holds at most one pending frame per train: while the client is busy, newer frames replace older ones
+// instead of queueing, so a slow client only ever lags behind and never holds back the simulation.
+public class PositionSubscriber {
+    private final Map<String, SimulationSnapshot.TrainFrame> pending = new LinkedHashMap<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+    private long sequence;
+    private double simulationTime;
+    private boolean dirty;
+    private boolean closed;
+
+    synchronized int offer(long sequence, double simulationTime, List<SimulationSnapshot.TrainFrame> changed,
+            List<String> gone) {
+        if (closed)
+            return 0;
+
+        int conflated = 0;
+        for (SimulationSnapshot.TrainFrame frame : changed) {
+            if (pending.put(frame.trainId(), frame) != null)
+                conflated++;
+            removed.remove(frame.trainId());
+        }
+        for (String trainId : gone) {
+            pending.remove(trainId);
+            removed.add(trainId);
+        }
+        this.sequence = sequence;
+        this.simulationTime = simulationTime;
+        this.dirty = true;
+        notifyAll();
+        return conflated;
+    }
+
+    public synchronized Delta take() throws InterruptedException {
+        while (!dirty && !closed)
+            wait();
+        if (closed)
+            return null;
+
+        Delta delta = new Delta(sequence, simulationTime, new ArrayList<>(pending.values()),
+                new ArrayList<>(removed));
+        pending.clear();
+        removed.clear();
+        dirty = false;
+        return delta;
+    }
+
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    public static final class Delta {
+        private final long sequence;
+        private final double simulationTime;
+        private final List<SimulationSnapshot.TrainFrame> trains;
+        private final List<String> removed;
+
+        Delta(long sequence, double simulationTime, List<SimulationSnapshot.TrainFrame> trains,
+                List<String> removed) {
+            this.sequence = sequence;
+            this.simulationTime = simulationTime;
+            this.trains = trains;
+            this.removed = removed;
+        }
+
+        public long sequence() {
+            return sequence;
+        }
+
+        public double simulationTime() {
+            return simulationTime;
+        }
+
+        public List<SimulationSnapshot.TrainFrame> trains() {
+            return trains;
+        }
+
+        public List<String> removed() {
+            return removed;
+        }
+
+        public String toJson() {
+            StringBuilder sb = new StringBuilder(64 + trains.size() * 96);
+            sb.append("{\"seq\":").append(sequence).append(",\"tempo\":").append(Json.number(simulationTime))
+                    .append(",\"trens\":[");
+            for (int i = 0; i < trains.size(); i++) {
+                SimulationSnapshot.TrainFrame f = trains.get(i);
+                if (i > 0)
+                    sb.append(',');
+                sb.append("{\"id\":").append(Json.quote(f.trainId()))
+                        .append(",\"estacao\":")
+                        .append(Json.quote(f.currentStation() != null ? f.currentStation().name() : null))
+                        .append(",\"proxima\":")
+                        .append(Json.quote(f.nextStation() != null ? f.nextStation().name() : null))
+                        .append(",\"progresso\":").append(Json.number(f.progress()))
+                        .append(",\"velocidade\":").append(Json.number(f.currentSpeed()))
+                        .append(",\"estado\":\"").append(state(f)).append("\"}");
+            }
+            sb.append("],\"removidos\":[");
+            for (int i = 0; i < removed.size(); i++) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append(Json.quote(removed.get(i)));
+            }
+            return sb.append("]}").toString();
+        }
+
+        private static char state(SimulationSnapshot.TrainFrame f) {
+            if (f.hasReachedDestination())
+                return 'C';
+            if (f.isWaiting())
+                return 'A';
+            return f.isMoving() ? 'M' : 'P';
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package grafo_ferroviaria.server;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.managers.TrainRoutePlanner;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+// Identical queries in flight share one future; distinct queries from the same origin and criterion that
+// arrive within the batching window are answered by a single shortest-path tree.
+public class RouteBatcher implements AutoCloseable {
+    public static final long DEFAULT_WINDOW_MICROS = 2_000;
+    public static final int MAX_BATCH = 256;
+
+    private final RailwayManager railwayManager;
+    private final long windowMicros;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final ConcurrentHashMap<RouteKey, CompletableFuture<List<TrainStation>>> inFlight =
+            new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<SourceKey, Batch> open = new ConcurrentHashMap<>();
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder batchedQueries = new LongAdder();
+
+    public RouteBatcher(RailwayManager railwayManager) {
+        this(railwayManager, DEFAULT_WINDOW_MICROS);
+    }
+
+    public RouteBatcher(RailwayManager railwayManager, long windowMicros) {
+        this.railwayManager = railwayManager;
+        this.windowMicros = windowMicros;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "route-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+        this.workers = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    public CompletableFuture<List<TrainStation>> route(String fromStation, String toStation,
+            RailwayManager.RouteCriterion criterion) {
+        TrainStation from = railwayManager.stations().get(fromStation);
+        TrainStation to = railwayManager.stations().get(toStation);
+        if (from == null || to == null)
+            throw new IllegalArgumentException("Estação não encontrada");
+
+        queries.increment();
+        RouteKey key = new RouteKey(from, to, criterion);
+        CompletableFuture<List<TrainStation>> created = new CompletableFuture<>();
+        CompletableFuture<List<TrainStation>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        created.whenComplete((path, error) -> inFlight.remove(key, created));
+        enqueue(new SourceKey(from, criterion), new Pending(to, created));
+        return created;
+    }
+
+    private void enqueue(SourceKey sourceKey, Pending pending) {
+        while (true) {
+            Batch batch = open.computeIfAbsent(sourceKey, Batch::new);
+            int size = batch.add(pending);
+            if (size < 0) {
+                open.remove(sourceKey, batch);
+                continue;
+            }
+            if (size == 1)
+                timer.schedule(() -> flush(batch), windowMicros, TimeUnit.MICROSECONDS);
+            else if (size >= MAX_BATCH)
+                flush(batch);
+            return;
+        }
+    }
+
+    private void flush(Batch batch) {
+        open.remove(batch.key, batch);
+        List<Pending> items = batch.close();
+        if (items != null)
+            workers.execute(() -> solve(batch.key, items));
+    }
+
+    private void solve(SourceKey key, List<Pending> items) {
+        searches.increment();
+        batchedQueries.add(items.size());
+        try {
+            GenericGraph<TrainStation, Rail> graph = railwayManager.graph();
+            ToDoubleFunction<Rail> cost = TrainRoutePlanner.costFunction(key.criterion);
+
+            if (items.size() == 1) {
+                Pending p = items.get(0);
+                GenericGraph.PathResult<TrainStation> result = graph.shortestPath(key.from, p.to, cost, null);
+                complete(key.from, p, result.path);
+                return;
+            }
+
+            GenericGraph.ShortestPathTree<TrainStation> tree = graph.shortestPathTree(key.from, cost, null);
+            for (Pending p : items)
+                complete(key.from, p, tree.pathTo(p.to));
+        } catch (RuntimeException e) {
+            for (Pending p : items)
+                p.future.completeExceptionally(e);
+        }
+    }
+
+    private static void complete(TrainStation from, Pending pending, List<TrainStation> path) {
+        if (path.isEmpty())
+            pending.future.completeExceptionally(new IllegalArgumentException(
+                    "Não existe caminho entre " + from.name() + " e " + pending.to.name()));
+        else
+            pending.future.complete(path);
+    }
+
+    public long queries() {
+        return queries.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    public long searches() {
+        return searches.sum();
+    }
+
+    public double averageBatchSize() {
+        long n = searches.sum();
+        return n == 0 ? 0.0 : (double) batchedQueries.sum() / n;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        for (Batch batch : open.values())
+            flush(batch);
+        workers.close();
+    }
+
+    private static final class RouteKey {
+        final TrainStation from;
+        final TrainStation to;
+        final RailwayManager.RouteCriterion criterion;
+
+        RouteKey(TrainStation from, TrainStation to, RailwayManager.RouteCriterion criterion) {
+            this.from = from;
+            this.to = to;
+            this.criterion = criterion;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RouteKey other))
+                return false;
+            return from.equals(other.from) && to.equals(other.to) && criterion == other.criterion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to, criterion);
+        }
+    }
+
+    private static final class SourceKey {
+        final TrainStation from;
+        final RailwayManager.RouteCriterion criterion;
+
+        SourceKey(TrainStation from, RailwayManager.RouteCriterion criterion) {
+            this.from = from;
+            this.criterion = criterion;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SourceKey other))
+                return false;
+            return from.equals(other.from) && criterion == other.criterion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, criterion);
+        }
+    }
+
+    private static final class Pending {
+        final TrainStation to;
+        final CompletableFuture<List<TrainStation>> future;
+
+        Pending(TrainStation to, CompletableFuture<List<TrainStation>> future) {
+            this.to = to;
+            this.future = future;
+        }
+    }
+
+    private static final class Batch {
+        final SourceKey key;
+        private List<Pending> items = new ArrayList<>();
+
+        Batch(SourceKey key) {
+            this.key = key;
+        }
+
+        synchronized int add(Pending pending) {
+            if (items == null)
+                return -1;
+            items.add(pending);
+            return items.size();
+        }
+
+        synchronized List<Pending> close() {
+            List<Pending> result = items;
+            items = null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package grafo_ferroviaria.server;
+
+import grafo_ferroviaria.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Most queries start from a few "hot" origins so that coalescing and same-origin batching are exercised.
+public class RouteLoadGenerator {
+    private static final Pattern NAME = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final double HOT_FRACTION = 0.8;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3 || args.length > 5) {
+            System.out.println("Uso: java RouteLoadGenerator <url_base> <requisições> <concorrência>"
+                    + " [origens_quentes] [semente]");
+            System.exit(1);
+        }
+
+        String base = args[0].endsWith("/") ? args[0].substring(0, args[0].length() - 1) : args[0];
+        int requests = Integer.parseInt(args[1]);
+        int concurrency = Integer.parseInt(args[2]);
+        int hotOrigins = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        Random random = new Random(args.length > 4 ? Long.parseLong(args[4]) : 42L);
+
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        List<String> stations = fetchStations(client, base);
+        if (stations.size() < 2) {
+            System.out.println("O servidor precisa ter pelo menos 2 estações");
+            System.exit(1);
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        Semaphore permits = new Semaphore(concurrency);
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                String from = random.nextDouble() < HOT_FRACTION
+                        ? stations.get(random.nextInt(Math.min(hotOrigins, stations.size())))
+                        : stations.get(random.nextInt(stations.size()));
+                String to = stations.get(random.nextInt(stations.size()));
+                URI uri = URI.create(base + "/rota?origem=" + encode(from) + "&destino=" + encode(to));
+
+                permits.acquire();
+                executor.execute(() -> {
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 500)
+                            errors.increment();
+                        latency.record(System.nanoTime() - t0);
+                    } catch (IOException | InterruptedException e) {
+                        errors.increment();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d requisições em %.2f s (%.0f req/s), %d erros%n", requests, seconds,
+                requests / seconds, errors.sum());
+        System.out.printf("Latência: média=%.2fms p50=%.2fms p99=%.2fms máx=%.2fms%n", latency.mean() / 1e6,
+                latency.percentile(50.0) / 1e6, latency.percentile(99.0) / 1e6, latency.max() / 1e6);
+
+        HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(URI.create(base + "/metricas")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        System.out.println("Métricas do servidor: " + metrics.body());
+    }
+
+    private static List<String> fetchStations(HttpClient client, String base) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/estacoes")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        List<String> names = new ArrayList<>();
+        Matcher m = NAME.matcher(response.body());
+        while (m.find())
+            names.add(m.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+        return names;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
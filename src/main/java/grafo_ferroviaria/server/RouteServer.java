@@ -0,0 +1,323 @@
+package grafo_ferroviaria.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.managers.SimulationSnapshot;
+import grafo_ferroviaria.managers.TrainRoutePlanner;
+import grafo_ferroviaria.metrics.LatencyHistogram;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+public class RouteServer implements AutoCloseable {
+    private static final long ROUTE_TIMEOUT_SECONDS = 10;
+
+    private final RailwayManager railwayManager;
+    private final Supplier<SimulationSnapshot> snapshots;
+    private final RouteBatcher batcher;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private volatile PositionStream positions;
+
+    public RouteServer(RailwayManager railwayManager, Supplier<SimulationSnapshot> snapshots, int port)
+            throws IOException {
+        this.railwayManager = railwayManager;
+        this.snapshots = snapshots;
+        this.batcher = new RouteBatcher(railwayManager);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+
+        register("/estacoes", this::stations);
+        register("/rota", this::route);
+        register("/estatisticas", this::statistics);
+        register("/trens", this::trains);
+        register("/metricas", this::metrics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public RouteBatcher batcher() {
+        return batcher;
+    }
+
+    public void streamPositions(PositionStream stream) {
+        this.positions = stream;
+        server.createContext("/posicoes", this::positions);
+    }
+
+    @Override
+    public void close() {
+        PositionStream stream = positions;
+        if (stream != null)
+            stream.close();
+        server.stop(0);
+        batcher.close();
+        executor.close();
+    }
+
+    // Server-sent events: the full state first, then one conflated delta per line as the client keeps up.
+    private void positions(HttpExchange exchange) throws IOException {
+        PositionStream stream = positions;
+        PositionSubscriber subscriber = stream.subscribe();
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (PositionSubscriber.Delta delta = subscriber.take(); delta != null; delta = subscriber.take()) {
+                out.write(("data: " + delta.toJson() + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            // Cliente desconectou.
+        } finally {
+            stream.unsubscribe(subscriber);
+        }
+    }
+
+    private void register(String path, Endpoint endpoint) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        latencies.put(path, histogram);
+        server.createContext(path, new TimedHandler(endpoint, histogram));
+    }
+
+    private String stations(HttpExchange exchange, Map<String, String> query) {
+        List<String> names = new ArrayList<>();
+        for (TrainStation s : railwayManager.registry().stations())
+            names.add(Json.quote(s.name()));
+        return "[" + String.join(",", names) + "]";
+    }
+
+    private String route(HttpExchange exchange, Map<String, String> query) throws InterruptedException {
+        String from = required(query, "origem");
+        String to = required(query, "destino");
+        RailwayManager.RouteCriterion criterion = criterion(query.getOrDefault("criterio", "TIME"));
+
+        List<TrainStation> path;
+        try {
+            path = batcher.route(from, to, criterion).get(ROUTE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Tempo esgotado ao calcular rota");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"origem\":").append(Json.quote(from))
+                .append(",\"destino\":").append(Json.quote(to))
+                .append(",\"criterio\":").append(Json.quote(criterion.name()))
+                .append(",\"estacoes\":").append(stationNames(path));
+        if (path.size() >= 2)
+            sb.append(',').append(statisticsFields(new TrainRoutePlanner(railwayManager).calculateRouteStatistics(path)));
+        return sb.append('}').toString();
+    }
+
+    private String statistics(HttpExchange exchange, Map<String, String> query) {
+        List<TrainStation> route = new ArrayList<>();
+        for (String name : required(query, "estacoes").split(",")) {
+            TrainStation station = railwayManager.stations().get(name.trim());
+            if (station == null)
+                throw new IllegalArgumentException("Estação não encontrada: " + name.trim());
+            route.add(station);
+        }
+
+        TrainRoutePlanner planner = new TrainRoutePlanner(railwayManager);
+        String speed = query.get("velocidade");
+        TrainRoutePlanner.RouteStatistics stats = speed != null
+                ? planner.calculateRouteStatisticsForTrain(route, parseDouble("velocidade", speed))
+                : planner.calculateRouteStatistics(route);
+        return "{\"estacoes\":" + stationNames(route) + "," + statisticsFields(stats) + "}";
+    }
+
+    private String trains(HttpExchange exchange, Map<String, String> query) {
+        SimulationSnapshot snapshot = snapshots.get();
+        String only = query.get("trem");
+
+        List<String> rows = new ArrayList<>();
+        for (SimulationSnapshot.TrainFrame f : snapshot.trains()) {
+            if (only != null && !only.equals(f.trainId()))
+                continue;
+            rows.add("{\"trem\":" + Json.quote(f.trainId())
+                    + ",\"estacao\":" + Json.quote(f.currentStation() != null ? f.currentStation().name() : null)
+                    + ",\"proxima\":" + Json.quote(f.nextStation() != null ? f.nextStation().name() : null)
+                    + ",\"velocidade\":" + Json.number(f.currentSpeed())
+                    + ",\"em_movimento\":" + f.isMoving()
+                    + ",\"aguardando\":" + f.isWaiting()
+                    + ",\"chegou\":" + f.hasReachedDestination()
+                    + ",\"tempo_proxima\":" + Json.number(f.timeToNextStation()) + "}");
+        }
+        if (only != null && rows.isEmpty())
+            throw new IllegalArgumentException("Trem não encontrado: " + only);
+
+        return "{\"tempo\":" + Json.number(snapshot.simulationTime()) + ",\"trens\":[" + String.join(",", rows)
+                + "]}";
+    }
+
+    private String metrics(HttpExchange exchange, Map<String, String> query) {
+        StringBuilder sb = new StringBuilder("{\"endpoints\":{");
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> e : latencies.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            if (!first)
+                sb.append(',');
+            first = false;
+            sb.append(Json.quote(e.getKey())).append(":{\"n\":").append(h.count())
+                    .append(",\"media_ms\":").append(Json.number(h.mean() / 1e6))
+                    .append(",\"p50_ms\":").append(Json.number(h.percentile(50.0) / 1e6))
+                    .append(",\"p99_ms\":").append(Json.number(h.percentile(99.0) / 1e6))
+                    .append(",\"max_ms\":").append(Json.number(h.max() / 1e6)).append('}');
+        }
+        PositionStream stream = positions;
+        if (stream != null)
+            sb.append("},\"assinantes\":").append(stream.subscriberCount())
+                    .append(",\"deltas\":").append(stream.deltas())
+                    .append(",\"quadros_combinados\":").append(stream.conflatedFrames())
+                    .append(",\"snapshots_pulados\":").append(stream.skippedSnapshots());
+        else
+            sb.append('}');
+        return sb.append(",\"consultas\":").append(batcher.queries())
+                .append(",\"consultas_agrupadas\":").append(batcher.coalesced())
+                .append(",\"buscas\":").append(batcher.searches())
+                .append(",\"lote_medio\":").append(Json.number(batcher.averageBatchSize()))
+                .append('}').toString();
+    }
+
+    private static String stationNames(List<TrainStation> route) {
+        List<String> names = new ArrayList<>(route.size());
+        for (TrainStation s : route)
+            names.add(Json.quote(s.name()));
+        return "[" + String.join(",", names) + "]";
+    }
+
+    private static String statisticsFields(TrainRoutePlanner.RouteStatistics stats) {
+        return "\"distancia\":" + Json.number(stats.totalDistance())
+                + ",\"preco\":" + Json.number(stats.totalPrice())
+                + ",\"tempo\":" + stats.totalTime()
+                + ",\"paradas\":" + stats.numStops();
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isBlank())
+            throw new IllegalArgumentException("Parâmetro obrigatório ausente: " + name);
+        return value;
+    }
+
+    private static double parseDouble(String name, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido para " + name + ": " + value);
+        }
+    }
+
+    private static RailwayManager.RouteCriterion criterion(String value) {
+        try {
+            return RailwayManager.RouteCriterion.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Critério inválido: " + value);
+        }
+    }
+
+    static Map<String, String> parseQuery(String raw) {
+        Map<String, String> query = new HashMap<>();
+        if (raw == null || raw.isEmpty())
+            return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        String handle(HttpExchange exchange, Map<String, String> query) throws Exception;
+    }
+
+    private static final class TimedHandler implements HttpHandler {
+        private final Endpoint endpoint;
+        private final LatencyHistogram latency;
+
+        TimedHandler(Endpoint endpoint, LatencyHistogram latency) {
+            this.endpoint = endpoint;
+            this.latency = latency;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            int status = 200;
+            String body;
+            try {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    status = 405;
+                    body = Json.error("Método não permitido: " + exchange.getRequestMethod());
+                } else {
+                    body = endpoint.handle(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+                }
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                body = Json.error(e.getMessage());
+            } catch (Exception e) {
+                status = 500;
+                body = Json.error(e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.out.println("Uso: java RouteServer <arquivo_ferrovia> [porta]");
+            System.exit(1);
+        }
+
+        RailwayManager railwayManager = new RailwayManager(false);
+        railwayManager.loadRailway(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+
+        RouteServer server = new RouteServer(railwayManager, SimulationSnapshot::empty, port);
+        server.start();
+        System.out.println("Servidor de rotas em http://localhost:" + server.port() + "/");
+    }
+}
@@ -0,0 +1,322 @@
+package grafo_ferroviaria.timetable;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.LegSchedule;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainDynamics;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Offline planner: trips are taken in order of requested departure (higher priority first on ties)
+// and each one is held at its origin until every rail on its route is free for the whole time it
+// will run over it. Trips never wait en route, so the resulting timetable runs without conflicts.
+public class ReservationPlanner {
+    private final RailwayManager manager;
+    private final double timeStep;
+    private final Map<Long, Reservations> reservations = new HashMap<>();
+
+    // With a positive time step, leg and dwell times are rounded up to whole simulation steps and each
+    // reservation keeps one extra step, since trains leaving and entering a rail in the same tick are
+    // processed in no particular order. That keeps the plan conflict-free in the tick-based simulator.
+    public ReservationPlanner(RailwayManager manager, double timeStep) {
+        if (timeStep < 0)
+            throw new IllegalArgumentException("Passo de tempo inválido: " + timeStep);
+        this.manager = manager;
+        this.timeStep = timeStep;
+    }
+
+    public Plan plan(Timetable timetable) {
+        List<TimetableEntry> order = new ArrayList<>(timetable.entries());
+        order.sort(Comparator.comparingDouble(TimetableEntry::departure)
+                .thenComparing(Comparator.comparingInt(TimetableEntry::priority).reversed()));
+
+        List<PlannedTrip> planned = new ArrayList<>(order.size());
+        List<String> rejected = new ArrayList<>();
+        for (TimetableEntry entry : order) {
+            List<TrainStation> route;
+            try {
+                route = Timetable.resolveRoute(manager, entry);
+            } catch (IllegalArgumentException e) {
+                rejected.add(entry.id() + ": " + e.getMessage());
+                continue;
+            }
+            planned.add(plan(entry, route));
+        }
+        return new Plan(planned, rejected);
+    }
+
+    private PlannedTrip plan(TimetableEntry entry, List<TrainStation> route) {
+        GenericGraph<TrainStation, Rail> graph = manager.graph();
+        int[] stops = Timetable.stopIndices(route, entry);
+        LegSchedule schedule = LegSchedule.of(route, stops, graph, TrainDynamics.of(entry.maxSpeed()));
+        int legs = schedule.legs();
+        boolean[] stop = new boolean[route.size()];
+        for (int index : stops)
+            stop[index] = true;
+
+        Rail[] rails = new Rail[legs];
+        double[] enter = new double[legs];
+        double[] duration = new double[legs];
+        double offset = 0.0;
+        for (int i = 0; i < legs; i++) {
+            rails[i] = graph.neighbors(route.get(i)).get(route.get(i + 1));
+            // Stations filled in between the entry's stops are passed through without dwelling.
+            if (i > 0 && stop[i])
+                offset += roundUp(schedule.dynamics().dwellTime());
+            enter[i] = offset;
+            duration[i] = roundUp(schedule.legTime(i));
+            offset += duration[i];
+        }
+
+        double departure = roundUp(entry.departure());
+        int conflicts = 0;
+        boolean clear = false;
+        while (!clear) {
+            clear = true;
+            for (int i = 0; i < legs; i++) {
+                double start = departure + enter[i];
+                double freeAt = freeAt(route.get(i), route.get(i + 1), rails[i], start,
+                        start + duration[i] + timeStep);
+                if (freeAt > start) {
+                    departure = roundUp(departure + (freeAt - start));
+                    conflicts++;
+                    clear = false;
+                    break;
+                }
+            }
+        }
+
+        for (int i = 0; i < legs; i++) {
+            double start = departure + enter[i];
+            reservations(route.get(i), route.get(i + 1)).add(start, start + duration[i] + timeStep);
+        }
+        return new PlannedTrip(entry, departure, departure + offset, conflicts);
+    }
+
+    // Earliest start that clears the first conflict found at [start, end); start itself when free.
+    private double freeAt(TrainStation from, TrainStation to, Rail rail, double start, double end) {
+        Reservations same = reservations.get(key(from, to));
+        double freeAt = start;
+
+        if (same != null) {
+            if (same.countOverlapping(start, end) >= rail.capacity())
+                freeAt = Math.max(freeAt, same.earliestEndOverlapping(start, end));
+            if (rail.headway() > 0) {
+                double blockedUntil = same.lastStartWithin(start - rail.headway(), start + rail.headway());
+                if (!Double.isNaN(blockedUntil))
+                    freeAt = Math.max(freeAt, blockedUntil + rail.headway());
+            }
+        }
+
+        if (rail.isSingleTrack() && !manager.graph().isDirected()) {
+            Reservations opposing = reservations.get(key(to, from));
+            if (opposing != null && opposing.countOverlapping(start, end) > 0)
+                freeAt = Math.max(freeAt, opposing.latestEndOverlapping(start, end));
+        }
+        return freeAt;
+    }
+
+    private double roundUp(double minutes) {
+        if (timeStep <= 0)
+            return minutes;
+        return Math.ceil(minutes / timeStep - 1e-9) * timeStep;
+    }
+
+    private Reservations reservations(TrainStation from, TrainStation to) {
+        return reservations.computeIfAbsent(key(from, to), k -> new Reservations());
+    }
+
+    private static long key(TrainStation from, TrainStation to) {
+        return ((long) from.id() << 32) | (to.id() & 0xFFFFFFFFL);
+    }
+
+    // Intervals on one rail direction, kept sorted by start.
+    private static final class Reservations {
+        private double[] starts = new double[4];
+        private double[] ends = new double[4];
+        private int size;
+        private double longest;
+
+        void add(double start, double end) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            int at = firstStartAtOrAfter(start);
+            System.arraycopy(starts, at, starts, at + 1, size - at);
+            System.arraycopy(ends, at, ends, at + 1, size - at);
+            starts[at] = start;
+            ends[at] = end;
+            size++;
+            longest = Math.max(longest, end - start);
+        }
+
+        int countOverlapping(double start, double end) {
+            int count = 0;
+            for (int i = firstStartAtOrAfter(end) - 1; i >= 0 && starts[i] > start - longest; i--) {
+                if (ends[i] > start)
+                    count++;
+            }
+            return count;
+        }
+
+        double earliestEndOverlapping(double start, double end) {
+            double earliest = Double.POSITIVE_INFINITY;
+            for (int i = firstStartAtOrAfter(end) - 1; i >= 0 && starts[i] > start - longest; i--) {
+                if (ends[i] > start)
+                    earliest = Math.min(earliest, ends[i]);
+            }
+            return earliest;
+        }
+
+        double latestEndOverlapping(double start, double end) {
+            double latest = start;
+            for (int i = firstStartAtOrAfter(end) - 1; i >= 0 && starts[i] > start - longest; i--) {
+                if (ends[i] > start)
+                    latest = Math.max(latest, ends[i]);
+            }
+            return latest;
+        }
+
+        double lastStartWithin(double from, double to) {
+            int i = firstStartAtOrAfter(to) - 1;
+            return i >= 0 && starts[i] > from ? starts[i] : Double.NaN;
+        }
+
+        private int firstStartAtOrAfter(double value) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < value)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    public static final class PlannedTrip {
+        private final TimetableEntry entry;
+        private final double departure;
+        private final double arrival;
+        private final int conflicts;
+
+        PlannedTrip(TimetableEntry entry, double departure, double arrival, int conflicts) {
+            this.entry = entry;
+            this.departure = departure;
+            this.arrival = arrival;
+            this.conflicts = conflicts;
+        }
+
+        public TimetableEntry entry() {
+            return entry;
+        }
+
+        public double requestedDeparture() {
+            return entry.departure();
+        }
+
+        public double departure() {
+            return departure;
+        }
+
+        public double arrival() {
+            return arrival;
+        }
+
+        public double delay() {
+            return departure - entry.departure();
+        }
+
+        public int conflicts() {
+            return conflicts;
+        }
+    }
+
+    public static final class Plan {
+        private final List<PlannedTrip> trips;
+        private final List<String> rejected;
+
+        Plan(List<PlannedTrip> trips, List<String> rejected) {
+            this.trips = List.copyOf(trips);
+            this.rejected = List.copyOf(rejected);
+        }
+
+        public List<PlannedTrip> trips() {
+            return trips;
+        }
+
+        public List<String> rejected() {
+            return rejected;
+        }
+
+        public double totalDelay() {
+            double total = 0.0;
+            for (PlannedTrip trip : trips)
+                total += trip.delay();
+            return total;
+        }
+
+        public double maxDelay() {
+            double max = 0.0;
+            for (PlannedTrip trip : trips)
+                max = Math.max(max, trip.delay());
+            return max;
+        }
+
+        public int delayedTrips() {
+            int delayed = 0;
+            for (PlannedTrip trip : trips) {
+                if (trip.delay() > 1e-9)
+                    delayed++;
+            }
+            return delayed;
+        }
+
+        public Timetable toTimetable() {
+            List<TimetableEntry> entries = new ArrayList<>(trips.size());
+            for (PlannedTrip trip : trips)
+                entries.add(trip.entry().withDeparture(trip.departure()));
+            return new Timetable(entries);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%d viagens planejadas, %d atrasadas, atraso total %.1f min, máximo %.1f min, %d rejeitadas",
+                    trips.size(), delayedTrips(), totalDelay(), maxDelay(), rejected.size());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args.length > 4) {
+            System.out.println("Uso: java ReservationPlanner <arquivo_ferrovia> <horarios.txt> <saida.txt> [passo]");
+            System.exit(1);
+        }
+
+        RailwayManager manager = new RailwayManager(false);
+        manager.loadRailway(args[0]);
+        Timetable requested = Timetable.read(Paths.get(args[1]));
+        double timeStep = args.length > 3 ? Double.parseDouble(args[3]) : 0.5;
+
+        long start = System.nanoTime();
+        Plan plan = new ReservationPlanner(manager, timeStep).plan(requested);
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        plan.toTimetable().write(Paths.get(args[2]));
+        for (String reason : plan.rejected())
+            System.out.println("Viagem ignorada: " + reason);
+        System.out.println(plan + " em " + elapsed + " ms -> " + args[2]);
+    }
+}
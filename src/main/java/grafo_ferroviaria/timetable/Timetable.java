@@ -0,0 +1,174 @@
+package grafo_ferroviaria.timetable;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.ServiceClass;
+import grafo_ferroviaria.models.TrainDynamics;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.tools.FleetSchedule;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// One trip per line: id,partida,velocidade,capacidade,classe,parada1;parada2;...
+// The departure is in simulation minutes or HH:MM; the class column may be left empty.
+public class Timetable {
+    private final List<TimetableEntry> entries;
+
+    public Timetable(List<TimetableEntry> entries) {
+        List<TimetableEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingDouble(TimetableEntry::departure));
+        this.entries = List.copyOf(sorted);
+    }
+
+    // A generated fleet becomes a timetable of direct origin-destination trips.
+    public static Timetable of(FleetSchedule fleet) {
+        List<TimetableEntry> entries = new ArrayList<>(fleet.trains().size());
+        for (FleetSchedule.TrainSpec spec : fleet.trains()) {
+            entries.add(new TimetableEntry(spec.id(), spec.departure(), spec.maxSpeed(), spec.capacity(),
+                    spec.serviceClass(), List.of(spec.origin(), spec.destination())));
+        }
+        return new Timetable(entries);
+    }
+
+    public List<TimetableEntry> entries() {
+        return entries;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public static Timetable read(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int count = Integer.parseInt(reader.readLine().trim());
+            List<TimetableEntry> entries = new ArrayList<>(count);
+            Set<String> ids = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                String line = reader.readLine();
+                if (line == null)
+                    throw new IOException("Quadro de horários truncado: esperadas " + count + " viagens");
+
+                String[] p = line.split(",", -1);
+                if (p.length != 6)
+                    throw new IOException("Linha de horário inválida: " + line);
+                if (!ids.add(p[0].trim()))
+                    throw new IOException("Viagem repetida: " + p[0].trim());
+
+                try {
+                    String serviceClass = p[4].trim();
+                    entries.add(new TimetableEntry(p[0].trim(), parseTime(p[1].trim()),
+                            Double.parseDouble(p[2].trim()), Integer.parseInt(p[3].trim()),
+                            serviceClass.isEmpty() ? null : ServiceClass.valueOf(serviceClass.toUpperCase(Locale.ROOT)),
+                            Arrays.stream(p[5].split(";")).map(String::trim).toList()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Linha de horário inválida: " + line + " (" + e.getMessage() + ")");
+                }
+            }
+            return new Timetable(entries);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(Integer.toString(entries.size()));
+            out.newLine();
+            for (TimetableEntry e : entries) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%.1f,%d,%s,%s", e.id(), formatTime(e.departure()),
+                        e.maxSpeed(), e.capacity(), e.serviceClass() != null ? e.serviceClass() : "",
+                        String.join(";", e.stops())));
+                out.newLine();
+            }
+        }
+    }
+
+    static double parseTime(String value) {
+        int colon = value.indexOf(':');
+        if (colon < 0)
+            return Double.parseDouble(value);
+        return Integer.parseInt(value.substring(0, colon)) * 60 + Double.parseDouble(value.substring(colon + 1));
+    }
+
+    static String formatTime(double minutes) {
+        int hours = (int) (minutes / 60);
+        double rest = minutes - hours * 60;
+        return rest == Math.rint(rest)
+                ? String.format(Locale.ROOT, "%02d:%02d", hours, (int) rest)
+                : String.format(Locale.ROOT, "%02d:%04.1f", hours, rest);
+    }
+
+    // Hands every trip to the simulator's departure queue; trips whose stops cannot be joined are
+    // reported and skipped.
+    public int schedule(RailwayManager manager) {
+        int scheduled = 0;
+        for (TimetableEntry entry : entries) {
+            try {
+                List<TrainStation> route = resolveRoute(manager, entry);
+                manager.getTrainSimulator().scheduleDeparture(entry.departure(), entry.id(),
+                        TrainDynamics.of(entry.maxSpeed()), entry.capacity(),
+                        entry.serviceClass() != null ? entry.serviceClass() : ServiceClass.PASSENGER, route,
+                        stopIndices(route, entry));
+                scheduled++;
+            } catch (IllegalArgumentException e) {
+                System.out.println("Viagem " + entry.id() + " ignorada: " + e.getMessage());
+            }
+        }
+        return scheduled;
+    }
+
+    // Positions of the trip's stops in its resolved route, so rail repairs keep them.
+    static int[] stopIndices(List<TrainStation> route, TimetableEntry entry) {
+        int[] stops = new int[entry.stops().size()];
+        int at = 0;
+        for (int i = 0; i < stops.length; i++) {
+            String name = entry.stops().get(i);
+            while (!route.get(at).name().equals(name))
+                at++;
+            stops[i] = at;
+        }
+        return stops;
+    }
+
+    public static List<TrainStation> resolveRoute(RailwayManager manager, TimetableEntry entry) {
+        GenericGraph<TrainStation, Rail> graph = manager.graph();
+        ServiceClass serviceClass = entry.serviceClass();
+        List<TrainStation> route = new ArrayList<>();
+
+        TrainStation previous = null;
+        for (String name : entry.stops()) {
+            TrainStation station = manager.stations().get(name);
+            if (station == null)
+                throw new IllegalArgumentException("Estação não encontrada: " + name);
+            if (serviceClass != null && !serviceClass.canStopAt(station.type()))
+                throw new IllegalArgumentException("Trens " + serviceClass + " não podem parar na estação "
+                        + station.name() + " (" + station.type() + ")");
+
+            if (previous == null) {
+                route.add(station);
+            } else if (graph.neighbors(previous).containsKey(station)) {
+                route.add(station);
+            } else {
+                List<TrainStation> gap = graph.shortestPath(previous, station, Rail::time, null,
+                        serviceClass != null ? serviceClass::canPassThrough : null).path;
+                if (gap.size() < 2)
+                    throw new IllegalArgumentException("Não existe caminho entre " + previous.name() + " e "
+                            + station.name());
+                route.addAll(gap.subList(1, gap.size()));
+            }
+            previous = station;
+        }
+        return route;
+    }
+}
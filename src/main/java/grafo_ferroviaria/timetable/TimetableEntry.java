@@ -0,0 +1,60 @@
+package grafo_ferroviaria.timetable;
+
+import grafo_ferroviaria.models.ServiceClass;
+
+import java.util.List;
+
+public final class TimetableEntry {
+    private final String id;
+    private final double departure;
+    private final double maxSpeed;
+    private final int capacity;
+    private final ServiceClass serviceClass;
+    private final List<String> stops;
+
+    // Stops need not be adjacent: the gaps between them are filled with the fastest path when scheduled.
+    public TimetableEntry(String id, double departure, double maxSpeed, int capacity, ServiceClass serviceClass,
+            List<String> stops) {
+        if (stops == null || stops.size() < 2)
+            throw new IllegalArgumentException("Viagem " + id + " precisa de pelo menos 2 paradas");
+
+        this.id = id;
+        this.departure = departure;
+        this.maxSpeed = maxSpeed;
+        this.capacity = capacity;
+        this.serviceClass = serviceClass;
+        this.stops = List.copyOf(stops);
+    }
+
+    public TimetableEntry withDeparture(double departure) {
+        return new TimetableEntry(id, departure, maxSpeed, capacity, serviceClass, stops);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public double departure() {
+        return departure;
+    }
+
+    public double maxSpeed() {
+        return maxSpeed;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public ServiceClass serviceClass() {
+        return serviceClass;
+    }
+
+    public List<String> stops() {
+        return stops;
+    }
+
+    public int priority() {
+        return serviceClass != null ? serviceClass.priority() : ServiceClass.PASSENGER.priority();
+    }
+}
@@ -0,0 +1,266 @@
+package grafo_ferroviaria.tools;
+
+import grafo_ferroviaria.analytics.BetweennessCentrality;
+import grafo_ferroviaria.analytics.ClosureImpact;
+import grafo_ferroviaria.analytics.Connectivity;
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.IndexedDijkstra;
+import grafo_ferroviaria.models.IndexedRailGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Checks the array-based searches and the network analytics against brute force on small generated
+// networks of every topology, directed and undirected, and exits with status 1 on any mismatch. Rail
+// times are whole minutes, so equal-cost paths are common and path counting is exercised.
+public class AnalyticsCheck {
+    private static final double EPSILON = 1e-9;
+
+    public static void main(String[] args) throws IOException {
+        int stations = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+
+        List<String> failures = new ArrayList<>();
+        for (NetworkGenerator.Topology topology : NetworkGenerator.Topology.values()) {
+            GeneratedNetwork network = NetworkGenerator.generate(topology, stations, seed);
+            Path file = Files.createTempFile("check-", ".grfb");
+            file.toFile().deleteOnExit();
+            network.writeBinary(file);
+
+            for (boolean directed : new boolean[] { false, true }) {
+                RailwayManager manager = new RailwayManager(directed);
+                manager.loadRailway(file.toString());
+                GenericGraph<TrainStation, Rail> reference = manager.graph();
+                IndexedRailGraph graph = IndexedRailGraph.of(reference);
+                String label = topology + (directed ? " direcionado" : " não direcionado");
+
+                check(failures, label, "Dijkstra indexado", dijkstra(reference, graph));
+                check(failures, label, "centralidade", betweenness(graph));
+                check(failures, label, "pontes e articulações", connectivity(graph));
+                check(failures, label, "impacto de fechamentos", closures(graph));
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            System.out.println(failures.size() + " falhas:");
+            failures.forEach(f -> System.out.println("   " + f));
+            System.exit(1);
+        }
+        System.out.println("Nenhuma divergência encontrada.");
+    }
+
+    private static void check(List<String> failures, String label, String name, String problem) {
+        if (problem != null)
+            failures.add(label + ", " + name + ": " + problem);
+        else
+            System.out.println(label + ", " + name + ": ok");
+    }
+
+    // Distances from every source must match GenericGraph.dijkstraDistances.
+    private static String dijkstra(GenericGraph<TrainStation, Rail> reference, IndexedRailGraph graph) {
+        IndexedDijkstra search = new IndexedDijkstra(graph);
+        double[] weights = graph.weights(Rail::time);
+        for (int s = 0; s < graph.size(); s++) {
+            search.run(s, weights);
+            Map<TrainStation, Double> expected = reference.dijkstraDistances(graph.station(s), Rail::time, null);
+            for (int v = 0; v < graph.size(); v++) {
+                double d = expected.getOrDefault(graph.station(v), Double.POSITIVE_INFINITY);
+                if (!same(d, search.distance(v)))
+                    return graph.station(s).name() + "→" + graph.station(v).name() + ": " + search.distance(v)
+                            + " != " + d;
+            }
+        }
+        return null;
+    }
+
+    // Brandes against counting, for every ordered pair, the shortest paths through each station and rail.
+    private static String betweenness(IndexedRailGraph graph) {
+        int n = graph.size();
+        double[] weights = graph.weights(Rail::time);
+        double[][] dist = new double[n][];
+        double[][] paths = new double[n][];
+        for (int s = 0; s < n; s++) {
+            dist[s] = new double[n];
+            paths[s] = new double[n];
+            countPaths(graph, weights, s, dist[s], paths[s]);
+        }
+        double scale = graph.isDirected() ? 1.0 : 0.5;
+
+        BetweennessCentrality.Scores scores = new BetweennessCentrality(graph, Rail::time).compute();
+        for (int v = 0; v < n; v++) {
+            double expected = 0.0;
+            for (int s = 0; s < n; s++) {
+                for (int t = 0; t < n; t++) {
+                    if (s != v && t != v && s != t && dist[s][t] != Double.POSITIVE_INFINITY
+                            && dist[s][v] + dist[v][t] == dist[s][t])
+                        expected += paths[s][v] * paths[v][t] / paths[s][t];
+                }
+            }
+            if (!same(expected * scale, scores.station(v)))
+                return "estação " + graph.station(v).name() + ": " + scores.station(v) + " != " + expected * scale;
+        }
+
+        double[] rails = new double[graph.edges()];
+        for (int a = 0; a < graph.arcs(); a++) {
+            int u = graph.source(a);
+            int v = graph.target(a);
+            for (int s = 0; s < n; s++) {
+                for (int t = 0; t < n; t++) {
+                    if (s != t && dist[s][t] != Double.POSITIVE_INFINITY
+                            && dist[s][u] + weights[a] + dist[v][t] == dist[s][t])
+                        rails[graph.edge(a)] += paths[s][u] * paths[v][t] / paths[s][t];
+                }
+            }
+        }
+        for (int e = 0; e < graph.edges(); e++) {
+            if (!same(rails[e] * scale, scores.rail(e)))
+                return "trilho " + railName(graph, e) + ": " + scores.rail(e) + " != " + rails[e] * scale;
+        }
+        return null;
+    }
+
+    // Quadratic Dijkstra that also counts the shortest paths to each station.
+    private static void countPaths(IndexedRailGraph graph, double[] weights, int source, double[] dist,
+            double[] paths) {
+        int n = graph.size();
+        boolean[] done = new boolean[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0.0;
+        paths[source] = 1.0;
+        for (int k = 0; k < n; k++) {
+            int u = -1;
+            for (int v = 0; v < n; v++) {
+                if (!done[v] && (u < 0 || dist[v] < dist[u]))
+                    u = v;
+            }
+            if (dist[u] == Double.POSITIVE_INFINITY)
+                break;
+            done[u] = true;
+            for (int a = graph.firstArc(u), end = graph.endArc(u); a < end; a++) {
+                int v = graph.target(a);
+                double alt = dist[u] + weights[a];
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    paths[v] = paths[u];
+                } else if (alt == dist[v] && !done[v]) {
+                    paths[v] += paths[u];
+                }
+            }
+        }
+    }
+
+    // A rail is a bridge when removing it separates its ends; a station is an articulation when removing
+    // it leaves more components than its own, ignoring direction either way.
+    private static String connectivity(IndexedRailGraph graph) {
+        Connectivity connectivity = Connectivity.of(graph);
+        int n = graph.size();
+        int components = components(graph, -1, -1, null);
+        if (components != connectivity.components())
+            return "componentes: " + connectivity.components() + " != " + components;
+
+        for (int e = 0; e < graph.edges(); e++) {
+            int a = graph.edgeArc(e);
+            int[] component = new int[n];
+            components(graph, -1, e, component);
+            boolean bridge = component[graph.source(a)] != component[graph.target(a)];
+            if (bridge != connectivity.isBridge(e))
+                return "trilho " + railName(graph, e) + (bridge ? " é ponte" : " não é ponte");
+        }
+
+        int[] sizes = connectivity.componentSizes();
+        for (int v = 0; v < n; v++) {
+            int expected = sizes[connectivity.component(v)] == 1 ? components - 1 : components;
+            boolean articulation = components(graph, v, -1, null) > expected;
+            if (articulation != connectivity.isArticulation(v))
+                return "estação " + graph.station(v).name() + (articulation ? " é articulação" : " não é articulação");
+        }
+        return null;
+    }
+
+    // Components without one station and one rail, by breadth-first search over both directions.
+    private static int components(IndexedRailGraph graph, int removedStation, int removedEdge, int[] component) {
+        int n = graph.size();
+        List<List<int[]>> adjacent = new ArrayList<>(n);
+        for (int v = 0; v < n; v++)
+            adjacent.add(new ArrayList<>());
+        for (int e = 0; e < graph.edges(); e++) {
+            int a = graph.edgeArc(e);
+            adjacent.get(graph.source(a)).add(new int[] { graph.target(a), e });
+            adjacent.get(graph.target(a)).add(new int[] { graph.source(a), e });
+        }
+
+        int[] seen = component != null ? component : new int[n];
+        Arrays.fill(seen, -1);
+        int count = 0;
+        for (int root = 0; root < n; root++) {
+            if (root == removedStation || seen[root] >= 0)
+                continue;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(root);
+            seen[root] = count;
+            while (!queue.isEmpty()) {
+                for (int[] next : adjacent.get(queue.poll())) {
+                    if (next[1] != removedEdge && next[0] != removedStation && seen[next[0]] < 0) {
+                        seen[next[0]] = count;
+                        queue.add(next[0]);
+                    }
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // Every closure against a full search from every source with the rail excluded.
+    private static String closures(IndexedRailGraph graph) {
+        int n = graph.size();
+        double[] weights = graph.weights(Rail::time);
+        IndexedDijkstra base = new IndexedDijkstra(graph);
+        IndexedDijkstra detour = new IndexedDijkstra(graph);
+
+        List<ClosureImpact.RailClosure> ranking = new ClosureImpact(graph, Rail::time).rank(0, 0, 0);
+        if (ranking.size() != graph.edges())
+            return ranking.size() + " fechamentos para " + graph.edges() + " trilhos";
+        for (ClosureImpact.RailClosure closure : ranking) {
+            int e = graph.edge(graph.arc(graph.indexOf(closure.from()), graph.indexOf(closure.to())));
+            double added = 0.0;
+            long disconnected = 0;
+            for (int s = 0; s < n; s++) {
+                base.run(s, weights);
+                detour.run(s, weights, e);
+                for (int v = 0; v < n; v++) {
+                    if (base.distance(v) == Double.POSITIVE_INFINITY)
+                        continue;
+                    if (detour.distance(v) == Double.POSITIVE_INFINITY)
+                        disconnected++;
+                    else
+                        added += detour.distance(v) - base.distance(v);
+                }
+            }
+            if (!same(added, closure.addedTravelTime()) || disconnected != closure.disconnectedPairs())
+                return "trilho " + railName(graph, e) + ": +" + closure.addedTravelTime() + " min e "
+                        + closure.disconnectedPairs() + " pares != +" + added + " min e " + disconnected + " pares";
+        }
+        return null;
+    }
+
+    private static String railName(IndexedRailGraph graph, int edge) {
+        int a = graph.edgeArc(edge);
+        return graph.station(graph.source(a)).name() + "→" + graph.station(graph.target(a)).name();
+    }
+
+    private static boolean same(double a, double b) {
+        if (a == b)
+            return true;
+        return Math.abs(a - b) <= EPSILON * Math.max(1.0, Math.max(Math.abs(a), Math.abs(b)));
+    }
+}
@@ -0,0 +1,214 @@
+package grafo_ferroviaria.tools;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.ServiceClass;
+import grafo_ferroviaria.models.TrainDynamics;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.models.TrainStationType;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class FleetSchedule {
+    private static final double[] SPEEDS = { 80.0, 120.0, 160.0 };
+    private static final int[] CAPACITIES = { 200, 400, 800 };
+    private static final double DEFAULT_HORIZON_MINUTES = 120.0;
+    private static final double EXPRESS_SHARE = 0.3;
+
+    private final List<TrainSpec> trains;
+    private int dispatched;
+
+    public FleetSchedule(List<TrainSpec> trains) {
+        List<TrainSpec> sorted = new ArrayList<>(trains);
+        sorted.sort(Comparator.comparingDouble(TrainSpec::departure));
+        this.trains = List.copyOf(sorted);
+    }
+
+    public static FleetSchedule generate(GeneratedNetwork network, int count, long seed) {
+        return generate(network, count, seed, DEFAULT_HORIZON_MINUTES);
+    }
+
+    // Origins and destinations are drawn proportionally to degree, so hubs see most of the traffic.
+    public static FleetSchedule generate(GeneratedNetwork network, int count, long seed, double horizonMinutes) {
+        Random random = new Random(seed ^ 0x9E3779B97F4A7C15L);
+        // Drawn from its own stream so speeds, capacities and departures match fleets generated before classes.
+        Random classes = new Random(seed ^ 0x5DEECE66DL);
+        int[] endpoints = new int[network.railCount() * 2];
+        for (int i = 0; i < network.railCount(); i++) {
+            endpoints[2 * i] = network.railFrom(i);
+            endpoints[2 * i + 1] = network.railTo(i);
+        }
+
+        List<TrainSpec> trains = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int origin = endpoints[random.nextInt(endpoints.length)];
+            int destination = endpoints[random.nextInt(endpoints.length)];
+            while (destination == origin)
+                destination = endpoints[random.nextInt(endpoints.length)];
+
+            trains.add(new TrainSpec(
+                    "TREM-" + i,
+                    network.name(origin),
+                    network.name(destination),
+                    SPEEDS[random.nextInt(SPEEDS.length)],
+                    CAPACITIES[random.nextInt(CAPACITIES.length)],
+                    Math.floor(random.nextDouble() * horizonMinutes * 2) / 2,
+                    serviceClassFor(network.type(origin), network.type(destination), classes)));
+        }
+        return new FleetSchedule(trains);
+    }
+
+    // Trips touching a freight yard become freight; a yard-to-passenger-station pair fits no class and
+    // keeps the unrestricted legacy behaviour.
+    private static ServiceClass serviceClassFor(TrainStationType origin, TrainStationType destination, Random random) {
+        boolean freightTrip = origin == TrainStationType.MERCHANDISE || destination == TrainStationType.MERCHANDISE;
+        if (freightTrip) {
+            return ServiceClass.FREIGHT.canStopAt(origin) && ServiceClass.FREIGHT.canStopAt(destination)
+                    ? ServiceClass.FREIGHT
+                    : null;
+        }
+        return random.nextDouble() < EXPRESS_SHARE ? ServiceClass.EXPRESS : ServiceClass.PASSENGER;
+    }
+
+    public List<TrainSpec> trains() {
+        return trains;
+    }
+
+    public int addTo(RailwayManager manager) {
+        int added = 0;
+        for (TrainSpec spec : trains) {
+            TrainStation origin = manager.stations().get(spec.origin());
+            TrainStation destination = manager.stations().get(spec.destination());
+            if (origin == null || destination == null)
+                continue;
+
+            ServiceClass serviceClass = spec.serviceClass();
+            if (serviceClass != null && !(serviceClass.canStopAt(origin.type())
+                    && serviceClass.canStopAt(destination.type())))
+                continue;
+
+            try {
+                manager.addTrain(spec.id(), TrainDynamics.of(spec.maxSpeed()), spec.capacity(), serviceClass,
+                        List.of(spec.origin(), spec.destination()), RailwayManager.RouteCriterion.TIME);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            added++;
+        }
+        dispatched = 0;
+        return added;
+    }
+
+    public int dispatchDue(RailwayManager manager, double simulationTime) {
+        int started = 0;
+        while (dispatched < trains.size() && trains.get(dispatched).departure() <= simulationTime) {
+            TrainSpec spec = trains.get(dispatched++);
+            if (manager.getTrainSimulator().getTrain(spec.id()) != null) {
+                manager.startTrain(spec.id());
+                started++;
+            }
+        }
+        return started;
+    }
+
+    public void writeText(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(Integer.toString(trains.size()));
+            out.newLine();
+            for (TrainSpec t : trains) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%s,%.1f,%d,%.1f",
+                        t.id(), t.origin(), t.destination(), t.maxSpeed(), t.capacity(), t.departure()));
+                if (t.serviceClass() != null)
+                    out.write("," + t.serviceClass());
+                out.newLine();
+            }
+        }
+    }
+
+    public static FleetSchedule readText(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            int count = Integer.parseInt(reader.readLine().trim());
+            List<TrainSpec> trains = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String[] p = reader.readLine().split(",");
+                if (p.length != 6 && p.length != 7)
+                    throw new IOException("Linha de frota inválida: " + String.join(",", p));
+                ServiceClass serviceClass = p.length == 7 ? parseServiceClass(p[6].trim()) : null;
+                trains.add(new TrainSpec(p[0].trim(), p[1].trim(), p[2].trim(), Double.parseDouble(p[3].trim()),
+                        Integer.parseInt(p[4].trim()), Double.parseDouble(p[5].trim()), serviceClass));
+            }
+            return new FleetSchedule(trains);
+        }
+    }
+
+    private static ServiceClass parseServiceClass(String value) throws IOException {
+        try {
+            return ServiceClass.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Classe de serviço inválida: " + value);
+        }
+    }
+
+    public static final class TrainSpec {
+        private final String id;
+        private final String origin;
+        private final String destination;
+        private final double maxSpeed;
+        private final int capacity;
+        private final double departure;
+        private final ServiceClass serviceClass;
+
+        public TrainSpec(String id, String origin, String destination, double maxSpeed, int capacity,
+                double departure) {
+            this(id, origin, destination, maxSpeed, capacity, departure, null);
+        }
+
+        public TrainSpec(String id, String origin, String destination, double maxSpeed, int capacity,
+                double departure, ServiceClass serviceClass) {
+            this.id = id;
+            this.origin = origin;
+            this.destination = destination;
+            this.maxSpeed = maxSpeed;
+            this.capacity = capacity;
+            this.departure = departure;
+            this.serviceClass = serviceClass;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public String origin() {
+            return origin;
+        }
+
+        public String destination() {
+            return destination;
+        }
+
+        public double maxSpeed() {
+            return maxSpeed;
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+
+        public double departure() {
+            return departure;
+        }
+
+        public ServiceClass serviceClass() {
+            return serviceClass;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package grafo_ferroviaria.tools;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStationType;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+public final class GeneratedNetwork {
+    private final String[] names;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final TrainStationType[] types;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final double[] distances;
+    private final double[] prices;
+    private final int[] times;
+    private final boolean[] highSpeed;
+    private final int[] tracks;
+    private final int[] capacities;
+    private final double[] headways;
+    private final double[] speedLimits;
+
+    GeneratedNetwork(String[] names, double[] latitudes, double[] longitudes, TrainStationType[] types,
+            int[] edgeFrom, int[] edgeTo, double[] distances, double[] prices, int[] times, boolean[] highSpeed,
+            int[] tracks, int[] capacities, double[] headways, double[] speedLimits) {
+        this.names = names;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.types = types;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.distances = distances;
+        this.prices = prices;
+        this.times = times;
+        this.highSpeed = highSpeed;
+        this.tracks = tracks;
+        this.capacities = capacities;
+        this.headways = headways;
+        this.speedLimits = speedLimits;
+    }
+
+    public int stationCount() {
+        return names.length;
+    }
+
+    public int railCount() {
+        return edgeFrom.length;
+    }
+
+    public String name(int station) {
+        return names[station];
+    }
+
+    public double latitude(int station) {
+        return latitudes[station];
+    }
+
+    public double longitude(int station) {
+        return longitudes[station];
+    }
+
+    public TrainStationType type(int station) {
+        return types[station];
+    }
+
+    public int railFrom(int rail) {
+        return edgeFrom[rail];
+    }
+
+    public int railTo(int rail) {
+        return edgeTo[rail];
+    }
+
+    public double railDistance(int rail) {
+        return distances[rail];
+    }
+
+    public double railPrice(int rail) {
+        return prices[rail];
+    }
+
+    public int railTime(int rail) {
+        return times[rail];
+    }
+
+    public boolean railHighSpeed(int rail) {
+        return highSpeed[rail];
+    }
+
+    public int railTracks(int rail) {
+        return tracks[rail];
+    }
+
+    public int railCapacity(int rail) {
+        return capacities[rail];
+    }
+
+    public double railHeadway(int rail) {
+        return headways[rail];
+    }
+
+    public double railSpeedLimit(int rail) {
+        return speedLimits[rail];
+    }
+
+    public void writeText(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write(Integer.toString(names.length));
+            out.newLine();
+            for (int i = 0; i < names.length; i++) {
+                out.write(String.format(Locale.ROOT, "%s,%.6f,%.6f,%s", names[i], latitudes[i], longitudes[i], types[i]));
+                out.newLine();
+            }
+
+            out.write(Integer.toString(edgeFrom.length));
+            out.newLine();
+            for (int i = 0; i < edgeFrom.length; i++) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%.1f,%.2f,%d",
+                        names[edgeFrom[i]], names[edgeTo[i]], distances[i], prices[i], times[i]));
+                // The optional columns are positional, so a speed limit needs tracks, capacity and headway too.
+                if (tracks[i] != 1 || capacities[i] != 1 || headways[i] != 0
+                        || speedLimits[i] != Rail.CONVENTIONAL_SPEED_LIMIT)
+                    out.write(String.format(Locale.ROOT, ",%d,%d,%.1f,%.1f", tracks[i], capacities[i], headways[i],
+                            speedLimits[i]));
+                out.newLine();
+            }
+        }
+    }
+
+    public void writeBinary(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(RailwayManager.BINARY_MAGIC);
+            out.writeInt(RailwayManager.BINARY_VERSION);
+
+            out.writeInt(names.length);
+            for (int i = 0; i < names.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeDouble(latitudes[i]);
+                out.writeDouble(longitudes[i]);
+                out.writeByte(types[i].ordinal());
+            }
+
+            out.writeInt(edgeFrom.length);
+            for (int i = 0; i < edgeFrom.length; i++) {
+                out.writeInt(edgeFrom[i]);
+                out.writeInt(edgeTo[i]);
+                out.writeDouble(distances[i]);
+                out.writeDouble(prices[i]);
+                out.writeInt(times[i]);
+                out.writeBoolean(highSpeed[i]);
+                out.writeByte(tracks[i]);
+                out.writeShort(capacities[i]);
+                out.writeDouble(headways[i]);
+                out.writeDouble(speedLimits[i]);
+            }
+        }
+    }
+}
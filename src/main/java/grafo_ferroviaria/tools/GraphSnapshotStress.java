@@ -0,0 +1,173 @@
+package grafo_ferroviaria.tools;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.managers.TrainRoutePlanner;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStation;
+import grafo_ferroviaria.models.TrainStationType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+// Readers plan routes on whatever snapshot is current while one writer closes, reopens, reprices and adds
+// rails and reloads the network file. Every route is checked against the snapshot it was computed on, and
+// the run exits with status 1 on the first batch of inconsistencies so scripts can use it as a check.
+public class GraphSnapshotStress {
+    private static final double EPSILON = 1e-6;
+
+    public static void main(String[] args) throws Exception {
+        int stations = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int readers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+
+        GeneratedNetwork network = NetworkGenerator.generate(NetworkGenerator.Topology.MESH, stations, seed);
+        Path file = Files.createTempFile("stress-", ".grfb");
+        file.toFile().deleteOnExit();
+        network.writeBinary(file);
+
+        RailwayManager manager = new RailwayManager(false);
+        manager.loadRailway(file.toString());
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        ConcurrentLinkedQueue<String> failures = new ConcurrentLinkedQueue<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            long readerSeed = seed + 1 + r;
+            threads.add(new Thread(() -> read(manager, stations, readerSeed, running, reads, failures),
+                    "stress-reader-" + r));
+        }
+        threads.add(new Thread(() -> write(manager, network, file, seed, running, writes, failures),
+                "stress-writer"));
+
+        for (Thread t : threads)
+            t.start();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        for (Thread t : threads)
+            t.join();
+
+        System.out.printf("%d leitores, %d s: %d rotas (%.0f/s), %d edições (%.0f/s), versão final %d%n",
+                readers, seconds, reads.sum(), reads.sum() / (double) seconds, writes.sum(),
+                writes.sum() / (double) seconds, manager.graph().version());
+        if (!failures.isEmpty()) {
+            System.out.println(failures.size() + " falhas, primeiras:");
+            failures.stream().limit(10).forEach(f -> System.out.println("   " + f));
+            System.exit(1);
+        }
+        System.out.println("Nenhuma inconsistência encontrada.");
+    }
+
+    private static void read(RailwayManager manager, int stations, long seed, AtomicBoolean running,
+            LongAdder reads, ConcurrentLinkedQueue<String> failures) {
+        Random random = new Random(seed);
+        ToDoubleFunction<Rail> cost = TrainRoutePlanner.costFunction(RailwayManager.RouteCriterion.TIME);
+
+        while (running.get()) {
+            String fromName = NetworkGenerator.stationName(random.nextInt(stations));
+            String toName = NetworkGenerator.stationName(random.nextInt(stations));
+            try {
+                GenericGraph<TrainStation, Rail> graph = manager.graph();
+                long version = graph.version();
+                TrainStation from = manager.stations().get(fromName);
+                TrainStation to = manager.stations().get(toName);
+
+                GenericGraph.PathResult<TrainStation> result = graph.shortestPath(from, to, cost, null);
+                String problem = validate(graph, result, cost, from, to);
+                if (problem == null && graph.version() != version)
+                    problem = "snapshot mudou durante a leitura";
+                if (problem == null && (writable(graph.neighbors(from)) || writable(graph.inNeighbors(to))))
+                    problem = "vizinhança do snapshot aceita escrita";
+                if (problem != null)
+                    failures.add(fromName + "→" + toName + ": " + problem);
+
+                manager.planRoute(fromName, toName, RailwayManager.RouteCriterion.DISTANCE);
+            } catch (IllegalArgumentException e) {
+                // Sem caminho enquanto trilhos estão fechados.
+            } catch (RuntimeException e) {
+                failures.add(fromName + "→" + toName + ": " + e);
+            }
+            reads.increment();
+        }
+    }
+
+    // Removing a key that cannot be there leaves a writable map as it was.
+    private static boolean writable(Map<TrainStation, Rail> neighbors) {
+        try {
+            neighbors.remove(new Object());
+            return true;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static String validate(GenericGraph<TrainStation, Rail> graph, GenericGraph.PathResult<TrainStation> result,
+            ToDoubleFunction<Rail> cost, TrainStation from, TrainStation to) {
+        if (Double.isInfinite(result.cost))
+            return result.path.isEmpty() ? null : "custo infinito com caminho";
+        if (!result.path.get(0).equals(from) || !result.path.get(result.path.size() - 1).equals(to))
+            return "extremos errados";
+
+        double sum = 0;
+        for (int i = 0; i < result.path.size() - 1; i++) {
+            TrainStation a = result.path.get(i);
+            TrainStation b = result.path.get(i + 1);
+            Rail rail = graph.neighbors(a).get(b);
+            if (rail == null)
+                return "trilho inexistente " + a.name() + "→" + b.name();
+            if (graph.isClosed(a, b))
+                return "trilho fechado " + a.name() + "→" + b.name();
+            sum += cost.applyAsDouble(rail);
+        }
+        return Math.abs(sum - result.cost) > EPSILON ? "custo " + result.cost + " != " + sum : null;
+    }
+
+    private static void write(RailwayManager manager, GeneratedNetwork network, Path file, long seed,
+            AtomicBoolean running, LongAdder writes, ConcurrentLinkedQueue<String> failures) {
+        Random random = new Random(seed);
+        int added = 0;
+
+        while (running.get()) {
+            int rail = random.nextInt(network.railCount());
+            String from = network.name(network.railFrom(rail));
+            String to = network.name(network.railTo(rail));
+            try {
+                switch (random.nextInt(5)) {
+                    case 0 -> manager.closeRail(from, to);
+                    case 1 -> manager.reopenRail(from, to);
+                    case 2 -> manager.updateRail(from, to, new Rail(network.railPrice(rail),
+                            network.railTime(rail) * (1 + random.nextInt(3)), network.railDistance(rail), false));
+                    case 3 -> {
+                        String name = "STRESS-" + added++;
+                        manager.addStation(name, 0, 0, TrainStationType.MIXED);
+                        manager.addRail(name, from, new Rail(1, 1, 1, false));
+                    }
+                    default -> {
+                        if (random.nextInt(200) == 0)
+                            manager.loadRailway(file.toString());
+                        else
+                            manager.reopenRail(from, to);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                // Trilho removido ou já fechado por uma edição anterior.
+            } catch (RuntimeException e) {
+                failures.add("escrita " + from + "→" + to + ": " + e);
+            }
+            writes.increment();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package grafo_ferroviaria.tools;
+
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStationType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class NetworkGenerator {
+    public enum Topology { HUB_AND_SPOKE, CORRIDOR, MESH, SCALE_FREE }
+
+    private static final double CENTER_LATITUDE = -8.05;
+    private static final double CENTER_LONGITUDE = -34.90;
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double STATION_SPACING_KM = 6.0;
+
+    private static final double HIGH_SPEED_KMH = 160.0;
+    private static final double REGIONAL_KMH = 80.0;
+    private static final double BASE_FARE = 2.0;
+    private static final double FARE_PER_KM = 0.25;
+    private static final double HIGH_SPEED_FARE_FACTOR = 1.5;
+    private static final double TRUNK_HEADWAY_MINUTES = 4.0;
+
+    private static final int SPOKE_MIN = 3;
+    private static final int SPOKE_MAX = 10;
+    private static final int STATIONS_PER_HUB = 50;
+    private static final int MAX_HUBS = 1000;
+    private static final int BRANCH_EVERY = 25;
+    private static final double MESH_DIAGONAL_PROBABILITY = 0.15;
+    private static final int SCALE_FREE_LINKS = 2;
+
+    private final Random random;
+    private final double[] lat;
+    private final double[] lon;
+    private final TrainStationType[] types;
+    private final List<int[]> edges = new ArrayList<>();
+    private final Set<Long> edgeKeys = new HashSet<>();
+    private final Set<Long> highSpeedKeys = new HashSet<>();
+
+    private NetworkGenerator(int stations, long seed) {
+        this.random = new Random(seed);
+        this.lat = new double[stations];
+        this.lon = new double[stations];
+        this.types = new TrainStationType[stations];
+        Arrays.fill(types, TrainStationType.PASSANGERS);
+    }
+
+    public static GeneratedNetwork generate(Topology topology, int stations, long seed) {
+        if (stations < 2)
+            throw new IllegalArgumentException("A rede precisa de pelo menos 2 estações");
+
+        NetworkGenerator generator = new NetworkGenerator(stations, seed);
+        switch (topology) {
+            case HUB_AND_SPOKE -> generator.hubAndSpoke();
+            case CORRIDOR -> generator.corridor();
+            case MESH -> generator.mesh();
+            case SCALE_FREE -> generator.scaleFree();
+        }
+        return generator.build();
+    }
+
+    public static String stationName(int index) {
+        return "E" + index;
+    }
+
+    // Uso: NetworkGenerator <topologia> <estações> <semente> <saída.txt|saída.grfb> [trens] [frota.txt]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Uso: java NetworkGenerator <HUB_AND_SPOKE|CORRIDOR|MESH|SCALE_FREE> "
+                    + "<estações> <semente> <saída.txt|saída.grfb> [trens] [frota.txt]");
+            System.exit(1);
+        }
+
+        Topology topology = Topology.valueOf(args[0].toUpperCase());
+        int stations = Integer.parseInt(args[1]);
+        long seed = Long.parseLong(args[2]);
+        Path output = Paths.get(args[3]);
+
+        GeneratedNetwork network = generate(topology, stations, seed);
+        if (output.toString().endsWith(".grfb"))
+            network.writeBinary(output);
+        else
+            network.writeText(output);
+        System.out.println("Rede gerada: " + network.stationCount() + " estações, " + network.railCount()
+                + " trilhos -> " + output);
+
+        if (args.length >= 6) {
+            FleetSchedule fleet = FleetSchedule.generate(network, Integer.parseInt(args[4]), seed);
+            fleet.writeText(Paths.get(args[5]));
+            System.out.println("Frota gerada: " + fleet.trains().size() + " trens -> " + args[5]);
+        }
+    }
+
+    private void hubAndSpoke() {
+        int n = lat.length;
+        int hubs = Math.max(2, Math.min(MAX_HUBS, n / STATIONS_PER_HUB));
+        double radiusKm = STATION_SPACING_KM * Math.sqrt(n);
+
+        for (int h = 0; h < hubs; h++) {
+            place(h, (random.nextDouble() * 2 - 1) * radiusKm, (random.nextDouble() * 2 - 1) * radiusKm);
+            types[h] = TrainStationType.MIXED;
+        }
+
+        // Trunk lines: each hub links to its nearest already-placed hub (a spanning tree) plus its nearest other hub.
+        for (int h = 1; h < hubs; h++)
+            connect(h, nearest(h, 0, h), true);
+        for (int h = 0; h < hubs; h++)
+            connect(h, nearest(h, 0, hubs), true);
+
+        int next = hubs;
+        while (next < n) {
+            int hub = random.nextInt(hubs);
+            int length = Math.min(n - next, SPOKE_MIN + random.nextInt(SPOKE_MAX - SPOKE_MIN + 1));
+            double angle = random.nextDouble() * 2 * Math.PI;
+            int previous = hub;
+            for (int k = 1; k <= length; k++) {
+                double along = k * STATION_SPACING_KM * (0.8 + 0.4 * random.nextDouble());
+                double jitter = (random.nextDouble() - 0.5) * STATION_SPACING_KM * 0.5;
+                double x = xOf(hub) + Math.cos(angle) * along - Math.sin(angle) * jitter;
+                double y = yOf(hub) + Math.sin(angle) * along + Math.cos(angle) * jitter;
+                place(next, x, y);
+                if (k == length && random.nextInt(4) == 0)
+                    types[next] = TrainStationType.MERCHANDISE;
+                connect(previous, next, false);
+                previous = next++;
+            }
+        }
+    }
+
+    private void corridor() {
+        int n = lat.length;
+        int mainLine = Math.max(2, n - n / BRANCH_EVERY * 4);
+        double heading = random.nextDouble() * 2 * Math.PI;
+        double x = 0, y = 0;
+
+        for (int i = 0; i < mainLine; i++) {
+            heading += (random.nextDouble() - 0.5) * 0.2;
+            x += Math.cos(heading) * STATION_SPACING_KM * (0.8 + 0.4 * random.nextDouble());
+            y += Math.sin(heading) * STATION_SPACING_KM * (0.8 + 0.4 * random.nextDouble());
+            place(i, x, y);
+            if (i > 0)
+                connect(i - 1, i, true);
+            if (i % BRANCH_EVERY == 0)
+                types[i] = TrainStationType.MIXED;
+        }
+
+        int next = mainLine;
+        for (int junction = BRANCH_EVERY; junction < mainLine && next < n; junction += BRANCH_EVERY) {
+            double angle = heading + (random.nextBoolean() ? 1 : -1) * (Math.PI / 3 + random.nextDouble() * Math.PI / 6);
+            int previous = junction;
+            for (int k = 1; k <= 4 && next < n; k++) {
+                place(next, xOf(junction) + Math.cos(angle) * k * STATION_SPACING_KM,
+                        yOf(junction) + Math.sin(angle) * k * STATION_SPACING_KM);
+                connect(previous, next, false);
+                previous = next++;
+            }
+            types[previous] = TrainStationType.MERCHANDISE;
+        }
+
+        // Any leftover stations extend the last branch.
+        while (next < n) {
+            place(next, xOf(next - 1) + STATION_SPACING_KM, yOf(next - 1));
+            connect(next - 1, next, false);
+            next++;
+        }
+    }
+
+    private void mesh() {
+        int n = lat.length;
+        int side = (int) Math.ceil(Math.sqrt(n));
+        for (int i = 0; i < n; i++) {
+            double x = (i % side + (random.nextDouble() - 0.5) * 0.4) * STATION_SPACING_KM;
+            double y = (i / side + (random.nextDouble() - 0.5) * 0.4) * STATION_SPACING_KM;
+            place(i, x, y);
+        }
+
+        for (int i = 0; i < n; i++) {
+            int col = i % side;
+            if (col + 1 < side && i + 1 < n)
+                connect(i, i + 1, false);
+            if (i + side < n)
+                connect(i, i + side, false);
+            if (col + 1 < side && i + side + 1 < n && random.nextDouble() < MESH_DIAGONAL_PROBABILITY)
+                connect(i, i + side + 1, false);
+        }
+
+        // Every fourth row and column is a fast trunk line.
+        for (int i = 0; i < n; i++) {
+            int col = i % side;
+            int row = i / side;
+            if (row % 4 == 0 && col + 1 < side && i + 1 < n)
+                markHighSpeed(i, i + 1);
+            if (col % 4 == 0 && i + side < n)
+                markHighSpeed(i, i + side);
+            if (row % 4 == 0 && col % 4 == 0)
+                types[i] = TrainStationType.MIXED;
+        }
+    }
+
+    // Barabási–Albert preferential attachment: endpoints holds each vertex once per incident edge.
+    private void scaleFree() {
+        int n = lat.length;
+        double radiusKm = STATION_SPACING_KM * Math.sqrt(n);
+        for (int i = 0; i < n; i++)
+            place(i, (random.nextDouble() * 2 - 1) * radiusKm, (random.nextDouble() * 2 - 1) * radiusKm);
+
+        int[] endpoints = new int[2 * SCALE_FREE_LINKS * n + 2];
+        int size = 0;
+        int core = Math.min(n, SCALE_FREE_LINKS + 1);
+        for (int i = 0; i < core; i++) {
+            for (int j = i + 1; j < core; j++) {
+                connect(i, j, true);
+                endpoints[size++] = i;
+                endpoints[size++] = j;
+            }
+        }
+
+        Set<Integer> targets = new HashSet<>();
+        for (int v = core; v < n; v++) {
+            targets.clear();
+            while (targets.size() < Math.min(SCALE_FREE_LINKS, v))
+                targets.add(endpoints[random.nextInt(size)]);
+            for (int t : targets) {
+                connect(v, t, false);
+                endpoints[size++] = v;
+                endpoints[size++] = t;
+            }
+        }
+
+        Map<Integer, Integer> degree = new HashMap<>();
+        for (int[] e : edges) {
+            degree.merge(e[0], 1, Integer::sum);
+            degree.merge(e[1], 1, Integer::sum);
+        }
+        for (Map.Entry<Integer, Integer> d : degree.entrySet()) {
+            if (d.getValue() >= 4 * SCALE_FREE_LINKS)
+                types[d.getKey()] = TrainStationType.MIXED;
+        }
+    }
+
+    private void place(int station, double xKm, double yKm) {
+        lat[station] = CENTER_LATITUDE + yKm / KM_PER_DEGREE;
+        lon[station] = CENTER_LONGITUDE + xKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(CENTER_LATITUDE)));
+    }
+
+    private double xOf(int station) {
+        return (lon[station] - CENTER_LONGITUDE) * KM_PER_DEGREE * Math.cos(Math.toRadians(CENTER_LATITUDE));
+    }
+
+    private double yOf(int station) {
+        return (lat[station] - CENTER_LATITUDE) * KM_PER_DEGREE;
+    }
+
+    private int nearest(int station, int from, int to) {
+        int best = from;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int other = from; other < to; other++) {
+            double d = Math.hypot(xOf(station) - xOf(other), yOf(station) - yOf(other));
+            if (other != station && d < bestDistance) {
+                bestDistance = d;
+                best = other;
+            }
+        }
+        return best;
+    }
+
+    private void connect(int a, int b, boolean highSpeed) {
+        if (a == b || !edgeKeys.add(key(a, b)))
+            return;
+        edges.add(new int[] { a, b });
+        if (highSpeed)
+            highSpeedKeys.add(key(a, b));
+    }
+
+    private void markHighSpeed(int a, int b) {
+        if (edgeKeys.contains(key(a, b)))
+            highSpeedKeys.add(key(a, b));
+    }
+
+    private static long key(int a, int b) {
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    private GeneratedNetwork build() {
+        int n = lat.length;
+        String[] names = new String[n];
+        for (int i = 0; i < n; i++)
+            names[i] = stationName(i);
+
+        int m = edges.size();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] distances = new double[m];
+        double[] prices = new double[m];
+        int[] times = new int[m];
+        boolean[] highSpeed = new boolean[m];
+        int[] tracks = new int[m];
+        int[] capacities = new int[m];
+        double[] headways = new double[m];
+        double[] speedLimits = new double[m];
+
+        for (int i = 0; i < m; i++) {
+            int[] e = edges.get(i);
+            from[i] = e[0];
+            to[i] = e[1];
+            highSpeed[i] = highSpeedKeys.contains(key(e[0], e[1]));
+
+            // Track length exceeds the straight line by a detour factor; time and fare follow from it.
+            double detour = 1.05 + 0.25 * random.nextDouble();
+            double distance = Math.max(0.5, Math.round(haversineKm(e[0], e[1]) * detour * 10) / 10.0);
+            double speed = highSpeed[i] ? HIGH_SPEED_KMH : REGIONAL_KMH;
+            double fare = (BASE_FARE + FARE_PER_KM * distance) * (highSpeed[i] ? HIGH_SPEED_FARE_FACTOR : 1.0);
+
+            distances[i] = distance;
+            times[i] = (int) Math.max(1, Math.ceil(distance / speed * 60));
+            prices[i] = Math.round(fare * 100) / 100.0;
+
+            // High-speed trunks are double track with block signalling: as many trains per direction as
+            // the headway fits in the running time. Regional lines stay single track.
+            tracks[i] = highSpeed[i] ? 2 : 1;
+            capacities[i] = highSpeed[i] ? Math.max(1, (int) (times[i] / TRUNK_HEADWAY_MINUTES)) : 1;
+            headways[i] = highSpeed[i] ? TRUNK_HEADWAY_MINUTES : 0.0;
+            speedLimits[i] = highSpeed[i] ? Rail.HIGH_SPEED_LIMIT : Rail.CONVENTIONAL_SPEED_LIMIT;
+        }
+
+        return new GeneratedNetwork(names, lat, lon, types, from, to, distances, prices, times, highSpeed,
+                tracks, capacities, headways, speedLimits);
+    }
+
+    private double haversineKm(int a, int b) {
+        double dLat = Math.toRadians(lat[b] - lat[a]);
+        double dLon = Math.toRadians(lon[b] - lon[a]);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat[a])) * Math.cos(Math.toRadians(lat[b]))
+                        * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * 6371.0 * Math.asin(Math.sqrt(h));
+    }
+}
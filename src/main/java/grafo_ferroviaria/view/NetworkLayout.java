@@ -0,0 +1,191 @@
+package grafo_ferroviaria.view;
+
+import grafo_ferroviaria.managers.RailwayManager;
+import grafo_ferroviaria.models.GenericGraph;
+import grafo_ferroviaria.models.Rail;
+import grafo_ferroviaria.models.TrainStation;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class NetworkLayout {
+    private static final int MINOR_STATION_DEGREE = 2;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] degree;
+    private final Rectangle2D bounds;
+    private final double typicalRailLength;
+    private final SpatialGrid<TrainStation> stationIndex;
+    private final SpatialGrid<RailSegment> railIndex;
+    private final long graphVersion;
+
+    private NetworkLayout(double[] xs, double[] ys, int[] degree, Rectangle2D bounds, double typicalRailLength,
+            SpatialGrid<TrainStation> stationIndex, SpatialGrid<RailSegment> railIndex, long graphVersion) {
+        this.xs = xs;
+        this.ys = ys;
+        this.degree = degree;
+        this.bounds = bounds;
+        this.typicalRailLength = typicalRailLength;
+        this.stationIndex = stationIndex;
+        this.railIndex = railIndex;
+        this.graphVersion = graphVersion;
+    }
+
+    public static NetworkLayout build(RailwayManager railwayManager) {
+        GenericGraph<TrainStation, Rail> graph = railwayManager.graph();
+        Collection<TrainStation> stations = graph.vertices();
+        int idSpace = railwayManager.registry().size();
+
+        double[] xs = new double[idSpace];
+        double[] ys = new double[idSpace];
+        int[] degree = new int[idSpace];
+        Arrays.fill(xs, Double.NaN);
+        Arrays.fill(ys, Double.NaN);
+
+        if (hasCoordinates(stations))
+            projectGeographic(stations, xs, ys);
+        else
+            placeOnCircle(railwayManager, stations, xs, ys);
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (TrainStation s : stations) {
+            minX = Math.min(minX, xs[s.id()]);
+            minY = Math.min(minY, ys[s.id()]);
+            maxX = Math.max(maxX, xs[s.id()]);
+            maxY = Math.max(maxY, ys[s.id()]);
+        }
+        if (stations.isEmpty()) {
+            minX = minY = 0;
+            maxX = maxY = 1;
+        }
+
+        List<RailSegment> segments = new ArrayList<>();
+        for (TrainStation from : stations) {
+            for (Map.Entry<TrainStation, Rail> edge : graph.neighbors(from).entrySet()) {
+                TrainStation to = edge.getKey();
+                degree[from.id()]++;
+                if (!graph.isDirected() && from.id() > to.id())
+                    continue;
+                segments.add(new RailSegment(from, to, edge.getValue()));
+            }
+        }
+
+        SpatialGrid<TrainStation> stationIndex = new SpatialGrid<>(minX, minY, maxX, maxY, stations.size());
+        for (TrainStation s : stations)
+            stationIndex.insert(s, xs[s.id()], ys[s.id()], xs[s.id()], ys[s.id()]);
+
+        SpatialGrid<RailSegment> railIndex = new SpatialGrid<>(minX, minY, maxX, maxY, segments.size());
+        double[] lengths = new double[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            RailSegment seg = segments.get(i);
+            double x0 = xs[seg.from.id()], y0 = ys[seg.from.id()];
+            double x1 = xs[seg.to.id()], y1 = ys[seg.to.id()];
+            railIndex.insert(seg, x0, y0, x1, y1);
+            lengths[i] = Math.hypot(x1 - x0, y1 - y0);
+        }
+
+        Arrays.sort(lengths);
+        double typical = lengths.length > 0 ? lengths[lengths.length / 2] : Math.max(maxX - minX, maxY - minY);
+
+        return new NetworkLayout(xs, ys, degree, new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY),
+                typical, stationIndex, railIndex, graph.version());
+    }
+
+    private static boolean hasCoordinates(Collection<TrainStation> stations) {
+        for (TrainStation s : stations) {
+            if (s.latitude() != 0 || s.longitude() != 0)
+                return true;
+        }
+        return false;
+    }
+
+    private static void projectGeographic(Collection<TrainStation> stations, double[] xs, double[] ys) {
+        double meanLat = 0.0;
+        for (TrainStation s : stations)
+            meanLat += s.latitude();
+        meanLat /= stations.size();
+
+        double cosLat = Math.cos(Math.toRadians(meanLat));
+        for (TrainStation s : stations) {
+            xs[s.id()] = s.longitude() * cosLat;
+            ys[s.id()] = -s.latitude();
+        }
+    }
+
+    private static void placeOnCircle(RailwayManager railwayManager, Collection<TrainStation> stations,
+            double[] xs, double[] ys) {
+        int index = 0;
+        for (TrainStation s : railwayManager.registry().stations()) {
+            if (!stations.contains(s))
+                continue;
+            double angle = 2 * Math.PI * index / stations.size();
+            xs[s.id()] = Math.cos(angle);
+            ys[s.id()] = Math.sin(angle);
+            index++;
+        }
+    }
+
+    public double x(TrainStation station) {
+        return station.id() < xs.length ? xs[station.id()] : Double.NaN;
+    }
+
+    public double y(TrainStation station) {
+        return station.id() < ys.length ? ys[station.id()] : Double.NaN;
+    }
+
+    public boolean isMinor(TrainStation station) {
+        return station.id() >= degree.length || degree[station.id()] <= MINOR_STATION_DEGREE;
+    }
+
+    public Rectangle2D bounds() {
+        return bounds;
+    }
+
+    public double typicalRailLength() {
+        return typicalRailLength;
+    }
+
+    public long graphVersion() {
+        return graphVersion;
+    }
+
+    public void visibleStations(Rectangle2D world, Consumer<TrainStation> action) {
+        stationIndex.query(world.getMinX(), world.getMinY(), world.getMaxX(), world.getMaxY(), action);
+    }
+
+    public void visibleRails(Rectangle2D world, Consumer<RailSegment> action) {
+        railIndex.query(world.getMinX(), world.getMinY(), world.getMaxX(), world.getMaxY(), action);
+    }
+
+    public TrainStation stationAt(double worldX, double worldY, double radius) {
+        TrainStation[] best = new TrainStation[1];
+        double[] bestDist = { radius };
+        stationIndex.query(worldX - radius, worldY - radius, worldX + radius, worldY + radius, s -> {
+            double d = Math.hypot(xs[s.id()] - worldX, ys[s.id()] - worldY);
+            if (d <= bestDist[0]) {
+                bestDist[0] = d;
+                best[0] = s;
+            }
+        });
+        return best[0];
+    }
+
+    public static final class RailSegment {
+        public final TrainStation from;
+        public final TrainStation to;
+        public final Rail rail;
+
+        RailSegment(TrainStation from, TrainStation to, Rail rail) {
+            this.from = from;
+            this.to = to;
+            this.rail = rail;
+        }
+    }
+}
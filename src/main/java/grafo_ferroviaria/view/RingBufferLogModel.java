@@ -0,0 +1,45 @@
+package grafo_ferroviaria.view;
+
+import javax.swing.AbstractListModel;
+
+public class RingBufferLogModel extends AbstractListModel<String> {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] entries;
+    private int head;
+    private int size;
+
+    public RingBufferLogModel(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacidade do log deve ser positiva");
+        this.entries = new String[capacity];
+    }
+
+    public void append(String message) {
+        if (size == entries.length) {
+            entries[head] = message;
+            head = (head + 1) % entries.length;
+            fireIntervalRemoved(this, 0, 0);
+            fireIntervalAdded(this, size - 1, size - 1);
+            return;
+        }
+
+        entries[(head + size) % entries.length] = message;
+        size++;
+        fireIntervalAdded(this, size - 1, size - 1);
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return entries[(head + index) % entries.length];
+    }
+}
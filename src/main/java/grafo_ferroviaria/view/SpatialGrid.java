@@ -0,0 +1,81 @@
+package grafo_ferroviaria.view;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class SpatialGrid<T> {
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final List<List<T>> cells;
+
+    public SpatialGrid(double minX, double minY, double maxX, double maxY, int expectedItems) {
+        double width = Math.max(maxX - minX, 1e-9);
+        double height = Math.max(maxY - minY, 1e-9);
+        double cellArea = (width * height) / Math.max(1, expectedItems);
+
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = Math.max(Math.sqrt(cellArea), Math.max(width, height) / 1024);
+        this.cols = (int) Math.ceil(width / cellSize) + 1;
+        this.rows = (int) Math.ceil(height / cellSize) + 1;
+        this.cells = new ArrayList<>(Collections.nCopies(cols * rows, null));
+    }
+
+    public void insert(T item, double x0, double y0, double x1, double y1) {
+        int c0 = col(Math.min(x0, x1));
+        int c1 = col(Math.max(x0, x1));
+        int r0 = row(Math.min(y0, y1));
+        int r1 = row(Math.max(y0, y1));
+
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                int index = r * cols + c;
+                List<T> cell = cells.get(index);
+                if (cell == null) {
+                    cell = new ArrayList<>(4);
+                    cells.set(index, cell);
+                }
+                cell.add(item);
+            }
+        }
+    }
+
+    public void query(double x0, double y0, double x1, double y1, Consumer<? super T> action) {
+        int c0 = col(Math.min(x0, x1));
+        int c1 = col(Math.max(x0, x1));
+        int r0 = row(Math.min(y0, y1));
+        int r1 = row(Math.max(y0, y1));
+
+        Set<T> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                List<T> cell = cells.get(r * cols + c);
+                if (cell == null)
+                    continue;
+                for (T item : cell) {
+                    if (seen.add(item))
+                        action.accept(item);
+                }
+            }
+        }
+    }
+
+    private int col(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), cols);
+    }
+
+    private int row(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), rows);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+}
@@ -0,0 +1,141 @@
+package grafo_ferroviaria.view;
+
+import grafo_ferroviaria.managers.SimulationSnapshot;
+import grafo_ferroviaria.models.LegSchedule;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TrainStatusTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMNS = {
+            "Trem", "Estação", "Próxima", "Velocidade (km/h)", "Situação", "Tempo (min)",
+            "Preço total (R$)", "Distância total (km)"
+    };
+
+    private transient List<SimulationSnapshot.TrainFrame> rows = List.of();
+    private final transient Map<String, Integer> rowIndex = new HashMap<>();
+    private long sequence;
+
+    public void apply(SimulationSnapshot snapshot) {
+        if (snapshot.sequence() == sequence)
+            return;
+
+        boolean contiguous = snapshot.sequence() == sequence + 1;
+        List<SimulationSnapshot.TrainFrame> previous = rows;
+        sequence = snapshot.sequence();
+        rows = snapshot.trains();
+
+        // Skipped snapshots may have removed and added trains in equal numbers, so only the ids tell.
+        boolean trainsChanged = contiguous ? previous.size() != rows.size() : !sameTrains(previous, rows);
+        if (snapshot.membershipChanged() || trainsChanged) {
+            rowIndex.clear();
+            for (int i = 0; i < rows.size(); i++)
+                rowIndex.put(rows.get(i).trainId(), i);
+            fireTableDataChanged();
+            return;
+        }
+
+        if (contiguous) {
+            for (String trainId : snapshot.changedTrains()) {
+                Integer row = rowIndex.get(trainId);
+                if (row != null)
+                    fireTableRowsUpdated(row, row);
+            }
+        } else {
+            // Snapshots skipped in between: unchanged frames are reused by the simulator, so identity tells what moved.
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i) != previous.get(i))
+                    fireTableRowsUpdated(i, i);
+            }
+        }
+    }
+
+    private static boolean sameTrains(List<SimulationSnapshot.TrainFrame> a, List<SimulationSnapshot.TrainFrame> b) {
+        if (a.size() != b.size())
+            return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).trainId().equals(b.get(i).trainId()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 3:
+            case 5:
+            case 6:
+            case 7:
+                return Double.class;
+            default:
+                return String.class;
+        }
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        SimulationSnapshot.TrainFrame frame = rows.get(row);
+        switch (column) {
+            case 0:
+                return frame.trainId();
+            case 1:
+                return frame.currentStation() != null ? frame.currentStation().name() : "N/A";
+            case 2:
+                return frame.nextStation() != null ? frame.nextStation().name() : "N/A";
+            case 3:
+                return frame.currentSpeed();
+            case 4:
+                return situation(frame);
+            case 5:
+                return remainingTime(frame);
+            case 6:
+                return frame.schedule() != null ? frame.schedule().totalPrice() : null;
+            case 7:
+                return frame.schedule() != null ? frame.schedule().totalDistance() : null;
+            default:
+                return null;
+        }
+    }
+
+    private static String situation(SimulationSnapshot.TrainFrame frame) {
+        if (frame.hasReachedDestination())
+            return "Chegou ao destino";
+        if (frame.isWaiting())
+            return "Aguardando";
+        if (frame.isMoving())
+            return "Movendo";
+        return "Parado";
+    }
+
+    private static Double remainingTime(SimulationSnapshot.TrainFrame frame) {
+        if (frame.isWaiting())
+            return frame.waitingTime();
+        if (frame.isMoving() && !frame.hasReachedDestination())
+            return frame.timeToNextStation();
+        if (frame.hasReachedDestination()) {
+            LegSchedule schedule = frame.schedule();
+            return schedule != null ? schedule.totalRailTime() : null;
+        }
+        return null;
+    }
+}
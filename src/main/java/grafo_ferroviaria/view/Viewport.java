@@ -0,0 +1,83 @@
+package grafo_ferroviaria.view;
+
+import java.awt.geom.Rectangle2D;
+
+public class Viewport {
+    private static final double MIN_SCALE = 1e-6;
+    private static final double MAX_SCALE = 1e9;
+
+    private double scale;
+    private double offsetX;
+    private double offsetY;
+    private long version;
+
+    public Viewport() {
+        this.scale = 1.0;
+        this.offsetX = 0.0;
+        this.offsetY = 0.0;
+        this.version = 0;
+    }
+
+    public void fit(Rectangle2D world, int width, int height, int margin) {
+        double usableWidth = Math.max(1, width - 2 * margin);
+        double usableHeight = Math.max(1, height - 2 * margin);
+        double worldWidth = Math.max(world.getWidth(), 1e-9);
+        double worldHeight = Math.max(world.getHeight(), 1e-9);
+
+        this.scale = clampScale(Math.min(usableWidth / worldWidth, usableHeight / worldHeight));
+        this.offsetX = width / 2.0 - world.getCenterX() * scale;
+        this.offsetY = height / 2.0 - world.getCenterY() * scale;
+        version++;
+    }
+
+    public void pan(double dx, double dy) {
+        offsetX += dx;
+        offsetY += dy;
+        version++;
+    }
+
+    public void zoomAt(double factor, double screenX, double screenY) {
+        double worldX = toWorldX(screenX);
+        double worldY = toWorldY(screenY);
+        scale = clampScale(scale * factor);
+        offsetX = screenX - worldX * scale;
+        offsetY = screenY - worldY * scale;
+        version++;
+    }
+
+    public double toScreenX(double worldX) {
+        return worldX * scale + offsetX;
+    }
+
+    public double toScreenY(double worldY) {
+        return worldY * scale + offsetY;
+    }
+
+    public double toWorldX(double screenX) {
+        return (screenX - offsetX) / scale;
+    }
+
+    public double toWorldY(double screenY) {
+        return (screenY - offsetY) / scale;
+    }
+
+    public Rectangle2D visibleWorld(int width, int height, int margin) {
+        double x0 = toWorldX(-margin);
+        double y0 = toWorldY(-margin);
+        double x1 = toWorldX(width + margin);
+        double y1 = toWorldY(height + margin);
+        return new Rectangle2D.Double(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    public double scale() {
+        return scale;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    private static double clampScale(double value) {
+        return Math.max(MIN_SCALE, Math.min(MAX_SCALE, value));
+    }
+}
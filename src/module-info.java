@@ -3,4 +3,8 @@
  */
 module grafo_ferroviaria {
     requires java.desktop;
+    requires java.management;
+    requires jdk.jfr;
+    requires jdk.httpserver;
+    requires java.net.http;
 }
\ No newline at end of file